@@ -0,0 +1,378 @@
+package com.clearskye.epicconnector.catalog;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Immutable index of a catalog CSV file, such as the groups, default templates or subtemplates.
+ *
+ * <p>The first line holding one of the possible delimiters is the header, and every later line with a non-blank ID
+ * and a non-empty name is a record. Loading maps the file read-only and keeps only the byte offset of each record,
+ * in file order, and a hash table of the IDs over those offsets, where the first record of an ID wins. A record is
+ * decoded only when it is served, so pagination at any offset and lookups by ID take constant time whatever the
+ * size of the file, and the records never live on the heap.</p>
+ *
+ * <p>The mapped file is a private copy made in the temporary directory and unlinked once mapped, so a catalog file
+ * rewritten or truncated in place after loading never changes nor breaks a loaded catalog. The disk space of the
+ * copy is freed when the catalog is garbage collected.</p>
+ */
+public final class EpicCatalog {
+    /**
+     * Charset of the catalog files.
+     */
+    private static final Charset CHARSET = Charset.defaultCharset();
+    /**
+     * Marks an empty slot of the ID table.
+     */
+    private static final int EMPTY_SLOT = -1;
+    /**
+     * The mapped copy of the file, only read with absolute gets.
+     */
+    private final MappedByteBuffer buffer;
+    /**
+     * Names of the ID and name columns, null for a file without header.
+     */
+    private final String[] headers;
+    /**
+     * Splits a record line into its columns.
+     */
+    private final Pattern separator;
+    /**
+     * Delimiter byte of the columns.
+     */
+    private final byte delimiter;
+    /**
+     * Offset in the file of every record, in file order.
+     */
+    private final int[] recordOffsets;
+    /**
+     * Number of records.
+     */
+    private final int size;
+    /**
+     * Open-addressing table of record indexes by ID hash, EMPTY_SLOT where free.
+     */
+    private final int[] idTable;
+
+    /**
+     * Copy a catalog file, map the copy and index it.
+     *
+     * @param path The CSV file.
+     * @return catalog The indexed catalog
+     * @throws IOException Exception during copying or mapping the file, or if it is larger than 2 GB.
+     */
+    public static EpicCatalog load(Path path) throws IOException {
+        Path copy = Files.createTempFile(EpicConstants.CATALOG_COPY_PREFIX, path.getFileName().toString());
+        try {
+            Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException(MessageFormat.format("Catalog file {0} is larger than 2 GB", path));
+                }
+                return new EpicCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        } finally {
+            try {
+                Files.delete(copy);
+            } catch (IOException ex) {
+                copy.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Index the mapped bytes of a catalog file.
+     *
+     * @param buffer The mapped bytes of the file.
+     */
+    private EpicCatalog(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        int offset = 0;
+        String[] headerColumns = null;
+        String headerDelimiter = null;
+        while (offset < limit && headerDelimiter == null) {
+            int end = lineEnd(offset);
+            String line = decode(offset, end);
+            for (String possibleDelimiter : EpicConstants.POSSIBLE_DELIMITERS) {
+                if (line.contains(possibleDelimiter)) {
+                    headerColumns = line.split(Pattern.quote(possibleDelimiter));
+                    headerDelimiter = possibleDelimiter;
+                    break;
+                }
+            }
+            offset = nextLine(end);
+        }
+        this.headers = headerColumns;
+        this.separator = headerDelimiter == null ? null
+                : Pattern.compile(EpicConstants.LEFT_BRACKET + headerDelimiter + EpicConstants.RIGHT_BRACKET);
+        this.delimiter = headerDelimiter == null ? 0 : (byte) headerDelimiter.charAt(0);
+        int[] offsets = new int[1024];
+        int count = 0;
+        while (headerDelimiter != null && offset < limit) {
+            int end = lineEnd(offset);
+            if (isRecord(offset, end)) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count++] = offset;
+            }
+            offset = nextLine(end);
+        }
+        this.recordOffsets = offsets;
+        this.size = count;
+        this.idTable = new int[Integer.highestOneBit(Math.max(1, count) * 2 + 1) * 2];
+        Arrays.fill(idTable, EMPTY_SLOT);
+        for (int index = 0; index < count; index++) {
+            int start = recordOffsets[index];
+            int idEnd = fieldEnd(start, lineEnd(start));
+            int slot = hash(start, idEnd) & (idTable.length - 1);
+            while (idTable[slot] != EMPTY_SLOT && !sameId(idTable[slot], start, idEnd)) {
+                slot = (slot + 1) & (idTable.length - 1);
+            }
+            if (idTable[slot] == EMPTY_SLOT) {
+                idTable[slot] = index;
+            }
+        }
+    }
+
+    /**
+     * Find the record of an ID.
+     *
+     * @param id ID of the record.
+     * @return records The first record of the ID, or an empty list if there is none
+     */
+    public List<Map<String, String>> find(String id) {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        byte[] idBytes = id.getBytes(CHARSET);
+        int hash = 1;
+        for (byte idByte : idBytes) {
+            hash = 31 * hash + idByte;
+        }
+        for (int slot = hash & (idTable.length - 1); idTable[slot] != EMPTY_SLOT; slot = (slot + 1) & (idTable.length - 1)) {
+            int start = recordOffsets[idTable[slot]];
+            int idEnd = fieldEnd(start, lineEnd(start));
+            if (idEnd - start == idBytes.length && matches(start, idBytes)) {
+                return List.of(record(idTable[slot]));
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Get a page of records in file order, decoded as they are read.
+     *
+     * @param offset   Index of the first record of the page.
+     * @param pageSize Maximum number of records of the page.
+     * @return records The records of the page, empty past the last record
+     */
+    public List<Map<String, String>> page(int offset, int pageSize) {
+        int from = Math.max(0, Math.min(offset, size));
+        int to = (int) Math.max(from, Math.min((long) offset + pageSize, size));
+        return new AbstractList<>() {
+            @Override
+            public Map<String, String> get(int index) {
+                return record(from + index);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    /**
+     * Get all records in file order, decoded as they are read.
+     *
+     * @return records All records
+     */
+    public List<Map<String, String>> all() {
+        return page(0, size);
+    }
+
+    /**
+     * Number of records.
+     *
+     * @return size Number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decode a record.
+     *
+     * @param index Index of the record in file order.
+     * @return record The ID and name of the record by column name
+     */
+    private Map<String, String> record(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int start = recordOffsets[index];
+        String[] data = separator.split(decode(start, lineEnd(start)));
+        Map<String, String> record = new HashMap<>(4);
+        record.put(headers[0], data[0]);
+        record.put(headers[1], data[1]);
+        return Collections.unmodifiableMap(record);
+    }
+
+    /**
+     * Check whether a line is a record: it has a non-blank ID followed by a non-empty name.
+     *
+     * @param start Offset of the line.
+     * @param end   Offset of the end of the line.
+     * @return true if the line is a record
+     */
+    private boolean isRecord(int start, int end) {
+        int idEnd = fieldEnd(start, end);
+        if (idEnd == end || fieldEnd(idEnd + 1, end) == idEnd + 1) {
+            return false;
+        }
+        for (int index = start; index < idEnd; index++) {
+            byte value = buffer.get(index);
+            if (value < 0) {
+                return !decode(start, idEnd).isBlank();
+            }
+            if (!Character.isWhitespace(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the end of the field starting at an offset.
+     *
+     * @param start Offset of the field.
+     * @param end   Offset of the end of the line.
+     * @return fieldEnd Offset of the next delimiter, or the end of the line
+     */
+    private int fieldEnd(int start, int end) {
+        int index = start;
+        while (index < end && buffer.get(index) != delimiter) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Find the end of the line starting at an offset, like {@link java.io.BufferedReader#readLine()}.
+     *
+     * @param start Offset of the line.
+     * @return lineEnd Offset of the line terminator, or the end of the file
+     */
+    private int lineEnd(int start) {
+        int index = start;
+        int limit = buffer.limit();
+        while (index < limit) {
+            byte value = buffer.get(index);
+            if (value == '\n' || value == '\r') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Skip the terminator of a line.
+     *
+     * @param end Offset of the line terminator.
+     * @return offset Offset of the next line
+     */
+    private int nextLine(int end) {
+        if (end < buffer.limit() && buffer.get(end) == '\r') {
+            end++;
+        }
+        if (end < buffer.limit() && buffer.get(end) == '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Hash the bytes of an ID, the same way {@link #find(String)} hashes a requested ID.
+     *
+     * @param start Offset of the ID.
+     * @param end   Offset of the end of the ID.
+     * @return hash Hash of the ID bytes
+     */
+    private int hash(int start, int end) {
+        int hash = 1;
+        for (int index = start; index < end; index++) {
+            hash = 31 * hash + buffer.get(index);
+        }
+        return hash;
+    }
+
+    /**
+     * Check whether a record has the ID at an offset.
+     *
+     * @param index Index of the record.
+     * @param start Offset of the ID.
+     * @param end   Offset of the end of the ID.
+     * @return true if the IDs are the same bytes
+     */
+    private boolean sameId(int index, int start, int end) {
+        int otherStart = recordOffsets[index];
+        int otherEnd = fieldEnd(otherStart, lineEnd(otherStart));
+        if (otherEnd - otherStart != end - start) {
+            return false;
+        }
+        for (int offset = 0; offset < end - start; offset++) {
+            if (buffer.get(otherStart + offset) != buffer.get(start + offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the file holds the given bytes at an offset.
+     *
+     * @param start Offset in the file.
+     * @param bytes Bytes to compare.
+     * @return true if the bytes match
+     */
+    private boolean matches(int start, byte[] bytes) {
+        for (int offset = 0; offset < bytes.length; offset++) {
+            if (buffer.get(start + offset) != bytes[offset]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode a range of the file.
+     *
+     * @param start Offset of the range.
+     * @param end   Offset of the end of the range.
+     * @return text The decoded range
+     */
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, CHARSET);
+    }
+}
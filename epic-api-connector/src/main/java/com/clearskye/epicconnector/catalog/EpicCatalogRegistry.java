@@ -0,0 +1,250 @@
+package com.clearskye.epicconnector.catalog;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.MessageFormat;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Registry of the parsed catalog CSV files, kept in line with the files by a {@link WatchService}.
+ *
+ * <p>The configured catalogs are parsed at startup and any other file on first use. A background thread watches
+ * their directories and, once a file has been quiet for {@code epic.catalog.reloadDelay} milliseconds, parses it
+ * again and swaps the new catalog in, so reads never wait on a reload nor see a half-loaded catalog. A file that
+ * cannot be parsed keeps its last catalog.</p>
+ *
+ * <p>The metrics of a catalog are tagged with the absolute path of its file, so catalogs of the same file name in
+ * different directories are told apart.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class EpicCatalogRegistry {
+    /**
+     * Logger instance for logging EpicCatalogRegistry events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicCatalogRegistry.class);
+    /**
+     * Config parameters of the catalogs parsed at startup.
+     */
+    private static final List<String> CATALOG_FILEPATHS = List.of(EpicConstants.GROUPS_FILEPATH,
+            EpicConstants.USER_TEMPLATES_FILEPATH, EpicConstants.SUB_TEMPLATES_FILEPATH);
+    /**
+     * Environment to access environment-specific properties.
+     */
+    private final Environment environment;
+    /**
+     * Registry the catalog metrics are published to.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * Loaded catalog of every watched file.
+     */
+    private final Map<Path, Loaded> catalogs = new ConcurrentHashMap<>();
+    /**
+     * Watched directories by watch key.
+     */
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    /**
+     * Watch service of the catalog directories.
+     */
+    private WatchService watchService;
+    /**
+     * Thread reloading the changed catalogs.
+     */
+    private Thread watcher;
+
+    /**
+     * A loaded catalog.
+     *
+     * @param catalog  The parsed catalog.
+     * @param version  Number of times the file was loaded, starting at 1.
+     * @param loadedAt Time the catalog was loaded, in epoch milliseconds.
+     */
+    private record Loaded(EpicCatalog catalog, long version, long loadedAt) {
+    }
+
+    /**
+     * Parse the configured catalogs and start watching them.
+     *
+     * @throws IOException Exception during creating the watch service.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (String property : CATALOG_FILEPATHS) {
+            try {
+                String filepath = environment.getProperty(property);
+                if (filepath != null && !filepath.isBlank()) {
+                    get(filepath);
+                }
+            } catch (IllegalArgumentException | IOException ex) {
+                logger.warn(MessageFormat.format("Epic catalog {0} not loaded at startup, because of the exception : {1}", property, ex.getMessage()));
+            }
+        }
+        watcher = new Thread(this::watch, "epic-catalog-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stop watching the catalogs on shutdown.
+     */
+    @PreDestroy
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            logger.error(MessageFormat.format("Epic catalog watch service close failed : {0}", ex.getMessage()));
+        }
+        watcher.interrupt();
+    }
+
+    /**
+     * Get the catalog of a file, parsing it and starting to watch it on first use.
+     *
+     * @param filepath The path to the CSV file.
+     * @return catalog The latest catalog of the file
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public EpicCatalog get(String filepath) throws IOException {
+        Path path = Path.of(filepath).toAbsolutePath().normalize();
+        Loaded loaded = catalogs.get(path);
+        return loaded != null ? loaded.catalog() : load(path);
+    }
+
+    /**
+     * Parse a file not watched yet, register it for watching and publish its metrics.
+     *
+     * @param path Absolute path of the CSV file.
+     * @return catalog The parsed catalog
+     * @throws IOException If an error occurs while reading the file.
+     */
+    private synchronized EpicCatalog load(Path path) throws IOException {
+        Loaded loaded = catalogs.get(path);
+        if (loaded != null) {
+            return loaded.catalog();
+        }
+        Path directory = path.getParent();
+        if (!watchedDirectories.containsValue(directory)) {
+            watchedDirectories.put(directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY), directory);
+        }
+        long start = System.nanoTime();
+        loaded = new Loaded(EpicCatalog.load(path), 1, System.currentTimeMillis());
+        reloadTimer(path).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        catalogs.put(path, loaded);
+        String file = path.toString();
+        Gauge.builder(EpicConstants.METRIC_CATALOG_VERSION, catalogs, map -> map.get(path).version())
+                .description("Number of times the catalog file was loaded")
+                .tag("file", file)
+                .register(meterRegistry);
+        Gauge.builder(EpicConstants.METRIC_CATALOG_LOADED, catalogs, map -> map.get(path).loadedAt() / 1000.0)
+                .description("Time the catalog file was last loaded, in epoch seconds")
+                .tag("file", file)
+                .register(meterRegistry);
+        Gauge.builder(EpicConstants.METRIC_CATALOG_RECORDS, catalogs, map -> map.get(path).catalog().size())
+                .description("Records of the loaded catalog file")
+                .tag("file", file)
+                .register(meterRegistry);
+        logger.info(MessageFormat.format("Epic catalog {0} loaded with {1} records", path, loaded.catalog().size()));
+        return loaded.catalog();
+    }
+
+    /**
+     * Reload the changed catalogs until the watch service is closed.
+     */
+    private void watch() {
+        long reloadDelay = environment.getProperty(EpicConstants.CATALOG_RELOAD_DELAY, Long.class, EpicConstants.DEFAULT_CATALOG_RELOAD_DELAY);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new HashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collectChanges(key, changed);
+                    key = watchService.poll(reloadDelay, TimeUnit.MILLISECONDS);
+                }
+                changed.forEach(this::reload);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            logger.info("Epic catalog watch service closed.");
+        }
+    }
+
+    /**
+     * Collect the watched files a watch key reports as changed and reset the key.
+     *
+     * @param key     Signalled watch key.
+     * @param changed Watched files changed so far.
+     */
+    private void collectChanges(WatchKey key, Set<Path> changed) {
+        Path directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                catalogs.keySet().stream().filter(path -> path.getParent().equals(directory)).forEach(changed::add);
+            } else if (directory != null && catalogs.containsKey(directory.resolve((Path) event.context()))) {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    /**
+     * Parse a changed file again and swap the new catalog in, keeping the last one if the file cannot be parsed.
+     *
+     * @param path Absolute path of the CSV file.
+     */
+    private void reload(Path path) {
+        long start = System.nanoTime();
+        try {
+            EpicCatalog catalog = EpicCatalog.load(path);
+            Loaded loaded = catalogs.compute(path, (key, current) -> new Loaded(catalog, current.version() + 1, System.currentTimeMillis()));
+            reloadTimer(path).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.info(MessageFormat.format("Epic catalog {0} reloaded as version {1} with {2} records", path, loaded.version(), catalog.size()));
+        } catch (IOException | RuntimeException ex) {
+            logger.error(MessageFormat.format("Epic catalog {0} reload failed, keeping the loaded version, because of the exception : {1}",
+                    path, ex.getMessage()));
+        }
+    }
+
+    /**
+     * Timer of the loads of a catalog file.
+     *
+     * @param path Absolute path of the CSV file.
+     * @return timer The load timer of the file
+     */
+    private Timer reloadTimer(Path path) {
+        return Timer.builder(EpicConstants.METRIC_CATALOG_RELOAD)
+                .description("Time taken to parse the catalog file")
+                .tag("file", path.toString())
+                .register(meterRegistry);
+    }
+}
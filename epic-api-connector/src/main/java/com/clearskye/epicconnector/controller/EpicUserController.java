@@ -6,14 +6,23 @@ import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_COMPLEX_TYPE_
 import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_CREATE_USER_ENDPOINT;
 import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_DEACTIVATE_USER_ENDPOINT;
 import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_DELETE_USER_ENDPOINT;
-import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_GET_USER_ENDPOINT;
 import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_MULTI_VALUED_ATTR_SET;
 import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_UPDATE_USER_ENDPOINT;
 import static com.clearskye.epicconnector.utils.EpicConstants.EXTERNAL;
+import static com.clearskye.epicconnector.utils.EpicConstants.EXPORT_TIMEOUT;
+import static com.clearskye.epicconnector.utils.EpicConstants.DEFAULT_EXPORT_TIMEOUT;
 import static com.clearskye.epicconnector.utils.EpicConstants.GROUP;
 import static com.clearskye.epicconnector.utils.EpicConstants.ID;
-import static com.clearskye.epicconnector.utils.EpicConstants.RESPONSE_MESSAGE;
-import static com.clearskye.epicconnector.utils.EpicConstants.OBJECT_NOT_USER;
+import static com.clearskye.epicconnector.utils.EpicConstants.PAGE_SIZE;
+import static com.clearskye.epicconnector.utils.EpicConstants.SNAPSHOT;
+import static com.clearskye.epicconnector.utils.EpicConstants.WATERMARK;
+import static com.clearskye.epicconnector.utils.EpicConstants.SINCE;
+import static com.clearskye.epicconnector.utils.EpicConstants.REMOVED_USER_IDS;
+import static com.clearskye.epicconnector.utils.EpicConstants.HAS_MORE;
+import static com.clearskye.epicconnector.utils.EpicConstants.FULL_RESYNC_REQUIRED;
+import static com.clearskye.epicconnector.utils.EpicConstants.IDENTIFIER;
+import static com.clearskye.epicconnector.utils.EpicConstants.MAX_RECORDS;
+import static com.clearskye.epicconnector.utils.EpicConstants.DEFAULT_MAX_RECORDS;
 import static com.clearskye.epicconnector.utils.EpicConstants.USER_ID_TYPE_FIELD;
 import static com.clearskye.epicconnector.utils.EpicConstants.PROVIDER_ID;
 import static com.clearskye.epicconnector.utils.EpicConstants.RECORDLIST;
@@ -21,7 +30,6 @@ import static com.clearskye.epicconnector.utils.EpicConstants.REST_ENDPOINT;
 import static com.clearskye.epicconnector.utils.EpicConstants.SEARCH_CONTEXT;
 import static com.clearskye.epicconnector.utils.EpicConstants.TYPE;
 import static com.clearskye.epicconnector.utils.EpicConstants.UID;
-import static com.clearskye.epicconnector.utils.EpicConstants.USERGROUPS;
 import static com.clearskye.epicconnector.utils.EpicConstants.USERS;
 import static com.clearskye.epicconnector.utils.EpicConstants.USER_IDS;
 import static com.clearskye.epicconnector.utils.EpicConstants.USER_ID_FIELD;
@@ -29,17 +37,18 @@ import static com.clearskye.epicconnector.utils.EpicConstants.USER_ID_TYPE_VALUE
 import static com.clearskye.epicconnector.utils.EpicConstants.XML_RECORD_ID;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -48,18 +57,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.clearskye.epicconnector.dto.GroupUpdateRequestDto;
 import com.clearskye.epicconnector.dto.PasswordUpdateDto;
 import com.clearskye.epicconnector.dto.UserIdRequestDto;
+import com.clearskye.epicconnector.exception.EpicResponseException;
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+import com.clearskye.epicconnector.exception.EpicUserNotFoundException;
 import com.clearskye.epicconnector.service.EpicConnectionService;
 import com.clearskye.epicconnector.service.EpicSoapConnectionService;
+import com.clearskye.epicconnector.service.EpicUserEnrichmentService;
+import com.clearskye.epicconnector.service.EpicUserExportService;
 import com.clearskye.epicconnector.service.EpicUserUtilityService;
+import com.clearskye.epicconnector.snapshot.EpicUserSnapshot;
+import com.clearskye.epicconnector.snapshot.EpicUserSnapshotStore;
 import com.clearskye.epicconnector.utils.EpicConstants;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -91,6 +111,18 @@ public class EpicUserController {
      * Epic User Utility Service used for user-related utility functions.
      */
     private final EpicUserUtilityService epicUserUtilityService;
+    /**
+     * Epic User Enrichment Service fetching the details of the users of a page.
+     */
+    private final EpicUserEnrichmentService epicUserEnrichmentService;
+    /**
+     * Epic User Export Service streaming every user.
+     */
+    private final EpicUserExportService epicUserExportService;
+    /**
+     * Snapshot of the enriched users, serving snapshot reads.
+     */
+    private final EpicUserSnapshotStore epicUserSnapshotStore;
     /**
      * Environment to access environment-specific properties.
      */
@@ -127,8 +159,7 @@ public class EpicUserController {
                 logger.error(MessageFormat.format("Epic create user failed, because {0}", responseEntity.getBody()));
                 return responseEntity;
             }
-            Map<String, Object> responseMap = objectMapper.convertValue(responseEntity.getBody(), new TypeReference<Map<String, Object>>() {
-            });
+            Map<String, Object> responseMap = responseEntity.getBody();
             objectMapper.convertValue(responseMap.get(USER_IDS), new TypeReference<List<Map<String, String>>>() {
             }).forEach(data -> {
                 if (data.get(TYPE).equalsIgnoreCase(EXTERNAL)) {
@@ -224,6 +255,8 @@ public class EpicUserController {
             logger.error(MessageFormat.format("Epic User update failed with attributes {0} while performing {1}, because of the exception: {2}",
                     updateAttributes, EpicConnectionService.HttpOperationType.POST, ex.getMessage()));
             return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR).body("Epic User update failed, because of the exception : " + ex.getMessage());
+        } finally {
+            epicUserEnrichmentService.evictUser(userId);
         }
     }
 
@@ -251,6 +284,8 @@ public class EpicUserController {
         } catch (Exception ex) {
             logger.error(MessageFormat.format("Epic user enable Failed, because of the exception: {0}", ex.getMessage()));
             return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR).body("Epic user enable Failed, because of the exception : " + ex.getMessage());
+        } finally {
+            epicUserEnrichmentService.evictUser(userDtl.getUserId());
         }
     }
 
@@ -278,6 +313,8 @@ public class EpicUserController {
         } catch (Exception ex) {
             logger.error(MessageFormat.format("Epic user disable Failed, because of the exception: {0}", ex.getMessage()));
             return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR).body("Epic user disable Failed, because of the exception: " + ex.getMessage());
+        } finally {
+            epicUserEnrichmentService.evictUser(userDtl.getUserId());
         }
     }
 
@@ -301,37 +338,41 @@ public class EpicUserController {
         } catch (Exception ex) {
             logger.error(MessageFormat.format("Epic User Password update Failed, because of the exception : {0}", ex.getMessage()));
             return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR).body(ex.getMessage());
+        } finally {
+            epicUserEnrichmentService.evictUser(request.getUserId());
         }
     }
 
     /**
      * GET /getUser/{UserID} : Get the "UserID" user.
      *
-     * @param userId The id of the user to retrieve.
-     * @return The ResponseEntity with status 200 (OK) and with body the user, or with status 404 (Not Found).
+     * @param userId   The id of the user to retrieve.
+     * @param snapshot Read the user from the local snapshot instead of Epic.
+     * @return The ResponseEntity with status 200 (OK) and with body the user, with status 404 (Not Found), or with status 503 (Service Unavailable) when the lookup pool is full.
      */
     @GetMapping(value = "/getUser/{UserID}")
-    public ResponseEntity<?> getUser(@PathVariable(USER_ID_FIELD) String userId) {
+    public ResponseEntity<?> getUser(@PathVariable(USER_ID_FIELD) String userId,
+            @RequestParam(value = SNAPSHOT, required = false) boolean snapshot) {
+        if (snapshot) {
+            return epicUserSnapshotStore.get(userId)
+                    .<ResponseEntity<?>>map(stored -> ResponseEntity.status(HttpStatus.SC_OK).body(stored.user()))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SC_NOT_FOUND).body("Epic user not found in the snapshot with UserID : " + userId));
+        }
         Map<String, Object> responseMap = new HashMap<>();
         try {
             logger.info(MessageFormat.format("Epic User search with Filter using UserID: {0} ", userId));
-            Map<String, Object> paramRequestMap = new HashMap<>();
-            paramRequestMap.put(USER_ID_FIELD, userId);
-            paramRequestMap.put(USER_ID_TYPE_FIELD, EXTERNAL);
-            String url = environment.getProperty(REST_ENDPOINT) + EPIC_GET_USER_ENDPOINT;
-            ResponseEntity<Map<String, Object>> response = epicConnectionService.executeRequest(url,
-                    EpicConnectionService.HttpOperationType.GET, paramRequestMap, null);
-            if (response.getStatusCode().value() >= HttpStatus.SC_MULTIPLE_CHOICES) {
-                logger.error(MessageFormat.format("Unable to get the user from Epic with UserID: {0}, because of the exception: {1}", userId, response.getBody()));
-                return response;
+            try {
+                responseMap = epicUserEnrichmentService.getUser(userId);
+            } catch (EpicResponseException ex) {
+                logger.error(MessageFormat.format("Unable to get the user from Epic with UserID: {0}, because of the exception: {1}", userId, ex.getBody()));
+                return ResponseEntity.status(ex.getStatusCode()).body(ex.getBody());
+            } catch (EpicUserNotFoundException ex) {
+                logger.warn(ex.getMessage());
+                responseMap = null;
+            } catch (EpicUnavailableException ex) {
+                logger.error(ex.getMessage());
+                return ResponseEntity.status(HttpStatus.SC_SERVICE_UNAVAILABLE).body(ex.getMessage());
             }
-            responseMap = objectMapper.convertValue(response.getBody(), new TypeReference<Map<String, Object>>() {
-            });
-            ResponseEntity<Map<String, Object>> grpEntity = epicUserUtilityService.getUserGroups(epicConnectionService, userId);
-            Map<String, Object> groupMp = objectMapper.convertValue(grpEntity.getBody(), new TypeReference<Map<String, Object>>() {
-            });
-            responseMap.put(GROUP, groupMp.get(GROUP));
-            responseMap = epicUserUtilityService.buildReturnMap(responseMap);
             logger.info(MessageFormat.format("Epic user fetched successfully, with userId : {0}", userId));
             return ResponseEntity.status(HttpStatus.SC_OK).body(responseMap);
         } catch (Exception ex) {
@@ -344,40 +385,24 @@ public class EpicUserController {
      * POST /getUsers : Get users with pagination.
      *
      * @param searchContext The number of users per page.
+     * @param snapshot      Read the users from the local snapshot instead of Epic.
      * @return the ResponseEntity with status 200 (OK) and the users in body.
      */
     @PostMapping("/getUsers")
-    public ResponseEntity<?> getUsers(@RequestBody Map<String, Object> searchContext) {
+    public ResponseEntity<?> getUsers(@RequestBody Map<String, Object> searchContext,
+            @RequestParam(value = SNAPSHOT, required = false) boolean snapshot) {
+        if (snapshot) {
+            return getSnapshotUsers(searchContext);
+        }
         Map<String, Object> userResponseMap = new HashMap<>();
         try {
-            List<Map<String, Object>> empRecords = new ArrayList<>();
             Map<String, Object> soapResponse = epicSoapConnectionService.callSoapService(searchContext, EMP, null);
             List<Map<String, String>> usersList = objectMapper.convertValue(Optional.
                             ofNullable(soapResponse.get(RECORDLIST)).orElse(Collections.emptyList()),
                     new TypeReference<List<Map<String, String>>>() {
                     });
-            for (Map<String, String> user : usersList) {
-                Map<String, Object> paramRequestMap = new HashMap<>();
-                paramRequestMap.put(USER_ID_FIELD, user.get(XML_RECORD_ID));
-                paramRequestMap.put(USER_ID_TYPE_FIELD, EXTERNAL);
-                String url = environment.getProperty(REST_ENDPOINT) + EPIC_GET_USER_ENDPOINT;
-                ResponseEntity<Map<String, Object>> responseEntity = epicConnectionService.executeRequest(url,
-                        EpicConnectionService.HttpOperationType.GET, paramRequestMap, null);
-                Map<String, Object> responseMap = objectMapper.convertValue(responseEntity.getBody(), new TypeReference<Map<String, Object>>() {
-                });
-                if (responseEntity.getStatusCode().value() >= HttpStatus.SC_MULTIPLE_CHOICES && responseMap.get(RESPONSE_MESSAGE).toString().contains(OBJECT_NOT_USER)) {
-                    logger.warn(MessageFormat.format("Epic fetch single user failed in fetch all user operation, {0}", responseEntity.getBody()));
-                    continue;
-                } else if (responseEntity.getStatusCode().value() >= HttpStatus.SC_MULTIPLE_CHOICES) {
-                    logger.warn(MessageFormat.format("Epic fetch single user failed in fetch all user operation, {0}", responseEntity.getBody()));
-                    continue;
-                }
-                ResponseEntity<Map<String, Object>> grpEntity = epicUserUtilityService.getUserGroups(epicConnectionService, user.get(XML_RECORD_ID));
-                Map<String, Object> groupMp = objectMapper.convertValue(grpEntity.getBody(), new TypeReference<Map<String, Object>>() {
-                });
-                responseMap.put(USERGROUPS, groupMp.get(USERGROUPS));
-                empRecords.add(epicUserUtilityService.buildReturnMap(responseMap));
-            }
+            List<String> userIds = usersList.stream().map(user -> user.get(XML_RECORD_ID)).toList();
+            List<Map<String, Object>> empRecords = epicUserEnrichmentService.enrichUsers(userIds);
             userResponseMap.put(USERS, empRecords);
             if (soapResponse.get(SEARCH_CONTEXT) != null) {
                 userResponseMap.put(SEARCH_CONTEXT, soapResponse.get(SEARCH_CONTEXT));
@@ -390,6 +415,106 @@ public class EpicUserController {
         }
     }
 
+    /**
+     * Get a page of users from the local snapshot, in UserID order. The SearchStateContext Identifier of the
+     * response is the last UserID of the page, to be sent back for the next page.
+     *
+     * @param searchContext The number of users per page and the search context of the previous page.
+     * @return the ResponseEntity with status 200 (OK) and the users in body.
+     */
+    @SuppressWarnings("unchecked")
+    private ResponseEntity<?> getSnapshotUsers(Map<String, Object> searchContext) {
+        int pageSize = Integer.parseInt(String.valueOf(Optional.ofNullable(searchContext.get(PAGE_SIZE))
+                .orElse(environment.getProperty(MAX_RECORDS, String.valueOf(DEFAULT_MAX_RECORDS)))));
+        Map<String, Object> previousContext = (Map<String, Object>) searchContext.get(SEARCH_CONTEXT);
+        String afterUserId = previousContext == null ? null : (String) previousContext.get(IDENTIFIER);
+        List<EpicUserSnapshot> page = epicUserSnapshotStore.page(afterUserId, pageSize);
+        Map<String, Object> userResponseMap = new HashMap<>();
+        userResponseMap.put(USERS, page.stream().map(EpicUserSnapshot::user).toList());
+        if (!page.isEmpty() && epicUserSnapshotStore.hasAfter(page.get(page.size() - 1).userId())) {
+            userResponseMap.put(SEARCH_CONTEXT, Map.of(IDENTIFIER, page.get(page.size() - 1).userId()));
+        }
+        logger.info("Epic Fetch All users from snapshot success.");
+        return ResponseEntity.status(HttpStatus.SC_OK).body(userResponseMap);
+    }
+
+    /**
+     * POST /getUsersChanged : Get the users changed since a watermark, from the local snapshot.
+     *
+     * <p>The Watermark of the request is the one returned by the previous call, or a Since time in epoch milliseconds
+     * for the first call; without either every user is returned. Changed users are returned in Users and removed
+     * users in RemovedUserIDs; the call is repeated with the returned Watermark while HasMore is true.</p>
+     *
+     * <p>Removals are kept for {@code epic.snapshot.tombstoneRetention} ms at least. For an older Watermark or Since
+     * time FullResyncRequired is true and Watermark is 0: the calls are repeated from Watermark 0, which lists every
+     * user, and the users they do not return are removed.</p>
+     *
+     * @param deltaContext The number of users per page and the Watermark or Since time.
+     * @return the ResponseEntity with status 200 (OK) and the changes in body, or with status 400 (Bad Request).
+     */
+    @PostMapping("/getUsersChanged")
+    public ResponseEntity<?> getUsersChanged(@RequestBody Map<String, Object> deltaContext) {
+        try {
+            int pageSize = Integer.parseInt(String.valueOf(Optional.ofNullable(deltaContext.get(PAGE_SIZE))
+                    .orElse(environment.getProperty(MAX_RECORDS, String.valueOf(DEFAULT_MAX_RECORDS)))));
+            long watermark = deltaContext.get(WATERMARK) != null
+                    ? Long.parseLong(String.valueOf(deltaContext.get(WATERMARK)))
+                    : deltaContext.get(SINCE) != null
+                    ? epicUserSnapshotStore.sequenceAt(Long.parseLong(String.valueOf(deltaContext.get(SINCE))))
+                    : 0;
+            Map<String, Object> userResponseMap = new HashMap<>();
+            if ((watermark > 0 || deltaContext.get(SINCE) != null) && epicUserSnapshotStore.requiresFullResync(watermark)) {
+                userResponseMap.put(USERS, Collections.emptyList());
+                userResponseMap.put(REMOVED_USER_IDS, Collections.emptyList());
+                userResponseMap.put(WATERMARK, 0L);
+                userResponseMap.put(HAS_MORE, true);
+                userResponseMap.put(FULL_RESYNC_REQUIRED, true);
+                logger.info(MessageFormat.format("Epic Fetch changed users requires a full resync, watermark {0} is older than the removals kept", watermark));
+                return ResponseEntity.status(HttpStatus.SC_OK).body(userResponseMap);
+            }
+            List<EpicUserSnapshot> page = epicUserSnapshotStore.changedAfter(watermark, pageSize);
+            if (!page.isEmpty()) {
+                watermark = page.get(page.size() - 1).sequence();
+            }
+            userResponseMap.put(USERS, page.stream().map(EpicUserSnapshot::user).filter(Objects::nonNull).toList());
+            userResponseMap.put(REMOVED_USER_IDS, page.stream().filter(changed -> changed.user() == null).map(EpicUserSnapshot::userId).toList());
+            userResponseMap.put(WATERMARK, watermark);
+            userResponseMap.put(HAS_MORE, epicUserSnapshotStore.hasChangedAfter(watermark));
+            userResponseMap.put(FULL_RESYNC_REQUIRED, false);
+            logger.info(MessageFormat.format("Epic Fetch changed users success, {0} changes up to watermark {1}", page.size(), watermark));
+            return ResponseEntity.status(HttpStatus.SC_OK).body(userResponseMap);
+        } catch (NumberFormatException ex) {
+            logger.error(MessageFormat.format("Epic fetch changed users failed, because of the invalid parameter : {0}", ex.getMessage()));
+            return ResponseEntity.status(HttpStatus.SC_BAD_REQUEST).body("Epic fetch changed users failed, because of the invalid parameter :" + ex.getMessage());
+        }
+    }
+
+    /**
+     * GET /exportUsers : Stream every user as newline-delimited JSON, walking the pages server-side.
+     *
+     * <p>The last line is the export status, Complete or Failed with the number of users written, since a failure
+     * after the first page can no longer change the response status. The export may stream for
+     * {@code epic.export.timeout} ms, apart from the async timeout of the other endpoints.</p>
+     *
+     * @param pageSize Number of users fetched from Epic per page, defaults to epic.maxRecords.
+     * @param request  The export request, whose async timeout is set.
+     * @return the ResponseEntity with status 200 (OK) and one user per line in body, then the export status.
+     */
+    @GetMapping(value = "/exportUsers", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(value = PAGE_SIZE, required = false) String pageSize,
+            HttpServletRequest request) {
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest()
+                .setTimeout(environment.getProperty(EXPORT_TIMEOUT, Long.class, DEFAULT_EXPORT_TIMEOUT));
+        StreamingResponseBody body = out -> {
+            try {
+                epicUserExportService.exportUsers(pageSize, out);
+            } catch (Exception ex) {
+                logger.error(MessageFormat.format("Epic export users failed, because of the exception : {0}", ex.getMessage()));
+            }
+        };
+        return ResponseEntity.status(HttpStatus.SC_OK).contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * POST /updateGroups : Update the groups of an existing user.
      *
@@ -401,13 +526,8 @@ public class EpicUserController {
     @PostMapping("/updateGroups")
     public ResponseEntity<?> updateGroup(@Valid @RequestBody GroupUpdateRequestDto request) {
         try {
-            List<String> groups = objectMapper.convertValue(request.getUserGroups(),
-                    new TypeReference<List<String>>() {
-                    });
             ResponseEntity<Map<String, Object>> groupReponseEntity = epicUserUtilityService.setUserGroups(epicConnectionService,
-                    objectMapper.convertValue(request.getUserId(),
-                            new TypeReference<String>() {
-                            }), groups);
+                    request.getUserId(), request.getUserGroups());
             if (groupReponseEntity.getStatusCode().value() >= HttpStatus.SC_MULTIPLE_CHOICES) {
                 logger.error(MessageFormat.format("Epic Update User groups Failed, because of the exception : {0}", groupReponseEntity.getBody()));
                 return groupReponseEntity;
@@ -417,6 +537,8 @@ public class EpicUserController {
         } catch (Exception ex) {
             logger.error(MessageFormat.format("Epic Update User groups Failed, because of the exception : {0}", ex.getMessage()));
             return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR).body("Epic Update User groups Failed, because of the exception :" + ex.getMessage());
+        } finally {
+            epicUserEnrichmentService.evictUser(request.getUserId());
         }
     }
 
@@ -463,12 +585,14 @@ public class EpicUserController {
                         userId, EpicConnectionService.HttpOperationType.POST, deleteResponseEntity.getBody()));
                 return deleteResponseEntity;
             }
+            epicUserSnapshotStore.remove(userId);
             logger.info(MessageFormat.format("Epic user deleted with UserID: {0}", userId));
             return ResponseEntity.status(HttpStatus.SC_OK).body("Epic user deleted with UserID : " + userId);
         } catch (Exception ex) {
             logger.error(MessageFormat.format("Epic user deletion Failed, because of the exception : {0}", ex.getMessage()));
             return ResponseEntity.status(HttpStatus.SC_INTERNAL_SERVER_ERROR).body("Epic user deletion Failed, because of the exception : " + ex.getMessage());
+        } finally {
+            epicUserEnrichmentService.evictUser(userId);
         }
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.clearskye.epicconnector.dto;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Epic identifier made of an ID and its ID type, as used throughout the Epic personnel APIs.
+ *
+ * @param id   The identifier value.
+ * @param type The identifier type, such as External.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EpicIdentifier(@JsonProperty(EpicConstants.ID) String id,
+                             @JsonProperty(EpicConstants.TYPE) String type) {
+
+    /**
+     * Create an External identifier.
+     *
+     * @param id The identifier value.
+     * @return identifier External identifier with the given value
+     */
+    public static EpicIdentifier external(String id) {
+        return new EpicIdentifier(id, EpicConstants.USER_ID_TYPE_VALUE);
+    }
+
+    /**
+     * Check whether this identifier is of the External type.
+     *
+     * @return true if the type is External
+     */
+    @JsonIgnore
+    public boolean isExternal() {
+        return EpicConstants.USER_ID_TYPE_VALUE.equals(type);
+    }
+}
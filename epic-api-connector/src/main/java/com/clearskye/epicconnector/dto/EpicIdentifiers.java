@@ -0,0 +1,25 @@
+package com.clearskye.epicconnector.dto;
+
+import java.util.List;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * All identifiers of one Epic record, as returned for users managers and sub templates.
+ *
+ * @param identifiers The identifiers of the record.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EpicIdentifiers(@JsonProperty(EpicConstants.IDENTIFIERS) List<EpicIdentifier> identifiers) {
+
+    /**
+     * Find the External identifier value of the record.
+     *
+     * @return id External identifier value, or null if there is none
+     */
+    public String externalId() {
+        return EpicViewUser.externalId(identifiers);
+    }
+}
@@ -0,0 +1,14 @@
+package com.clearskye.epicconnector.dto;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Epic identifier with its position, as sent for user sub templates.
+ *
+ * @param identifier The identifier.
+ * @param index      One-based position of the identifier.
+ */
+public record EpicIndexedIdentifier(@JsonProperty(EpicConstants.IDENTIFIER) EpicIdentifier identifier,
+                                    @JsonProperty(EpicConstants.INDEX) int index) {
+}
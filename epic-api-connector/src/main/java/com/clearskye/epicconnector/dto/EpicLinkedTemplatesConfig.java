@@ -0,0 +1,28 @@
+package com.clearskye.epicconnector.dto;
+
+import java.util.List;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Linked templates configuration sent to Epic when creating or updating a user.
+ *
+ * @param defaultTemplateId   The default template.
+ * @param appliedTemplateId   The applied template.
+ * @param availableTemplates  The templates the user may link to.
+ */
+public record EpicLinkedTemplatesConfig(@JsonProperty(EpicConstants.DEFAULT_TEMPLATE_ID) EpicIdentifier defaultTemplateId,
+                                        @JsonProperty(EpicConstants.APPLIED_TEMPLATE_ID) EpicIdentifier appliedTemplateId,
+                                        @JsonProperty(EpicConstants.AVAILABLE_TEMPLATES) List<EpicIdentifier> availableTemplates) {
+
+    /**
+     * Create a configuration where the given template is default, applied and the only available one.
+     *
+     * @param template The template.
+     * @return config Linked templates configuration
+     */
+    public static EpicLinkedTemplatesConfig of(EpicIdentifier template) {
+        return new EpicLinkedTemplatesConfig(template, template, List.of(template));
+    }
+}
@@ -0,0 +1,71 @@
+package com.clearskye.epicconnector.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Name parts of an Epic user, exchanged as UserComplexName.
+ * Parts that are not set are left out of the request, so Epic keeps their current value.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EpicUserComplexName(@JsonProperty("FirstName") String firstName,
+                                  @JsonProperty("MiddleName") String middleName,
+                                  @JsonProperty("LastName") String lastName,
+                                  @JsonProperty("GivenNameInitials") String givenNameInitials,
+                                  @JsonProperty("LastNamePrefix") String lastNamePrefix,
+                                  @JsonProperty("SpouseLastName") String spouseLastName,
+                                  @JsonProperty("SpousePrefix") String spousePrefix,
+                                  @JsonProperty("Suffix") String suffix,
+                                  @JsonProperty("AcademicTitle") String academicTitle,
+                                  @JsonProperty("PrimaryTitle") String primaryTitle,
+                                  @JsonProperty("SpouseLastNameFirst") String spouseLastNameFirst) {
+
+    /**
+     * Create the complex name from name parts keyed by their Epic attribute name.
+     *
+     * @param nameParts Name parts keyed by attribute name.
+     * @return complexName The complex name
+     */
+    public static EpicUserComplexName from(Map<String, String> nameParts) {
+        return new EpicUserComplexName(nameParts.get("FirstName"), nameParts.get("MiddleName"), nameParts.get("LastName"),
+                nameParts.get("GivenNameInitials"), nameParts.get("LastNamePrefix"), nameParts.get("SpouseLastName"),
+                nameParts.get("SpousePrefix"), nameParts.get("Suffix"), nameParts.get("AcademicTitle"),
+                nameParts.get("PrimaryTitle"), nameParts.get("SpouseLastNameFirst"));
+    }
+
+    /**
+     * Add the name parts that are set to the given map, keyed by their Epic attribute name.
+     *
+     * @param target Map the name parts are added to.
+     */
+    public void putInto(Map<String, Object> target) {
+        putIfSet(target, "FirstName", firstName);
+        putIfSet(target, "MiddleName", middleName);
+        putIfSet(target, "LastName", lastName);
+        putIfSet(target, "GivenNameInitials", givenNameInitials);
+        putIfSet(target, "LastNamePrefix", lastNamePrefix);
+        putIfSet(target, "SpouseLastName", spouseLastName);
+        putIfSet(target, "SpousePrefix", spousePrefix);
+        putIfSet(target, "Suffix", suffix);
+        putIfSet(target, "AcademicTitle", academicTitle);
+        putIfSet(target, "PrimaryTitle", primaryTitle);
+        putIfSet(target, "SpouseLastNameFirst", spouseLastNameFirst);
+    }
+
+    /**
+     * Add a name part to the map when it is set.
+     *
+     * @param target   Map the name part is added to.
+     * @param attrName Epic attribute name.
+     * @param value    Name part value.
+     */
+    private static void putIfSet(Map<String, Object> target, String attrName, String value) {
+        if (value != null) {
+            target.put(attrName, value);
+        }
+    }
+}
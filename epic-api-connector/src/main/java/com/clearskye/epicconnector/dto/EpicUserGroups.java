@@ -0,0 +1,16 @@
+package com.clearskye.epicconnector.dto;
+
+import java.util.List;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Groups of an Epic user, as returned by ViewUserGroups.
+ *
+ * @param userGroups The group names.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EpicUserGroups(@JsonProperty(EpicConstants.USERGROUPS) List<String> userGroups) {
+}
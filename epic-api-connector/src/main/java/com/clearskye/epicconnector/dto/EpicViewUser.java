@@ -0,0 +1,96 @@
+package com.clearskye.epicconnector.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Epic user as returned by ViewUser.
+ * Only the attributes the connector exposes are mapped, everything else in the response is skipped while decoding.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EpicViewUser(@JsonProperty(EpicConstants.USER_IDS) List<EpicIdentifier> userIds,
+                           @JsonProperty(EpicConstants.TEMPLATES_CONFIG) LinkedTemplates linkedTemplatesConfig,
+                           @JsonProperty(EpicConstants.USERS_MANAGERS) List<EpicIdentifiers> usersManagers,
+                           @JsonProperty(EpicConstants.EPIC_ATTR_USER_SUBTEMPLATE_IDS) List<EpicIdentifiers> userSubtemplateIds,
+                           @JsonProperty(EpicConstants.EPIC_ATTR_DEFAULT_LOGIN_DEPT_ID) List<EpicIdentifier> defaultLoginDepartmentId,
+                           @JsonProperty(EpicConstants.EPIC_ATTR_PRIMARY_MANAGER) List<EpicIdentifier> primaryManager,
+                           @JsonProperty(EpicConstants.PROVIDER_ID) List<EpicIdentifier> linkedProviderId,
+                           @JsonProperty(EpicConstants.COMPLEX_NAME) EpicUserComplexName userComplexName,
+                           @JsonProperty(EpicConstants.INBASKET_CLASSIFICATION) List<String> inBasketClassifications,
+                           @JsonProperty(EpicConstants.CATEGORY_REPORT_GROUPER6) List<String> categoryReportGrouper6,
+                           @JsonProperty("BlockStatus") Map<String, Object> blockStatus,
+                           @JsonProperty(EpicConstants.STATUS_FIELD) Boolean isActive,
+                           @JsonProperty("Name") String name,
+                           @JsonProperty("Status") String status,
+                           @JsonProperty("Sex") String sex,
+                           @JsonProperty("StartDate") String startDate,
+                           @JsonProperty("EndDate") String endDate,
+                           @JsonProperty("ContactDate") String contactDate,
+                           @JsonProperty("ContactComment") String contactComment,
+                           @JsonProperty("LDAPOverrideID") String ldapOverrideId,
+                           @JsonProperty("SystemLoginID") String systemLoginId,
+                           @JsonProperty("UserAlias") String userAlias,
+                           @JsonProperty("UserPhotoPath") String userPhotoPath,
+                           @JsonProperty("ReportGrouper1") String reportGrouper1,
+                           @JsonProperty("ReportGrouper2") String reportGrouper2,
+                           @JsonProperty("ReportGrouper3") String reportGrouper3,
+                           @JsonProperty("AuditUserID") String auditUserId,
+                           @JsonProperty("AuditUserIDType") String auditUserIdType,
+                           @JsonProperty("Notes") JsonNode notes) {
+
+    /**
+     * Linked templates configuration as returned by ViewUser, where every template is a list of identifiers.
+     *
+     * @param defaultTemplateId The identifiers of the default template.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record LinkedTemplates(@JsonProperty(EpicConstants.DEFAULT_TEMPLATE_ID) List<EpicIdentifier> defaultTemplateId) {
+    }
+
+    /**
+     * Find the External identifier value in a list of identifiers.
+     *
+     * @param identifiers The identifiers to search, may be null.
+     * @return id External identifier value, or null if there is none
+     */
+    public static String externalId(List<EpicIdentifier> identifiers) {
+        if (identifiers == null) {
+            return null;
+        }
+        return identifiers.stream()
+                .filter(identifier -> identifier != null && identifier.isExternal())
+                .map(EpicIdentifier::id)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Find the External user id, matching the id type case-insensitively.
+     *
+     * @return userId External user id, or null if there is none
+     */
+    public String externalUserId() {
+        if (userIds == null) {
+            return null;
+        }
+        return userIds.stream()
+                .filter(identifier -> identifier != null && EpicConstants.USER_ID_TYPE_VALUE.equalsIgnoreCase(identifier.type()))
+                .map(EpicIdentifier::id)
+                .reduce((first, last) -> last)
+                .orElse(null);
+    }
+
+    /**
+     * Find the External default template id.
+     *
+     * @return templateId External default template id, or null if there is none
+     */
+    public String defaultTemplateExternalId() {
+        return linkedTemplatesConfig == null ? null : externalId(linkedTemplatesConfig.defaultTemplateId());
+    }
+}
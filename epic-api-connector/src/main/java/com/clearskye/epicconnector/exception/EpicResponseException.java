@@ -0,0 +1,33 @@
+package com.clearskye.epicconnector.exception;
+
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Exception raised when Epic answers a typed request with an error status.
+ * It carries the status code and the error body sent by Epic, so it can be returned to the caller unchanged.
+ */
+@Getter
+public class EpicResponseException extends RuntimeException {
+    /**
+     * HTTP status code sent by Epic.
+     */
+    private final int statusCode;
+    /**
+     * Error body sent by Epic.
+     */
+    private final transient Map<String, Object> body;
+
+    /**
+     * Constructs a new EpicResponseException with the status and error body sent by Epic.
+     *
+     * @param statusCode the HTTP status code
+     * @param body       the error body
+     */
+    public EpicResponseException(int statusCode, Map<String, Object> body) {
+        super(String.valueOf(body));
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+}
@@ -0,0 +1,16 @@
+package com.clearskye.epicconnector.exception;
+
+/**
+ * Exception raised when a call to Epic is refused locally, because the circuit of its backend is open
+ * or its bulkhead has no capacity left. The call was never sent to Epic.
+ */
+public class EpicUnavailableException extends RuntimeException {
+    /**
+     * Constructs a new EpicUnavailableException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public EpicUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.clearskye.epicconnector.exception;
+
+/**
+ * Exception raised when Epic answers a user lookup without any UserIDs, so there is no user to return or cache.
+ */
+public class EpicUserNotFoundException extends RuntimeException {
+    /**
+     * Constructs a new EpicUserNotFoundException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public EpicUserNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -17,6 +17,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
 import com.clearskye.epicconnector.exception.CustomCommonException;
+import com.clearskye.epicconnector.exception.EpicResponseException;
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
 
 import io.jsonwebtoken.ExpiredJwtException;
 
@@ -67,6 +69,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
 
+    /**
+     * Handles `EpicResponseException` exceptions.
+     *
+     * @param ex the exception thrown
+     * @return A response entity with the error body and status code sent by Epic
+     */
+    @ExceptionHandler(value = EpicResponseException.class)
+    public ResponseEntity<Map<String, Object>> epicResponseException(EpicResponseException ex) {
+        logger.error(MessageFormat.format("Operation failed , because of error {0} : ", ex.getMessage()));
+        return ResponseEntity.status(ex.getStatusCode()).body(ex.getBody());
+    }
+
+    /**
+     * Handles `EpicUnavailableException` exceptions.
+     *
+     * @param ex the exception thrown
+     * @return A response entity with an error message and a 503 status code
+     */
+    @ExceptionHandler(value = EpicUnavailableException.class)
+    public ResponseEntity<String> epicUnavailableException(EpicUnavailableException ex) {
+        logger.error(MessageFormat.format("Operation failed , because of error {0} : ", ex.getMessage()));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -0,0 +1,81 @@
+package com.clearskye.epicconnector.resilience;
+
+import java.text.MessageFormat;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+
+import lombok.Getter;
+
+/**
+ * Bulkhead bounding the number of concurrent Epic calls of one kind of traffic, so that one kind cannot take
+ * every connection and thread from the others.
+ */
+public final class EpicBulkhead {
+    /**
+     * Name of the bulkhead, used in error messages.
+     */
+    @Getter
+    private final String name;
+    /**
+     * Milliseconds a blocking caller waits for capacity.
+     */
+    private final long maxWait;
+    /**
+     * Permits of the calls in flight.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Create a bulkhead.
+     *
+     * @param name          Name of the bulkhead.
+     * @param maxConcurrent Maximum number of concurrent calls.
+     * @param maxWait       Milliseconds a blocking caller waits for capacity.
+     */
+    public EpicBulkhead(String name, int maxConcurrent, long maxWait) {
+        this.name = name;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    /**
+     * Take a permit, waiting at most the configured time. The permit must be given back with {@link #release()}.
+     *
+     * @throws EpicUnavailableException When no permit became available in time.
+     * @throws InterruptedException     When the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+            throw new EpicUnavailableException(MessageFormat.format("Epic {0} bulkhead is full, call rejected", name));
+        }
+    }
+
+    /**
+     * Take a permit without waiting, for callers that must not block. The permit must be given back with {@link #release()}.
+     *
+     * @throws EpicUnavailableException When no permit is available.
+     */
+    public void tryAcquire() {
+        if (!permits.tryAcquire()) {
+            throw new EpicUnavailableException(MessageFormat.format("Epic {0} bulkhead is full, call rejected", name));
+        }
+    }
+
+    /**
+     * Give back a permit.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Retrieve the number of calls that can still start without waiting.
+     *
+     * @return available Available permits
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,194 @@
+package com.clearskye.epicconnector.resilience;
+
+import java.text.MessageFormat;
+import java.util.function.LongSupplier;
+
+import org.apache.http.HttpStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+
+/**
+ * Circuit breaker of one Epic backend.
+ *
+ * <p>After a number of consecutive failures the circuit opens and calls fail fast without reaching Epic. Once the
+ * open duration has passed, a limited number of probe calls are let through: a successful probe closes the circuit
+ * again, a failed one reopens it.</p>
+ */
+public final class EpicCircuitBreaker {
+    /**
+     * State of the circuit.
+     */
+    public enum State {
+        /**
+         * Calls flow normally.
+         */
+        CLOSED,
+        /**
+         * Calls fail fast.
+         */
+        OPEN,
+        /**
+         * Probe calls test whether the backend recovered.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Logger instance for logging EpicCircuitBreaker events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicCircuitBreaker.class);
+    /**
+     * Name of the backend, used in log and error messages.
+     */
+    private final String name;
+    /**
+     * Number of consecutive failures that opens the circuit.
+     */
+    private final int failureThreshold;
+    /**
+     * Milliseconds the circuit stays open before probing.
+     */
+    private final long openDuration;
+    /**
+     * Number of concurrent probe calls allowed while half open.
+     */
+    private final int halfOpenProbes;
+    /**
+     * Clock of the state changes, in milliseconds.
+     */
+    private final LongSupplier clock;
+    /**
+     * Current state.
+     */
+    private State state = State.CLOSED;
+    /**
+     * Consecutive failures while closed.
+     */
+    private int consecutiveFailures;
+    /**
+     * Time in milliseconds the current state was entered.
+     */
+    private long stateSince;
+    /**
+     * Probe calls in flight while half open.
+     */
+    private int probesInFlight;
+
+    /**
+     * Create a closed circuit breaker.
+     *
+     * @param name             Name of the backend.
+     * @param failureThreshold Number of consecutive failures that opens the circuit.
+     * @param openDuration     Milliseconds the circuit stays open before probing.
+     * @param halfOpenProbes   Number of concurrent probe calls allowed while half open.
+     */
+    public EpicCircuitBreaker(String name, int failureThreshold, long openDuration, int halfOpenProbes) {
+        this(name, failureThreshold, openDuration, halfOpenProbes, System::currentTimeMillis);
+    }
+
+    /**
+     * Create a closed circuit breaker reading the time from a clock.
+     *
+     * @param name             Name of the backend.
+     * @param failureThreshold Number of consecutive failures that opens the circuit.
+     * @param openDuration     Milliseconds the circuit stays open before probing.
+     * @param halfOpenProbes   Number of concurrent probe calls allowed while half open.
+     * @param clock            Clock of the state changes, in milliseconds.
+     */
+    EpicCircuitBreaker(String name, int failureThreshold, long openDuration, int halfOpenProbes, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.clock = clock;
+    }
+
+    /**
+     * Ask permission to send a call, which must then be reported with {@link #onSuccess()} or {@link #onFailure()}.
+     *
+     * @throws EpicUnavailableException When the circuit is open or all probe calls are taken.
+     */
+    public synchronized void acquirePermission() {
+        long now = clock.getAsLong();
+        if (state == State.OPEN) {
+            if (now - stateSince < openDuration) {
+                throw new EpicUnavailableException(MessageFormat.format("Epic {0} circuit is open, call rejected", name));
+            }
+            transition(State.HALF_OPEN, now);
+        }
+        if (state == State.HALF_OPEN) {
+            // A probe that never reported back must not keep the circuit half open forever.
+            if (probesInFlight >= halfOpenProbes && now - stateSince < openDuration) {
+                throw new EpicUnavailableException(MessageFormat.format("Epic {0} circuit is half open, call rejected", name));
+            }
+            if (probesInFlight >= halfOpenProbes) {
+                probesInFlight = 0;
+                stateSince = now;
+            }
+            probesInFlight++;
+        }
+    }
+
+    /**
+     * Report a call that reached a healthy backend.
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            transition(State.CLOSED, clock.getAsLong());
+        }
+    }
+
+    /**
+     * Report a call that failed because of the backend. Calls let through before the circuit opened and failing
+     * while it is open are ignored, so they do not extend the open duration.
+     */
+    public synchronized void onFailure() {
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            transition(State.OPEN, clock.getAsLong());
+        }
+    }
+
+    /**
+     * Report a call by its HTTP status, where only server errors count against the backend.
+     *
+     * @param statusCode HTTP status code sent by Epic.
+     */
+    public void onResult(int statusCode) {
+        if (statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+    }
+
+    /**
+     * Retrieve the current state.
+     *
+     * @return state The state of the circuit
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Move to another state.
+     *
+     * @param newState The state to move to.
+     * @param now      Current time in milliseconds.
+     */
+    private void transition(State newState, long now) {
+        if (state != newState) {
+            logger.warn(MessageFormat.format("Epic {0} circuit moved from {1} to {2}", name, state, newState));
+        }
+        state = newState;
+        stateSince = now;
+        consecutiveFailures = 0;
+        probesInFlight = 0;
+    }
+}
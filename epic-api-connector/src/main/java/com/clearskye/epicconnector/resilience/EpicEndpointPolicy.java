@@ -0,0 +1,160 @@
+package com.clearskye.epicconnector.resilience;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+
+import lombok.Getter;
+
+/**
+ * Timeouts and retry settings of a single Epic endpoint.
+ */
+@Getter
+public final class EpicEndpointPolicy {
+    /**
+     * Name of the policy, used in config parameters and log messages.
+     */
+    private final String name;
+    /**
+     * Connect timeout in milliseconds.
+     */
+    private final int connectTimeout;
+    /**
+     * Socket (read) timeout in milliseconds.
+     */
+    private final int socketTimeout;
+    /**
+     * Time in milliseconds to wait for a pooled connection.
+     */
+    private final int poolTimeout;
+    /**
+     * Maximum number of retries, only used when the endpoint is idempotent.
+     */
+    private final int maxRetries;
+    /**
+     * Backoff in milliseconds before the first retry.
+     */
+    private final long initialBackoff;
+    /**
+     * Upper bound in milliseconds of the backoff between retries.
+     */
+    private final long maxBackoff;
+    /**
+     * Whether a call can safely be sent again after a failure.
+     */
+    private final boolean idempotent;
+    /**
+     * Circuit breaker of the backend serving the endpoint.
+     */
+    private final EpicCircuitBreaker circuitBreaker;
+    /**
+     * Bulkhead the calls to the endpoint are counted against.
+     */
+    private final EpicBulkhead bulkhead;
+    /**
+     * Rate limit pacing the calls to the endpoint.
+     */
+    private final EpicRateLimiter rateLimiter;
+    /**
+     * Request config of the blocking client, built once from the timeouts.
+     */
+    private final RequestConfig requestConfig;
+    /**
+     * Request config of the asynchronous client, built once from the timeouts.
+     */
+    private final org.apache.hc.client5.http.config.RequestConfig asyncRequestConfig;
+
+    /**
+     * Create an endpoint policy.
+     *
+     * @param name           Name of the policy.
+     * @param connectTimeout Connect timeout in milliseconds.
+     * @param socketTimeout  Socket timeout in milliseconds.
+     * @param poolTimeout    Time in milliseconds to wait for a pooled connection.
+     * @param maxRetries     Maximum number of retries.
+     * @param initialBackoff Backoff in milliseconds before the first retry.
+     * @param maxBackoff     Upper bound in milliseconds of the backoff.
+     * @param idempotent     Whether a call can safely be sent again.
+     * @param keepAlive      Keep-alive duration in seconds of asynchronous connections, when Epic does not send one.
+     * @param circuitBreaker Circuit breaker of the backend serving the endpoint.
+     * @param bulkhead       Bulkhead the calls to the endpoint are counted against.
+     * @param rateLimiter    Rate limit pacing the calls to the endpoint.
+     */
+    public EpicEndpointPolicy(String name, int connectTimeout, int socketTimeout, int poolTimeout, int maxRetries,
+            long initialBackoff, long maxBackoff, boolean idempotent, int keepAlive, EpicCircuitBreaker circuitBreaker,
+            EpicBulkhead bulkhead, EpicRateLimiter rateLimiter) {
+        this.name = name;
+        this.connectTimeout = connectTimeout;
+        this.socketTimeout = socketTimeout;
+        this.poolTimeout = poolTimeout;
+        this.maxRetries = idempotent ? Math.max(0, maxRetries) : 0;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.idempotent = idempotent;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.rateLimiter = rateLimiter;
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .setConnectionRequestTimeout(poolTimeout)
+                .build();
+        this.asyncRequestConfig = org.apache.hc.client5.http.config.RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeout))
+                .setResponseTimeout(Timeout.ofMilliseconds(socketTimeout))
+                .setConnectionKeepAlive(TimeValue.ofSeconds(keepAlive))
+                .build();
+    }
+
+    /**
+     * Check whether a failed attempt may be followed by another one.
+     *
+     * @param attempt Zero-based number of the attempt that failed.
+     * @return true if the retry limit of the policy is not reached yet
+     */
+    public boolean canRetry(int attempt) {
+        return attempt < maxRetries;
+    }
+
+    /**
+     * Compute the backoff before the next attempt, using exponential backoff with full jitter so that
+     * callers failing together do not retry together.
+     *
+     * @param attempt Zero-based number of the attempt that failed.
+     * @return backoff Milliseconds to wait before the next attempt
+     */
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoff, initialBackoff << Math.min(attempt, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Wait the backoff before the next attempt.
+     *
+     * @param attempt Zero-based number of the attempt that failed.
+     * @throws InterruptedIOException When the thread is interrupted while waiting.
+     */
+    public void backOff(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(backoffMillis(attempt));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry the Epic " + name + " call");
+        }
+    }
+
+    /**
+     * Check whether an HTTP status indicates a transient failure worth retrying.
+     *
+     * @param statusCode HTTP status code.
+     * @return true for throttling and gateway errors
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        return statusCode == HttpStatus.SC_TOO_MANY_REQUESTS || statusCode == HttpStatus.SC_BAD_GATEWAY
+                || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+    }
+}
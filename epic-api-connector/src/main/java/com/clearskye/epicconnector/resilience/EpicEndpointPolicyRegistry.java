@@ -0,0 +1,333 @@
+package com.clearskye.epicconnector.resilience;
+
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Registry of the timeout, retry, isolation and rate limit policy of every Epic endpoint.
+ *
+ * <p>Each policy can be tuned with {@code epic.policy.<name>.<setting>} config parameters, for example
+ * {@code epic.policy.viewUser.socketTimeout=10000}. Calls to unknown endpoints use the {@code default} policy.
+ * Endpoints share one circuit breaker per backend (REST, SOAP and OAuth), and reads and writes are admitted through
+ * separate bulkheads.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class EpicEndpointPolicyRegistry {
+    /**
+     * Name of the policy used for endpoints without their own policy.
+     */
+    public static final String DEFAULT_POLICY = "default";
+    /**
+     * Name of the policy of the SOAP GetRecords call.
+     */
+    public static final String GET_RECORDS_POLICY = "getRecords";
+    /**
+     * Name of the policy of the OAuth token request.
+     */
+    public static final String TOKEN_POLICY = "token";
+    /**
+     * Name of the Epic REST backend.
+     */
+    public static final String REST_BACKEND = "rest";
+    /**
+     * Name of the Epic SOAP backend.
+     */
+    public static final String SOAP_BACKEND = "soap";
+    /**
+     * Name of the Epic OAuth backend.
+     */
+    public static final String OAUTH_BACKEND = "oauth";
+    /**
+     * Name of the bulkhead of read and enumeration traffic.
+     */
+    public static final String READ_BULKHEAD = "read";
+    /**
+     * Name of the bulkhead of write traffic.
+     */
+    public static final String WRITE_BULKHEAD = "write";
+    /**
+     * Logger instance for logging EpicEndpointPolicyRegistry events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicEndpointPolicyRegistry.class);
+    /**
+     * Environment to access environment-specific properties.
+     */
+    private final Environment environment;
+    /**
+     * Registry the circuit and bulkhead gauges are published to.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * Policies of the REST endpoints, keyed by endpoint path.
+     */
+    private final Map<String, EpicEndpointPolicy> restPolicies = new LinkedHashMap<>();
+    /**
+     * Policy of the SOAP GetRecords call.
+     */
+    @Getter
+    private EpicEndpointPolicy getRecordsPolicy;
+    /**
+     * Policy of the OAuth token request.
+     */
+    @Getter
+    private EpicEndpointPolicy tokenPolicy;
+    /**
+     * Policy of endpoints without their own policy.
+     */
+    @Getter
+    private EpicEndpointPolicy defaultPolicy;
+    /**
+     * Retry budget shared by all Epic calls.
+     */
+    @Getter
+    private EpicRetryBudget retryBudget;
+    /**
+     * Coalesces identical concurrent reads of the Epic REST backend.
+     */
+    @Getter
+    private EpicSingleFlight restSingleFlight;
+    /**
+     * Coalesces identical concurrent reads of the Epic SOAP backend.
+     */
+    @Getter
+    private EpicSingleFlight soapSingleFlight;
+    /**
+     * Circuit breaker of the Epic REST backend.
+     */
+    private EpicCircuitBreaker restCircuitBreaker;
+    /**
+     * Circuit breaker of the Epic SOAP backend.
+     */
+    private EpicCircuitBreaker soapCircuitBreaker;
+    /**
+     * Circuit breaker of the Epic OAuth backend.
+     */
+    private EpicCircuitBreaker oauthCircuitBreaker;
+    /**
+     * Bulkhead of read and enumeration traffic.
+     */
+    private EpicBulkhead readBulkhead;
+    /**
+     * Bulkhead of write traffic, so that enumeration cannot starve user provisioning.
+     */
+    private EpicBulkhead writeBulkhead;
+
+    /**
+     * Build the policies from the config parameters once the registry is created.
+     */
+    @PostConstruct
+    public void init() {
+        restCircuitBreaker = buildCircuitBreaker(REST_BACKEND);
+        soapCircuitBreaker = buildCircuitBreaker(SOAP_BACKEND);
+        oauthCircuitBreaker = buildCircuitBreaker(OAUTH_BACKEND);
+        readBulkhead = buildBulkhead(READ_BULKHEAD, EpicConstants.DEFAULT_BULKHEAD_READ_MAX_CONCURRENT);
+        writeBulkhead = buildBulkhead(WRITE_BULKHEAD, EpicConstants.DEFAULT_BULKHEAD_WRITE_MAX_CONCURRENT);
+        restPolicies.put(EpicConstants.EPIC_GET_USER_ENDPOINT, readPolicy("viewUser"));
+        restPolicies.put(EpicConstants.EPIC_GET_USER_GROUPS_ENDPOINT, readPolicy("viewUserGroups"));
+        restPolicies.put(EpicConstants.EPIC_CREATE_USER_ENDPOINT, writePolicy("createUser"));
+        restPolicies.put(EpicConstants.EPIC_UPDATE_USER_ENDPOINT, writePolicy("updateUser"));
+        restPolicies.put(EpicConstants.EPIC_SET_USER_PASSWORD_ENDPOINT, writePolicy("setUserPassword"));
+        restPolicies.put(EpicConstants.EPIC_DELETE_USER_ENDPOINT, writePolicy("deleteUser"));
+        restPolicies.put(EpicConstants.EPIC_ACTIVATE_USER_ENDPOINT, writePolicy("activateUser"));
+        restPolicies.put(EpicConstants.EPIC_DEACTIVATE_USER_ENDPOINT, writePolicy("inactivateUser"));
+        restPolicies.put(EpicConstants.EPIC_UPDATE_USER_GROUPS_ENDPOINT, writePolicy("updateUserGroups"));
+        // Every token request signs a fresh single-use assertion, so it gets timeouts but is never re-sent.
+        tokenPolicy = buildPolicy(TOKEN_POLICY, EpicConstants.DEFAULT_POLICY_WRITE_SOCKET_TIMEOUT, false, oauthCircuitBreaker);
+        restPolicies.put(EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT, tokenPolicy);
+        getRecordsPolicy = buildPolicy(GET_RECORDS_POLICY, EpicConstants.DEFAULT_POLICY_SOAP_SOCKET_TIMEOUT, true, soapCircuitBreaker);
+        defaultPolicy = writePolicy(DEFAULT_POLICY);
+        restSingleFlight = buildSingleFlight(REST_BACKEND);
+        soapSingleFlight = buildSingleFlight(SOAP_BACKEND);
+        retryBudget = new EpicRetryBudget(
+                environment.getProperty(EpicConstants.RETRY_BUDGET_RATIO, Double.class, EpicConstants.DEFAULT_RETRY_BUDGET_RATIO),
+                environment.getProperty(EpicConstants.RETRY_BUDGET_MAX, Integer.class, EpicConstants.DEFAULT_RETRY_BUDGET_MAX));
+    }
+
+    /**
+     * Find the policy of the endpoint a REST call is sent to.
+     *
+     * @param url Epic Connection URL, without query parameters.
+     * @return policy The endpoint policy, or the default policy for unknown endpoints
+     */
+    public EpicEndpointPolicy forUrl(String url) {
+        for (Map.Entry<String, EpicEndpointPolicy> entry : restPolicies.entrySet()) {
+            if (url.endsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Keep later reads of both backends from joining the reads in flight, once a write may have changed their results.
+     */
+    public void forgetInFlightReads() {
+        restSingleFlight.forgetInFlight();
+        soapSingleFlight.forgetInFlight();
+    }
+
+    /**
+     * Decide whether a failed attempt is retried, which needs an idempotent endpoint with retries left and room in the retry budget.
+     *
+     * @param policy  Policy of the endpoint.
+     * @param attempt Zero-based number of the attempt that failed.
+     * @param failure Description of the failure for logging.
+     * @return true if the call is sent again
+     */
+    public boolean shouldRetry(EpicEndpointPolicy policy, int attempt, String failure) {
+        if (!policy.canRetry(attempt)) {
+            return false;
+        }
+        if (!retryBudget.tryAcquireRetry()) {
+            logger.warn(MessageFormat.format("Epic {0} call failed with {1}, not retried as the retry budget is spent", policy.getName(), failure));
+            return false;
+        }
+        logger.warn(MessageFormat.format("Epic {0} call failed with {1}, retrying (attempt {2} of {3})", policy.getName(), failure,
+                attempt + 2, policy.getMaxRetries() + 1));
+        return true;
+    }
+
+    /**
+     * Build the policy of a read endpoint, which is retried on transient failures.
+     *
+     * @param name Name of the policy.
+     * @return policy The endpoint policy
+     */
+    private EpicEndpointPolicy readPolicy(String name) {
+        return buildPolicy(name, EpicConstants.DEFAULT_POLICY_READ_SOCKET_TIMEOUT, true, restCircuitBreaker);
+    }
+
+    /**
+     * Build the policy of a write endpoint, which is never retried as Epic may already have applied the change.
+     *
+     * @param name Name of the policy.
+     * @return policy The endpoint policy
+     */
+    private EpicEndpointPolicy writePolicy(String name) {
+        return buildPolicy(name, EpicConstants.DEFAULT_POLICY_WRITE_SOCKET_TIMEOUT, false, restCircuitBreaker);
+    }
+
+    /**
+     * Build a policy from its config parameters.
+     *
+     * @param name                 Name of the policy.
+     * @param defaultSocketTimeout Socket timeout in milliseconds used when none is configured.
+     * @param idempotent           Whether a call can safely be sent again, which also puts it in the read bulkhead.
+     * @param circuitBreaker       Circuit breaker of the backend serving the endpoint.
+     * @return policy The endpoint policy
+     */
+    private EpicEndpointPolicy buildPolicy(String name, int defaultSocketTimeout, boolean idempotent, EpicCircuitBreaker circuitBreaker) {
+        String prefix = EpicConstants.POLICY_PREFIX + name;
+        EpicEndpointPolicy policy = new EpicEndpointPolicy(name,
+                environment.getProperty(prefix + EpicConstants.POLICY_CONNECT_TIMEOUT, Integer.class, EpicConstants.DEFAULT_POLICY_CONNECT_TIMEOUT),
+                environment.getProperty(prefix + EpicConstants.POLICY_SOCKET_TIMEOUT, Integer.class, defaultSocketTimeout),
+                environment.getProperty(prefix + EpicConstants.POLICY_POOL_TIMEOUT, Integer.class, EpicConstants.DEFAULT_POLICY_POOL_TIMEOUT),
+                environment.getProperty(prefix + EpicConstants.POLICY_MAX_RETRIES, Integer.class, EpicConstants.DEFAULT_POLICY_MAX_RETRIES),
+                environment.getProperty(prefix + EpicConstants.POLICY_INITIAL_BACKOFF, Long.class, EpicConstants.DEFAULT_POLICY_INITIAL_BACKOFF),
+                environment.getProperty(prefix + EpicConstants.POLICY_MAX_BACKOFF, Long.class, EpicConstants.DEFAULT_POLICY_MAX_BACKOFF),
+                idempotent,
+                environment.getProperty(EpicConstants.HTTP_KEEP_ALIVE, Integer.class, EpicConstants.DEFAULT_HTTP_KEEP_ALIVE),
+                circuitBreaker,
+                idempotent ? readBulkhead : writeBulkhead,
+                buildRateLimiter(name, prefix));
+        logger.info(MessageFormat.format("Epic endpoint policy {0}: connect timeout {1} ms, socket timeout {2} ms, max retries {3}",
+                name, policy.getConnectTimeout(), policy.getSocketTimeout(), policy.getMaxRetries()));
+        return policy;
+    }
+
+    /**
+     * Build the circuit breaker of a backend from its config parameters and publish its state.
+     *
+     * @param backend Name of the backend.
+     * @return circuitBreaker The circuit breaker
+     */
+    private EpicCircuitBreaker buildCircuitBreaker(String backend) {
+        String prefix = EpicConstants.CIRCUIT_PREFIX + backend;
+        EpicCircuitBreaker circuitBreaker = new EpicCircuitBreaker(backend,
+                environment.getProperty(prefix + EpicConstants.CIRCUIT_FAILURE_THRESHOLD, Integer.class, EpicConstants.DEFAULT_CIRCUIT_FAILURE_THRESHOLD),
+                environment.getProperty(prefix + EpicConstants.CIRCUIT_OPEN_DURATION, Long.class, EpicConstants.DEFAULT_CIRCUIT_OPEN_DURATION),
+                environment.getProperty(prefix + EpicConstants.CIRCUIT_HALF_OPEN_PROBES, Integer.class, EpicConstants.DEFAULT_CIRCUIT_HALF_OPEN_PROBES));
+        Gauge.builder(EpicConstants.METRIC_CIRCUIT_STATE, circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("State of the Epic circuit breaker, 0 closed, 1 open and 2 half open")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    /**
+     * Build a bulkhead from its config parameters and publish its free capacity.
+     *
+     * @param name                 Name of the bulkhead.
+     * @param defaultMaxConcurrent Maximum number of concurrent calls used when none is configured.
+     * @return bulkhead The bulkhead
+     */
+    private EpicBulkhead buildBulkhead(String name, int defaultMaxConcurrent) {
+        String prefix = EpicConstants.BULKHEAD_PREFIX + name;
+        EpicBulkhead bulkhead = new EpicBulkhead(name,
+                environment.getProperty(prefix + EpicConstants.BULKHEAD_MAX_CONCURRENT, Integer.class, defaultMaxConcurrent),
+                environment.getProperty(prefix + EpicConstants.BULKHEAD_MAX_WAIT, Long.class, EpicConstants.DEFAULT_BULKHEAD_MAX_WAIT));
+        Gauge.builder(EpicConstants.METRIC_BULKHEAD_AVAILABLE, bulkhead, EpicBulkhead::availablePermits)
+                .description("Epic calls that can still start without waiting")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        return bulkhead;
+    }
+
+    /**
+     * Build the single-flight group of a backend and publish its calls in flight and shared results.
+     *
+     * @param backend Name of the backend.
+     * @return singleFlight The single-flight group
+     */
+    private EpicSingleFlight buildSingleFlight(String backend) {
+        EpicSingleFlight singleFlight = new EpicSingleFlight(Counter.builder(EpicConstants.METRIC_SINGLE_FLIGHT_SHARED)
+                .description("Epic reads served by an identical call already in flight")
+                .tag("backend", backend)
+                .register(meterRegistry));
+        Gauge.builder(EpicConstants.METRIC_SINGLE_FLIGHT_IN_FLIGHT, singleFlight, EpicSingleFlight::inFlight)
+                .description("Distinct Epic reads in flight")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        return singleFlight;
+    }
+
+    /**
+     * Build the rate limit of an endpoint from its config parameters and publish its queue time and rejections.
+     *
+     * @param name   Name of the policy.
+     * @param prefix Prefix of the config parameters of the policy.
+     * @return rateLimiter The rate limit
+     */
+    private EpicRateLimiter buildRateLimiter(String name, String prefix) {
+        double permitsPerSecond = environment.getProperty(prefix + EpicConstants.POLICY_RATE_LIMIT, Double.class, EpicConstants.DEFAULT_POLICY_RATE_LIMIT);
+        return new EpicRateLimiter(name, permitsPerSecond,
+                environment.getProperty(prefix + EpicConstants.POLICY_RATE_BURST, Integer.class, (int) Math.ceil(permitsPerSecond)),
+                environment.getProperty(prefix + EpicConstants.POLICY_RATE_QUEUE, Integer.class, EpicConstants.DEFAULT_POLICY_RATE_QUEUE),
+                environment.getProperty(prefix + EpicConstants.POLICY_RATE_MAX_WAIT, Long.class, EpicConstants.DEFAULT_POLICY_RATE_MAX_WAIT),
+                Timer.builder(EpicConstants.METRIC_RATE_LIMIT_QUEUE)
+                        .description("Time Epic calls waited on the endpoint rate limit")
+                        .tag("endpoint", name)
+                        .register(meterRegistry),
+                Counter.builder(EpicConstants.METRIC_RATE_LIMIT_REJECTED)
+                        .description("Epic calls rejected by the endpoint rate limit")
+                        .tag("endpoint", name)
+                        .register(meterRegistry));
+    }
+}
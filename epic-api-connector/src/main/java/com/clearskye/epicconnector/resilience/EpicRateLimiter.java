@@ -0,0 +1,155 @@
+package com.clearskye.epicconnector.resilience;
+
+import java.io.InterruptedIOException;
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Token bucket pacing the calls to one Epic endpoint, so bursts are smoothed locally instead of running into the
+ * Epic Interconnect call limits.
+ *
+ * <p>Callers reserve a permit and are told how long to wait for it, so permits are handed out in arrival order
+ * without a lock being held while waiting. Reservations beyond the queue bound or the maximum wait are rejected.</p>
+ */
+public final class EpicRateLimiter {
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * Name of the endpoint, used in error messages.
+     */
+    private final String name;
+    /**
+     * Permits added per second, no limit when not positive.
+     */
+    private final double permitsPerSecond;
+    /**
+     * Maximum number of permits saved up for a burst.
+     */
+    private final double burst;
+    /**
+     * Maximum number of callers waiting for a permit.
+     */
+    private final int maxQueue;
+    /**
+     * Maximum nanoseconds a caller waits for a permit.
+     */
+    private final long maxWait;
+    /**
+     * Timer recording how long callers waited for a permit.
+     */
+    private final Timer queueTimer;
+    /**
+     * Counter of callers rejected because the queue was full.
+     */
+    private final Counter rejectedCounter;
+    /**
+     * Clock of the refills, in nanoseconds.
+     */
+    private final LongSupplier clock;
+    /**
+     * Available permits, negative while callers are waiting on reservations.
+     */
+    private double permits;
+    /**
+     * Time in nanoseconds permits were last added.
+     */
+    private long lastRefill;
+
+    /**
+     * Create a full token bucket.
+     *
+     * @param name             Name of the endpoint.
+     * @param permitsPerSecond Permits added per second, no limit when not positive.
+     * @param burst            Maximum number of permits saved up for a burst.
+     * @param maxQueue         Maximum number of callers waiting for a permit.
+     * @param maxWait          Maximum milliseconds a caller waits for a permit.
+     * @param queueTimer       Timer recording how long callers waited for a permit.
+     * @param rejectedCounter  Counter of callers rejected because the queue was full.
+     */
+    public EpicRateLimiter(String name, double permitsPerSecond, int burst, int maxQueue, long maxWait, Timer queueTimer,
+            Counter rejectedCounter) {
+        this(name, permitsPerSecond, burst, maxQueue, maxWait, queueTimer, rejectedCounter, System::nanoTime);
+    }
+
+    /**
+     * Create a full token bucket reading the time from a clock.
+     *
+     * @param name             Name of the endpoint.
+     * @param permitsPerSecond Permits added per second, no limit when not positive.
+     * @param burst            Maximum number of permits saved up for a burst.
+     * @param maxQueue         Maximum number of callers waiting for a permit.
+     * @param maxWait          Maximum milliseconds a caller waits for a permit.
+     * @param queueTimer       Timer recording how long callers waited for a permit.
+     * @param rejectedCounter  Counter of callers rejected because the queue was full.
+     * @param clock            Clock of the refills, in nanoseconds.
+     */
+    EpicRateLimiter(String name, double permitsPerSecond, int burst, int maxQueue, long maxWait, Timer queueTimer,
+            Counter rejectedCounter, LongSupplier clock) {
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxQueue = maxQueue;
+        this.maxWait = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        this.queueTimer = queueTimer;
+        this.rejectedCounter = rejectedCounter;
+        this.clock = clock;
+        this.permits = this.burst;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Reserve a permit.
+     *
+     * @return wait Nanoseconds the caller must wait before using the permit
+     * @throws EpicUnavailableException When the queue is full or the wait would exceed the maximum.
+     */
+    public long reserve() {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        long wait;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            permits = Math.min(burst, permits + (now - lastRefill) * permitsPerSecond / NANOS_PER_SECOND);
+            lastRefill = now;
+            wait = permits >= 1 ? 0 : (long) Math.ceil((1 - permits) / permitsPerSecond * NANOS_PER_SECOND);
+            if (wait > 0 && (Math.ceil(-permits) >= maxQueue || wait > maxWait)) {
+                wait = -1;
+            } else {
+                permits -= 1;
+            }
+        }
+        if (wait < 0) {
+            rejectedCounter.increment();
+            throw new EpicUnavailableException(MessageFormat.format("Epic {0} rate limit queue is full, call rejected", name));
+        }
+        queueTimer.record(wait, TimeUnit.NANOSECONDS);
+        return wait;
+    }
+
+    /**
+     * Reserve a permit and wait until it can be used.
+     *
+     * @throws EpicUnavailableException When the queue is full or the wait would exceed the maximum.
+     * @throws InterruptedIOException   When the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedIOException {
+        long wait = reserve();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the Epic " + name + " rate limit");
+            }
+        }
+    }
+}
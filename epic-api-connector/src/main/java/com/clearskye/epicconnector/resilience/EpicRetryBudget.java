@@ -0,0 +1,63 @@
+package com.clearskye.epicconnector.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry budget shared by all Epic calls.
+ *
+ * <p>Every call deposits a fraction of a retry and every retry withdraws a whole one, so retries can never
+ * add more than that fraction to the load on Epic, however many callers fail at once.</p>
+ */
+public final class EpicRetryBudget {
+    /**
+     * Scale of the fixed point balance, so fractional deposits need no floating point arithmetic.
+     */
+    private static final long SCALE = 1000;
+    /**
+     * Balance deposited by each call, scaled.
+     */
+    private final long deposit;
+    /**
+     * Maximum balance, scaled.
+     */
+    private final long capacity;
+    /**
+     * Current balance, scaled.
+     */
+    private final AtomicLong balance;
+
+    /**
+     * Create a full retry budget.
+     *
+     * @param ratio      Share of calls that may additionally be spent on retries.
+     * @param maxRetries Maximum number of retries that can be saved up.
+     */
+    public EpicRetryBudget(double ratio, int maxRetries) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = maxRetries * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * Record a call, earning part of a retry.
+     */
+    public void recordCall() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    /**
+     * Withdraw one retry from the budget.
+     *
+     * @return true if the budget allowed the retry
+     */
+    public boolean tryAcquireRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
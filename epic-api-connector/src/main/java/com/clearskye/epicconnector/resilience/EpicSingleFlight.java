@@ -0,0 +1,164 @@
+package com.clearskye.epicconnector.resilience;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import com.clearskye.epicconnector.exception.EpicResponseException;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Coalesces concurrent identical Epic reads into one call.
+ *
+ * <p>The first caller of a key makes the call; callers arriving with the same key while it is in flight wait for it
+ * instead. Nothing is kept once the call completes, so a later caller always makes a fresh call, and after a write
+ * {@link #forgetInFlight()} keeps later callers from joining the calls that started before it.</p>
+ *
+ * <p>Every caller gets a result of its own: when others joined the call, each caller, its maker included, gets a
+ * copy, and the result of the call itself is never handed out. A failure reaches every caller that joined as a
+ * new exception of the same type, caused by the failure of the call.</p>
+ */
+public final class EpicSingleFlight {
+    /**
+     * Counter of the callers served by a call another caller made.
+     */
+    private final Counter sharedCounter;
+    /**
+     * Calls in flight by key.
+     */
+    private final Map<Object, Flight> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * A call in flight.
+     */
+    private static final class Flight {
+        /**
+         * Completed with the result or failure of the call.
+         */
+        private final CompletableFuture<Object> outcome = new CompletableFuture<>();
+        /**
+         * Number of callers that joined the call, -1 once it completed and no caller can join anymore.
+         */
+        private final AtomicInteger followers = new AtomicInteger();
+
+        /**
+         * Join the call unless it already completed.
+         *
+         * @return joined True if the caller joined the call
+         */
+        private boolean join() {
+            int joined;
+            do {
+                joined = followers.get();
+                if (joined < 0) {
+                    return false;
+                }
+            } while (!followers.compareAndSet(joined, joined + 1));
+            return true;
+        }
+
+        /**
+         * Close the call to further callers.
+         *
+         * @return followers Number of callers that joined the call
+         */
+        private int close() {
+            return followers.getAndSet(-1);
+        }
+    }
+
+    /**
+     * Create a single-flight group.
+     *
+     * @param sharedCounter Counter of the callers served by a call another caller made.
+     */
+    public EpicSingleFlight(Counter sharedCounter) {
+        this.sharedCounter = sharedCounter;
+    }
+
+    /**
+     * Make the call, or join the identical call already in flight.
+     *
+     * @param key  Key identifying the call, including everything its result depends on.
+     * @param call The call to make when none is in flight.
+     * @param copy Makes an independent copy of a result, for every caller when several share the call.
+     * @param <V>  Type of the result, which must be the same for every call of a key.
+     * @return result The result of the call, or a copy of it
+     * @throws Exception The failure of the call, or a new exception of the same type caused by it.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(Object key, Callable<V> call, UnaryOperator<V> copy) throws Exception {
+        Flight flight = new Flight();
+        Flight leader;
+        while ((leader = inFlight.putIfAbsent(key, flight)) != null) {
+            if (leader.join()) {
+                sharedCounter.increment();
+                try {
+                    return copy.apply((V) leader.outcome.get());
+                } catch (ExecutionException ex) {
+                    throw followerFailure(ex.getCause());
+                }
+            }
+            inFlight.remove(key, leader);
+        }
+        V result;
+        try {
+            result = call.call();
+        } catch (Exception | Error ex) {
+            inFlight.remove(key, flight);
+            flight.close();
+            flight.outcome.completeExceptionally(ex);
+            throw ex;
+        }
+        inFlight.remove(key, flight);
+        int followers = flight.close();
+        flight.outcome.complete(result);
+        return followers > 0 ? copy.apply(result) : result;
+    }
+
+    /**
+     * Keep later callers from joining the calls in flight, after a write that may have changed their results. The
+     * calls still complete for the callers that already joined them.
+     */
+    public void forgetInFlight() {
+        inFlight.clear();
+    }
+
+    /**
+     * Number of calls in flight.
+     *
+     * @return inFlight Number of calls in flight
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Build the failure thrown to a caller that joined a failed call: a new exception of the same type with the same
+     * message, caused by the failure of the call, or the failure wrapped if its type cannot be built from a message.
+     *
+     * @param failure The failure of the call.
+     * @return failure The exception to throw to the caller
+     */
+    private static Exception followerFailure(Throwable failure) {
+        Exception copy;
+        if (failure instanceof EpicResponseException response) {
+            copy = new EpicResponseException(response.getStatusCode(), response.getBody());
+        } else {
+            try {
+                copy = (Exception) failure.getClass().getConstructor(String.class).newInstance(failure.getMessage());
+            } catch (ReflectiveOperationException | ClassCastException ex) {
+                return failure instanceof RuntimeException
+                        ? new IllegalStateException(failure.getMessage(), failure)
+                        : new ExecutionException(failure.getMessage(), failure);
+            }
+        }
+        copy.initCause(failure);
+        return copy;
+    }
+}
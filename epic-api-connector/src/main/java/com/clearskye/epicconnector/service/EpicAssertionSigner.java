@@ -0,0 +1,125 @@
+package com.clearskye.epicconnector.service;
+
+import java.security.KeyFactory;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.text.MessageFormat;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Signs the client assertion JWT sent to Epic to obtain an access token.
+ *
+ * <p>The private key is decoded and validated once at startup, and the signing cost of every
+ * assertion is recorded in the {@code epic.oauth.assertion.sign} timer.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class EpicAssertionSigner {
+    /**
+     * Logger instance for logging EpicAssertionSigner events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicAssertionSigner.class);
+    /**
+     * Characters a JWT ID is built from.
+     */
+    private static final char[] JTI_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ123456789".toCharArray();
+    /**
+     * Length of each JWT ID segment.
+     */
+    private static final int[] JTI_SEGMENTS = {4, 5, 5, 5, 4};
+    /**
+     * Random source for JWT IDs.
+     */
+    private static final SecureRandom secureRandom = new SecureRandom();
+    /**
+     * Environment to access environment-specific properties.
+     */
+    private final Environment environment;
+    /**
+     * Registry the signing timer is published to.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * RSA signing algorithm built from the configured private key.
+     */
+    private Algorithm algorithm;
+    /**
+     * Epic client id used as issuer and subject.
+     */
+    private String clientId;
+    /**
+     * Epic token endpoint used as audience.
+     */
+    private String audience;
+    /**
+     * Timer recording the cost of each assertion.
+     */
+    private Timer signTimer;
+
+    /**
+     * Load and validate the Epic private key.
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(environment.getProperty(EpicConstants.PRIVATE_KEY)));
+            RSAPrivateKey privateKey = (RSAPrivateKey) KeyFactory.getInstance(EpicConstants.RSA).generatePrivate(keySpec);
+            this.algorithm = Algorithm.RSA256(null, privateKey);
+        } catch (Exception ex) {
+            logger.error(MessageFormat.format("Epic private key is not a valid PKCS8 RSA key, because of error {0} : ", ex.getMessage()));
+            throw new CustomInvalidCredentialException("Epic private key is not a valid PKCS8 RSA key");
+        }
+        this.clientId = environment.getProperty(EpicConstants.CLIENT_ID);
+        this.audience = environment.getProperty(EpicConstants.REST_ENDPOINT) + EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT;
+        this.signTimer = Timer.builder(EpicConstants.METRIC_ASSERTION_SIGN)
+                .description("Time taken to sign an Epic OAuth client assertion")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Generate the signed client assertion.
+     *
+     * @return token JWT Token to be sent to epic to get Access Token
+     */
+    public String sign() {
+        return signTimer.record(() -> JWT.create().withHeader(EpicConstants.EPIC_JWT_HEADER).withIssuer(clientId).withSubject(clientId)
+                .withAudience(audience).withJWTId(generateJwtId())
+                .withExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5))).sign(algorithm));
+    }
+
+    /**
+     * Generate a random JWT ID in the form XXXX-XXXXX-XXXXX-XXXXX-XXXX.
+     *
+     * @return jwtId Alpha numeric random JWT ID
+     */
+    private static String generateJwtId() {
+        StringBuilder jwtId = new StringBuilder(27);
+        for (int segment = 0; segment < JTI_SEGMENTS.length; segment++) {
+            if (segment > 0) {
+                jwtId.append('-');
+            }
+            for (int k = 0; k < JTI_SEGMENTS[segment]; k++) {
+                jwtId.append(JTI_CHARACTERS[secureRandom.nextInt(JTI_CHARACTERS.length)]);
+            }
+        }
+        return jwtId.toString();
+    }
+}
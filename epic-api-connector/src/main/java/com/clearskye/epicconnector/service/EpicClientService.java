@@ -1,55 +1,66 @@
 package com.clearskye.epicconnector.service;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Base64;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.apache.http.Consts;
-import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicHeader;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.clearskye.epicconnector.controller.EpicCommonController;
 import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
+import com.clearskye.epicconnector.resilience.EpicCircuitBreaker;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicy;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicyRegistry;
 import com.clearskye.epicconnector.utils.EpicConstants;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -66,85 +77,321 @@ public class EpicClientService {
      * Cache Service used for managing and interacting with the application's cache.
      */
     private final CacheService cacheService;
+    /**
+     * Signer for the client assertion sent with every token request.
+     */
+    private final EpicAssertionSigner epicAssertionSigner;
+    /**
+     * Registry of the timeout and retry policy of every Epic endpoint.
+     */
+    private final EpicEndpointPolicyRegistry epicEndpointPolicyRegistry;
     /**
      * Logger instance for logging CommonController events.
      */
     private static final Logger logger = LogManager.getLogger(EpicCommonController.class);
     /**
-     * The HTTP client builder.
+     * Pooled connection manager shared by every Epic REST call.
+     */
+    private PoolingHttpClientConnectionManager connectionManager;
+    /**
+     * The long-lived HTTP client backed by the connection pool.
+     */
+    private CloseableHttpClient httpClient;
+    /**
+     * The long-lived non-blocking HTTP client used for asynchronous Epic REST calls.
      */
-    private HttpClientBuilder clientBuilder = null;
+    private CloseableHttpAsyncClient asyncHttpClient;
     /**
      * Object Mapper for the Epic Client service.
      */
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * The current Epic access token, read without locking on every request.
+     */
+    private volatile AccessToken accessToken;
+    /**
+     * The token refresh currently in flight, shared by concurrent callers.
+     */
+    private final AtomicReference<CompletableFuture<String>> inFlightRefresh = new AtomicReference<>();
+    /**
+     * Executor running the token refreshes started by asynchronous calls, off their calling threads.
+     */
+    private ExecutorService tokenExecutor;
+
+    /**
+     * Epic access token and its expiry.
+     *
+     * @param value     The access token.
+     * @param expiresAt Expiry in epoch seconds.
+     */
+    private record AccessToken(String value, long expiresAt) {
+    }
+
+    /**
+     * Build the pooled HTTP client once the service is created.
+     */
+    @PostConstruct
+    public void initHttpClient() {
+        int keepAlive = environment.getProperty(EpicConstants.HTTP_KEEP_ALIVE, Integer.class, EpicConstants.DEFAULT_HTTP_KEEP_ALIVE);
+        connectionManager = new PoolingHttpClientConnectionManager(environment.getProperty(EpicConstants.HTTP_CONNECTION_TTL,
+                Integer.class, EpicConstants.DEFAULT_HTTP_CONNECTION_TTL), TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(environment.getProperty(EpicConstants.HTTP_POOL_MAX_TOTAL, Integer.class, EpicConstants.DEFAULT_HTTP_POOL_MAX_TOTAL));
+        connectionManager.setDefaultMaxPerRoute(environment.getProperty(EpicConstants.HTTP_POOL_MAX_PER_ROUTE, Integer.class, EpicConstants.DEFAULT_HTTP_POOL_MAX_PER_ROUTE));
+        connectionManager.setValidateAfterInactivity(EpicConstants.HTTP_VALIDATE_AFTER_INACTIVITY);
+        EpicEndpointPolicy defaultPolicy = epicEndpointPolicyRegistry.getDefaultPolicy();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : TimeUnit.SECONDS.toMillis(keepAlive);
+        };
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(defaultPolicy.getRequestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .addInterceptorLast(this::addAuthorizationHeader)
+                .evictExpiredConnections()
+                .evictIdleConnections(environment.getProperty(EpicConstants.HTTP_IDLE_EVICTION, Integer.class,
+                        EpicConstants.DEFAULT_HTTP_IDLE_EVICTION), TimeUnit.SECONDS)
+                .build();
+        PoolingAsyncClientConnectionManager asyncConnectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(connectionManager.getMaxTotal())
+                .setMaxConnPerRoute(connectionManager.getDefaultMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(defaultPolicy.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(defaultPolicy.getSocketTimeout()))
+                        .setTimeToLive(TimeValue.ofSeconds(environment.getProperty(EpicConstants.HTTP_CONNECTION_TTL,
+                                Integer.class, EpicConstants.DEFAULT_HTTP_CONNECTION_TTL)))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(EpicConstants.HTTP_VALIDATE_AFTER_INACTIVITY))
+                        .build())
+                .build();
+        asyncHttpClient = HttpAsyncClients.custom()
+                .setConnectionManager(asyncConnectionManager)
+                .setDefaultRequestConfig(defaultPolicy.getAsyncRequestConfig())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(environment.getProperty(EpicConstants.HTTP_IDLE_EVICTION, Integer.class,
+                        EpicConstants.DEFAULT_HTTP_IDLE_EVICTION)))
+                .build();
+        asyncHttpClient.start();
+        tokenExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("epic-token-refresh-%d").setDaemon(true).build());
+        logger.info(MessageFormat.format("Epic REST connection pool initialised with max total {0} and max per route {1}",
+                connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute()));
+    }
+
+    /**
+     * Close the pooled HTTP client on shutdown.
+     */
+    @PreDestroy
+    public void closeHttpClient() {
+        if (tokenExecutor != null) {
+            tokenExecutor.shutdownNow();
+        }
+        try {
+            if (httpClient != null) {
+                httpClient.close();
+            }
+            if (asyncHttpClient != null) {
+                asyncHttpClient.close(CloseMode.GRACEFUL);
+            }
+        } catch (IOException ex) {
+            logger.error(MessageFormat.format("Epic REST connection pool close failed :  {0}", ex.getMessage()));
+        }
+    }
 
     /**
      * Retrieve the HTTP Client.
      *
-     * @return httpClient Closable HTTP Client of Connector
-     * @throws Exception Exception during authentication
-     */
-    public CloseableHttpClient getHttpClientInstance() throws Exception {
-        this.clientBuilder = HttpClients.custom();
-        RequestConfig.Builder requestConfig = RequestConfig.custom().setConnectTimeout(EpicConstants.DEFAULT_MAX_TIMEOUT * 1000).setSocketTimeout(EpicConstants.DEFAULT_MAX_TIMEOUT * 1000).setConnectionRequestTimeout(EpicConstants.DEFAULT_MAX_TIMEOUT * 1000);
-        clientBuilder.setDefaultRequestConfig(requestConfig.build());
-        obtainAccessToken();
-        List<Header> headers = new ArrayList<Header>();
-        headers.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, EpicConstants.APPLICATION_JSON));
-        headers.add(new BasicHeader(HttpHeaders.AUTHORIZATION, EpicConstants.TOKEN_TYPE + cacheService.verifyTokenAndGetDataFromCache(EpicConstants.ACCESS_TOKEN)));
-
-        clientBuilder.setDefaultHeaders(headers);
-        return clientBuilder.build();
+     * @return httpClient Closable HTTP Client of Connector, shared by all callers and must not be closed by them
+     */
+    public CloseableHttpClient getHttpClientInstance() {
+        return httpClient;
+    }
+
+    /**
+     * Retrieve the asynchronous HTTP Client.
+     *
+     * @return asyncHttpClient Started non-blocking HTTP Client of Connector, shared by all callers and must not be closed by them
+     */
+    public CloseableHttpAsyncClient getAsyncHttpClientInstance() {
+        return asyncHttpClient;
+    }
+
+    /**
+     * Retrieve the Authorization header value for Epic REST calls, obtaining a new access token if needed.
+     *
+     * @return The bearer Authorization header value.
+     * @throws Exception Exception during obtain access token.
+     */
+    public String getAuthorizationHeaderValue() throws Exception {
+        return EpicConstants.TOKEN_TYPE + obtainAccessToken();
+    }
+
+    /**
+     * Retrieve the Authorization header value for asynchronous Epic REST calls without blocking the calling thread.
+     *
+     * <p>A valid token completes the future at once. Otherwise the future follows the refresh in flight, or a
+     * refresh started on the token executor.</p>
+     *
+     * @return future completed with the bearer Authorization header value, or exceptionally if no token was obtained
+     */
+    public CompletableFuture<String> getAuthorizationHeaderValueAsync() {
+        AccessToken token = accessToken;
+        if (token != null && token.expiresAt() > System.currentTimeMillis() / 1000) {
+            return CompletableFuture.completedFuture(EpicConstants.TOKEN_TYPE + token.value());
+        }
+        CompletableFuture<String> inFlight = inFlightRefresh.get();
+        CompletableFuture<String> refresh = inFlight != null ? inFlight : CompletableFuture.supplyAsync(() -> {
+            try {
+                return refreshAccessToken(0);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, tokenExecutor);
+        return refresh.thenApply(value -> EpicConstants.TOKEN_TYPE + value);
+    }
+
+    /**
+     * Add the Epic bearer token to an outgoing request.
+     *
+     * @param request The request about to be sent.
+     * @param context The execution context of the request.
+     * @throws IOException Exception during obtain access token.
+     */
+    private void addAuthorizationHeader(HttpRequest request, HttpContext context) throws IOException {
+        if (context.getAttribute(EpicConstants.SKIP_AUTHORIZATION) != null) {
+            return;
+        }
+        try {
+            request.setHeader(HttpHeaders.AUTHORIZATION, getAuthorizationHeaderValue());
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
     }
 
     /**
      * Retrieve the Access Token.
      *
+     * <p>Returns the current token while it is valid. Once it has expired, concurrent callers share a
+     * single in-flight refresh instead of each requesting their own token.</p>
+     *
+     * @return accessToken Valid Epic access token.
      * @throws Exception Exception during obtain access token.
      */
-    public void obtainAccessToken() throws Exception {
+    public String obtainAccessToken() throws Exception {
+        AccessToken token = accessToken;
+        if (token != null && token.expiresAt() > System.currentTimeMillis() / 1000) {
+            return token.value();
+        }
+        return refreshAccessToken(0);
+    }
+
+    /**
+     * Renew the Access Token ahead of its expiry, so user-facing requests never wait on token acquisition.
+     */
+    @Scheduled(initialDelayString = "${epic.token.refreshCheckInterval:30000}", fixedDelayString = "${epic.token.refreshCheckInterval:30000}")
+    public void refreshAccessTokenAhead() {
+        long refreshAhead = environment.getProperty(EpicConstants.TOKEN_REFRESH_AHEAD, Long.class, EpicConstants.DEFAULT_TOKEN_REFRESH_AHEAD);
+        AccessToken token = accessToken;
+        if (token == null || token.expiresAt() - refreshAhead > System.currentTimeMillis() / 1000) {
+            return;
+        }
+        try {
+            refreshAccessToken(refreshAhead);
+        } catch (Exception ex) {
+            logger.error(MessageFormat.format("Background refresh of epic access token failed, because of error {0} : ", ex.getMessage()));
+        }
+    }
+
+    /**
+     * Refresh the Access Token, joining the refresh already in flight if there is one.
+     *
+     * @param minValidity Seconds the current token must still be valid for to be reused.
+     * @return accessToken Valid Epic access token.
+     * @throws Exception Exception during obtain access token.
+     */
+    private String refreshAccessToken(long minValidity) throws Exception {
+        CompletableFuture<String> refresh = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = inFlightRefresh.compareAndExchange(null, refresh);
+        if (inFlight != null) {
+            try {
+                return inFlight.get();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        try {
+            AccessToken token = accessToken;
+            if (token == null || token.expiresAt() - minValidity <= System.currentTimeMillis() / 1000) {
+                token = requestAccessToken();
+                accessToken = token;
+            }
+            refresh.complete(token.value());
+            return token.value();
+        } catch (Exception ex) {
+            refresh.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightRefresh.set(null);
+        }
+    }
+
+    /**
+     * Request a new Access Token from Epic.
+     *
+     * @return accessToken The new access token and its expiry.
+     * @throws Exception Exception during obtain access token.
+     */
+    private AccessToken requestAccessToken() throws Exception {
         Map<String, Object> responseMap = new HashMap<String, Object>();
         HttpRequestBase httpRequest = null;
         CloseableHttpResponse response = null;
-        CloseableHttpClient client = null;
         try {
-            if ((cacheService.verifyTokenAndGetDataFromCache(EpicConstants.ACCESS_TOKEN) == null || cacheService.verifyTokenAndGetDataFromCache(EpicConstants.EXPIRES_IN) == null) || (Long.valueOf(cacheService.verifyTokenAndGetDataFromCache(EpicConstants.EXPIRES_IN)).compareTo(System.currentTimeMillis() / 1000) < 0)) {
-                logger.info("Generating new epic Access Token...");
-                Long currentTime = System.currentTimeMillis() / 1000;
-                List<Header> headers = new ArrayList<Header>();
-                headers.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, EpicConstants.APPLICATION_FORM_URL_ENCODED));
-                headers.add(new BasicHeader(HttpHeaders.ACCEPT, EpicConstants.APPLICATION_JSON));
-                HttpClientBuilder clientBuilder = HttpClients.custom();
-                clientBuilder.setDefaultHeaders(headers);
-                client = clientBuilder.build();
-                List<NameValuePair> form = new ArrayList<>();
-                form.add(new BasicNameValuePair(EpicConstants.GRANT_TYPE, EpicConstants.CLIENT_CREDENTIALS));
-                form.add(new BasicNameValuePair(EpicConstants.CLIENT_ASSERTION_TYPE, EpicConstants.JWT_URN));
-                form.add(new BasicNameValuePair(EpicConstants.CLIENT_ASSERTION, generateSignedJwtToken(environment.getProperty(EpicConstants.CLIENT_ID), environment.getProperty(EpicConstants.PRIVATE_KEY))));
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(form, Consts.UTF_8);
-                httpRequest = new HttpPost(environment.getProperty(EpicConstants.REST_ENDPOINT) + EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT);
-                ((HttpPost) httpRequest).setEntity(entity);
-                response = client.execute(httpRequest);
-                int responseCode = response.getStatusLine().getStatusCode();
-                if (responseCode != HttpStatus.SC_OK) {
-                    logger.error(MessageFormat.format("Unable to obtain access token from Epic - Bad Request: {0}", EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8)));
-                    throw new CustomInvalidCredentialException("Unable to obtain access token from Epic  " + EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
-                }
-                if (response.getEntity() != null) {
-                    String responses = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-                    responseMap = objectMapper.readValue(responses, new TypeReference<Map<String, Object>>() {
-                    });
-                    if (responseMap.get(EpicConstants.ACCESS_TOKEN) != null) {
-                        cacheService.saveTokenToCache(EpicConstants.ACCESS_TOKEN, responseMap.get(EpicConstants.ACCESS_TOKEN).toString());
-                        cacheService.saveTokenToCache(EpicConstants.EXPIRES_IN, String.valueOf(currentTime + Long.parseLong(responseMap.get(EpicConstants.EXPIRES_IN).toString())));
-                        logger.info("Obtain access token from epic success");
-                    } else {
-                        logger.error(MessageFormat.format("Unable to obtain access token from Epic - Bad Request: {0}", EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8)));
-                        throw new CustomInvalidCredentialException("Unable to obtain access token from Epic  " + EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
-                    }
-                }
+            logger.info("Generating new epic Access Token...");
+            Long currentTime = System.currentTimeMillis() / 1000;
+            List<NameValuePair> form = new ArrayList<>();
+            form.add(new BasicNameValuePair(EpicConstants.GRANT_TYPE, EpicConstants.CLIENT_CREDENTIALS));
+            form.add(new BasicNameValuePair(EpicConstants.CLIENT_ASSERTION_TYPE, EpicConstants.JWT_URN));
+            form.add(new BasicNameValuePair(EpicConstants.CLIENT_ASSERTION, epicAssertionSigner.sign()));
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(form, Consts.UTF_8);
+            httpRequest = new HttpPost(environment.getProperty(EpicConstants.REST_ENDPOINT) + EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT);
+            httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, EpicConstants.APPLICATION_FORM_URL_ENCODED);
+            httpRequest.setHeader(HttpHeaders.ACCEPT, EpicConstants.APPLICATION_JSON);
+            ((HttpPost) httpRequest).setEntity(entity);
+            httpRequest.setConfig(epicEndpointPolicyRegistry.getTokenPolicy().getRequestConfig());
+            HttpClientContext context = HttpClientContext.create();
+            context.setAttribute(EpicConstants.SKIP_AUTHORIZATION, Boolean.TRUE);
+            EpicCircuitBreaker circuitBreaker = epicEndpointPolicyRegistry.getTokenPolicy().getCircuitBreaker();
+            circuitBreaker.acquirePermission();
+            try {
+                response = httpClient.execute(httpRequest, context);
+            } catch (IOException ex) {
+                circuitBreaker.onFailure();
+                throw ex;
+            }
+            int responseCode = response.getStatusLine().getStatusCode();
+            circuitBreaker.onResult(responseCode);
+            String responses = response.getEntity() != null ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : null;
+            if (responseCode != HttpStatus.SC_OK) {
+                logger.error(MessageFormat.format("Unable to obtain access token from Epic - Bad Request: {0}", responses));
+                throw new CustomInvalidCredentialException("Unable to obtain access token from Epic  " + responses);
             }
+            if (responses != null) {
+                responseMap = objectMapper.readValue(responses, new TypeReference<Map<String, Object>>() {
+                });
+            }
+            if (responseMap.get(EpicConstants.ACCESS_TOKEN) == null) {
+                logger.error(MessageFormat.format("Unable to obtain access token from Epic - Bad Request: {0}", responses));
+                throw new CustomInvalidCredentialException("Unable to obtain access token from Epic  " + responses);
+            }
+            AccessToken token = new AccessToken(responseMap.get(EpicConstants.ACCESS_TOKEN).toString(),
+                    currentTime + Long.parseLong(responseMap.get(EpicConstants.EXPIRES_IN).toString()));
+            cacheService.saveTokenToCache(EpicConstants.ACCESS_TOKEN, token.value());
+            cacheService.saveTokenToCache(EpicConstants.EXPIRES_IN, String.valueOf(token.expiresAt()));
+            logger.info("Obtain access token from epic success");
+            return token;
         } finally {
             if (httpRequest != null) {
                 httpRequest.releaseConnection();
@@ -158,59 +405,4 @@ public class EpicClientService {
             }
         }
     }
-
-    /**
-     * Generate the JWT token.
-     *
-     * @param clientId   Epic ClientId required to generate Jwt token to get
-     *                   access token from Epic
-     * @param privateKey GuardedString needed to generate private key from
-     *                   PKCS8EncodedKeySpec
-     * @return token JWT Token to be sent to epic to get Access Token
-     * @throws Exception Exception during authentication
-     */
-    public String generateSignedJwtToken(String clientId, String privateKey) throws Exception {
-        Algorithm algorithm = Algorithm.RSA256(null, (RSAPrivateKey) getPrivateKey(privateKey));
-        return JWT.create().withHeader(EpicConstants.EPIC_JWT_HEADER).withIssuer(clientId).withSubject(clientId).withAudience(environment.getProperty(EpicConstants.REST_ENDPOINT) + EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT).withJWTId(MessageFormat.format(EpicConstants.FORMAT, getRandomString(4), getRandomString(5), getRandomString(5), getRandomString(5), getRandomString(4))).withExpiresAt(new Date((System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5)))).sign(algorithm);
-    }
-
-    /**
-     * Retrieve the Private Key.
-     *
-     * @param privateKey GuardedString needed to generate private key from
-     *                   PKCS8EncodedKeySpec
-     * @return privKey Private Key used to sign the JWT Token
-     * @throws NoSuchAlgorithmException No Algorithm Exception while generating
-     *                                  Private Key
-     * @throws InvalidKeySpecException  Invalid Key Spec Exception while generating
-     *                                  Private Key
-     * @throws IOException              IO Exception while generating Private Key
-     */
-    private static PrivateKey getPrivateKey(String privateKey) throws NoSuchAlgorithmException, InvalidKeySpecException, IOException {
-        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey));
-        KeyFactory kf = KeyFactory.getInstance(EpicConstants.RSA);
-        return kf.generatePrivate(keySpec);
-    }
-
-    /**
-     * Generate the Random String.
-     *
-     * @param length Number of characters to be present in the result
-     * @return response Alpha numeric random string with the length specified
-     * @throws Exception Exception sent by random generator
-     */
-    public static String getRandomString(int length) throws Exception {
-        byte[] array = new byte[256];
-        new Random().nextBytes(array);
-        String randomString = new String(array, Charset.forName(EpicConstants.UTF));
-        StringBuffer response = new StringBuffer();
-        for (int k = 0; k < randomString.length(); k++) {
-            char ch = randomString.charAt(k);
-            if (((ch >= 'A' && ch <= 'Z') || (ch >= '1' && ch <= '9')) && (length > 0)) {
-                response.append(ch);
-                length--;
-            }
-        }
-        return response.toString();
-    }
-}
\ No newline at end of file
+}
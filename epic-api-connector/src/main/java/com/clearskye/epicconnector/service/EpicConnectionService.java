@@ -1,11 +1,23 @@
 package com.clearskye.epicconnector.service;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.UnaryOperator;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -13,13 +25,15 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.clearskye.epicconnector.exception.EpicResponseException;
+import com.clearskye.epicconnector.resilience.EpicCircuitBreaker;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicy;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicyRegistry;
 import com.clearskye.epicconnector.utils.EpicConstants;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -37,18 +51,42 @@ public class EpicConnectionService {
      */
     private final EpicClientService epicClientService;
     /**
-     * Object Mapper for the Epic Connection service.
+     * Registry of the timeout and retry policy of every Epic endpoint.
      */
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final EpicEndpointPolicyRegistry epicEndpointPolicyRegistry;
     /**
-     * CloseableHttpClient for Epic Connection.
+     * Object Mapper for the Epic Connection service.
      */
-    private CloseableHttpClient client;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
     /**
      * Logger instance for logging CommonController events.
      */
     private static final Logger logger = LogManager.getLogger(EpicConnectionService.class);
 
+    /**
+     * Type of a decoded JSON response.
+     */
+    private static final TypeReference<Map<String, Object>> RESPONSE_MAP_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    /**
+     * Reads the status and body stream of an Epic response.
+     *
+     * @param <R> Type produced from the response.
+     */
+    @FunctionalInterface
+    private interface ResponseReader<R> {
+        /**
+         * Read the response.
+         *
+         * @param responseCode HTTP status code.
+         * @param content      Response body stream, may be null.
+         * @return result Value decoded from the response
+         * @throws IOException Exception during decoding.
+         */
+        R read(int responseCode, InputStream content) throws IOException;
+    }
+
     /**
      * Enum for Epic Connection operation types.
      */
@@ -98,56 +136,334 @@ public class EpicConnectionService {
      */
     public ResponseEntity<Map<String, Object>> executeRequest(String url, HttpOperationType operationType,
             Map<String, Object> paramRequestMap, Map<String, Object> bodyRequestMap) throws Exception {
-        Map<String, Object> responseMap = new HashMap<String, Object>();
-        int responseCode;
-        HttpRequestBase httpRequest = null;
-        CloseableHttpResponse response = null;
-        if (paramRequestMap != null) {
-            url += getDataInParams(paramRequestMap);
+        return execute(url, operationType, paramRequestMap, bodyRequestMap, RESPONSE_MAP_TYPE,
+                (responseCode, content) -> ResponseEntity.status(responseCode).body(readResponseMap(content)),
+                response -> ResponseEntity.status(response.getStatusCode())
+                        .body(response.getBody() == null ? null : objectMapper.convertValue(response.getBody(), RESPONSE_MAP_TYPE)));
+    }
+
+    /**
+     * Execute the Request for Epic operations and decode a successful response straight into the given type.
+     *
+     * @param url             Epic Connection URL.
+     * @param operationType   HTTP Method type like POST, PUT, GET.
+     * @param paramRequestMap RequestPayload to be included along with URL.
+     * @param bodyRequestMap  RequestPayload to be sent in the connection body
+     * @param responseType    Type the JSON response is decoded into.
+     * @param <T>             Type of the response body.
+     * @return response The status and the decoded response sent by Epic
+     * @throws EpicResponseException When Epic answers with an error status.
+     * @throws Exception             Exception during api request.
+     */
+    public <T> ResponseEntity<T> executeRequest(String url, HttpOperationType operationType, Map<String, Object> paramRequestMap,
+            Map<String, Object> bodyRequestMap, Class<T> responseType) throws Exception {
+        return execute(url, operationType, paramRequestMap, bodyRequestMap, responseType, (responseCode, content) -> {
+            if (responseCode >= HttpStatus.SC_MULTIPLE_CHOICES) {
+                throw new EpicResponseException(responseCode, readResponseMap(content));
+            }
+            return ResponseEntity.status(responseCode).body(content == null ? null : objectMapper.readValue(content, responseType));
+        }, response -> ResponseEntity.status(response.getStatusCode())
+                .body(response.getBody() == null ? null : objectMapper.convertValue(response.getBody(), responseType)));
+    }
+
+    /**
+     * Send the Request to Epic and hand the response stream to the given reader. Identical concurrent calls to an
+     * idempotent endpoint share one call, each getting its own copy of the result; a call to any other endpoint may
+     * write, so later reads do not join the reads in flight once it completed.
+     *
+     * @param url             Epic Connection URL.
+     * @param operationType   HTTP Method type like POST, PUT, GET.
+     * @param paramRequestMap RequestPayload to be included along with URL.
+     * @param bodyRequestMap  RequestPayload to be sent in the connection body
+     * @param resultType      Type the reader produces, telling apart the results of identical requests.
+     * @param responseReader  Reader decoding the response stream.
+     * @param copy            Makes an independent copy of a result read, for the callers sharing a call.
+     * @param <R>             Type returned by the reader.
+     * @return result The value produced by the reader
+     * @throws Exception Exception during api request.
+     */
+    private <R> R execute(String url, HttpOperationType operationType, Map<String, Object> paramRequestMap,
+            Map<String, Object> bodyRequestMap, Object resultType, ResponseReader<R> responseReader, UnaryOperator<R> copy) throws Exception {
+        EpicEndpointPolicy policy = epicEndpointPolicyRegistry.forUrl(url);
+        String requestUrl = paramRequestMap != null ? url + getDataInParams(paramRequestMap) : url;
+        String body = operationType != HttpOperationType.GET && !bodyRequestMap.isEmpty()
+                ? objectMapper.writeValueAsString(bodyRequestMap) : null;
+        if (!policy.isIdempotent()) {
+            try {
+                return executeInBulkhead(requestUrl, operationType, body, policy, responseReader);
+            } finally {
+                epicEndpointPolicyRegistry.forgetInFlightReads();
+            }
         }
+        return epicEndpointPolicyRegistry.getRestSingleFlight().execute(
+                List.of(operationType, requestUrl, Objects.toString(body, EpicConstants.EMPTY_STRING), resultType),
+                () -> executeInBulkhead(requestUrl, operationType, body, policy, responseReader), copy);
+    }
+
+    /**
+     * Send the Request to Epic within the bulkhead of its endpoint.
+     *
+     * @param url            Epic Connection URL including URL parameters.
+     * @param operationType  HTTP Method type like POST, PUT, GET.
+     * @param body           JSON body to be sent, may be null.
+     * @param policy         Policy of the endpoint.
+     * @param responseReader Reader decoding the response stream.
+     * @param <R>            Type returned by the reader.
+     * @return result The value produced by the reader
+     * @throws Exception Exception during api request.
+     */
+    private <R> R executeInBulkhead(String url, HttpOperationType operationType, String body, EpicEndpointPolicy policy,
+            ResponseReader<R> responseReader) throws Exception {
+        epicEndpointPolicyRegistry.getRetryBudget().recordCall();
+        policy.getBulkhead().acquire();
         try {
-            switch (operationType) {
-            case GET:
-                httpRequest = new HttpGet(url);
-                break;
-            case POST:
-                httpRequest = new HttpPost(url);
-                if (!bodyRequestMap.isEmpty()) {
-                    ((HttpPost) httpRequest).setEntity(new StringEntity(objectMapper
-                            .writeValueAsString(bodyRequestMap)));
+            return executeWithRetries(url, operationType, body, policy, responseReader);
+        } finally {
+            policy.getBulkhead().release();
+        }
+    }
+
+    /**
+     * Send the Request to Epic through the circuit breaker of its backend, retrying transient failures as the endpoint policy allows.
+     *
+     * @param url            Epic Connection URL including URL parameters.
+     * @param operationType  HTTP Method type like POST, PUT, GET.
+     * @param body           JSON body to be sent, may be null.
+     * @param policy         Policy of the endpoint.
+     * @param responseReader Reader decoding the response stream.
+     * @param <R>            Type returned by the reader.
+     * @return result The value produced by the reader
+     * @throws Exception Exception during api request.
+     */
+    private <R> R executeWithRetries(String url, HttpOperationType operationType, String body, EpicEndpointPolicy policy,
+            ResponseReader<R> responseReader) throws Exception {
+        EpicCircuitBreaker circuitBreaker = policy.getCircuitBreaker();
+        for (int attempt = 0; ; attempt++) {
+            HttpRequestBase httpRequest = null;
+            CloseableHttpResponse response = null;
+            try {
+                switch (operationType) {
+                case GET:
+                    httpRequest = new HttpGet(url);
+                    break;
+                case POST:
+                    httpRequest = new HttpPost(url);
+                    if (body != null) {
+                        ((HttpPost) httpRequest).setEntity(new StringEntity(body));
+                    }
+                    break;
+                case PUT:
+                    httpRequest = new HttpPut(url);
+                    if (body != null) {
+                        ((HttpPut) httpRequest).setEntity(new StringEntity(body));
+                    }
+                    break;
                 }
-                break;
-            case PUT:
-                httpRequest = new HttpPut(url);
-                if (!bodyRequestMap.isEmpty()) {
-                    ((HttpPut) httpRequest).setEntity(new StringEntity(objectMapper
-                            .writeValueAsString(bodyRequestMap)));
+                httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, EpicConstants.APPLICATION_JSON);
+                httpRequest.setConfig(policy.getRequestConfig());
+                policy.getRateLimiter().acquire();
+                circuitBreaker.acquirePermission();
+                try {
+                    response = epicClientService.getHttpClientInstance().execute(httpRequest);
+                } catch (IOException ex) {
+                    circuitBreaker.onFailure();
+                    throw ex;
+                }
+                int responseCode = response.getStatusLine().getStatusCode();
+                circuitBreaker.onResult(responseCode);
+                if (!EpicEndpointPolicy.isRetryableStatus(responseCode) || !epicEndpointPolicyRegistry.shouldRetry(policy, attempt,
+                        MessageFormat.format("status {0}", responseCode))) {
+                    HttpEntity entity = response.getEntity();
+                    try (InputStream content = entity != null ? entity.getContent() : null) {
+                        return responseReader.read(responseCode, content);
+                    }
+                }
+            } catch (IOException ex) {
+                if (!epicEndpointPolicyRegistry.shouldRetry(policy, attempt, ex.toString())) {
+                    throw ex;
+                }
+            } finally {
+                if (httpRequest != null) {
+                    httpRequest.releaseConnection();
+                }
+                if (response != null) {
+                    try {
+                        response.close();
+                    } catch (IOException ex) {
+                        logger.error(MessageFormat.format("Epic REST API connection close failed :  {0}", ex.getMessage()));
+                    }
                 }
-                break;
             }
-            client = epicClientService.getHttpClientInstance();
-            response = client.execute(httpRequest);
-            String responses = EntityUtils.toString(response.getEntity(),
-                    StandardCharsets.UTF_8);
-            responseCode = response.getStatusLine().getStatusCode();
-            if (responseCode >= HttpStatus.SC_MULTIPLE_CHOICES) {
-                return ResponseEntity.status(responseCode).body(objectMapper.readValue(responses, new TypeReference<Map<String, Object>>() {
-                }));
+            policy.backOff(attempt);
+        }
+    }
+
+    /**
+     * Decode a JSON response stream into a map without buffering it as a String.
+     *
+     * @param content Response stream, may be null.
+     * @return responseMap Map containing the JSON response sent by Epic
+     * @throws IOException Exception during decoding.
+     */
+    private static Map<String, Object> readResponseMap(InputStream content) throws IOException {
+        if (content == null) {
+            return new HashMap<>();
+        }
+        return objectMapper.readValue(content, RESPONSE_MAP_TYPE);
+    }
+
+    /**
+     * Execute the Request for Epic operations without blocking the calling thread.
+     *
+     * @param url             Epic Connection URL.
+     * @param operationType   HTTP Method type like POST, PUT, GET.
+     * @param paramRequestMap RequestPayload to be included along with URL.
+     * @param bodyRequestMap  RequestPayload to be sent in the connection body
+     * @return future completed with the status and JSON response sent by Epic, or exceptionally if the call failed
+     */
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> executeRequestAsync(String url, HttpOperationType operationType,
+            Map<String, Object> paramRequestMap, Map<String, Object> bodyRequestMap) {
+        CompletableFuture<ResponseEntity<Map<String, Object>>> future = new CompletableFuture<>();
+        try {
+            EpicEndpointPolicy policy = epicEndpointPolicyRegistry.forUrl(url);
+            epicEndpointPolicyRegistry.getRetryBudget().recordCall();
+            if (paramRequestMap != null) {
+                url += getDataInParams(paramRequestMap);
             }
-            responseMap = objectMapper.readValue(responses, new TypeReference<Map<String, Object>>() {
-            });
-        } finally {
-            if (httpRequest != null) {
-                httpRequest.releaseConnection();
+            SimpleRequestBuilder requestBuilder = switch (operationType) {
+                case GET -> SimpleRequestBuilder.get(url);
+                case POST -> SimpleRequestBuilder.post(url);
+                case PUT -> SimpleRequestBuilder.put(url);
+            };
+            if (operationType != HttpOperationType.GET && bodyRequestMap != null && !bodyRequestMap.isEmpty()) {
+                requestBuilder.setBody(objectMapper.writeValueAsString(bodyRequestMap), ContentType.APPLICATION_JSON);
             }
-            if (response != null) {
-                try {
-                    response.close();
-                } catch (IOException ex) {
-                    logger.error(MessageFormat.format("Epic REST API connection close failed :  {0}", ex.getMessage()));
+            requestBuilder.setHeader(HttpHeaders.CONTENT_TYPE, EpicConstants.APPLICATION_JSON);
+            requestBuilder.setRequestConfig(policy.getAsyncRequestConfig());
+            policy.getBulkhead().tryAcquire();
+            future.whenComplete((response, ex) -> {
+                policy.getBulkhead().release();
+                if (!policy.isIdempotent()) {
+                    epicEndpointPolicyRegistry.forgetInFlightReads();
                 }
+            });
+            pacedSendAsync(requestBuilder, policy, 0, future);
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Send one attempt of an asynchronous call once the access token is available, without waiting for a token
+     * refresh on the calling thread.
+     *
+     * @param requestBuilder Builder of the request, producing a fresh request for every attempt.
+     * @param policy         Policy of the endpoint.
+     * @param attempt        Zero-based number of the attempt.
+     * @param future         Future completed with the outcome of the call.
+     */
+    private void sendAsync(SimpleRequestBuilder requestBuilder, EpicEndpointPolicy policy, int attempt,
+            CompletableFuture<ResponseEntity<Map<String, Object>>> future) {
+        epicClientService.getAuthorizationHeaderValueAsync().whenComplete((authorization, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                return;
             }
+            requestBuilder.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+            send(requestBuilder, policy, attempt, future);
+        });
+    }
+
+    /**
+     * Send one attempt of an asynchronous call through the circuit breaker of its backend, scheduling the next attempt after a backoff if it fails transiently.
+     *
+     * @param requestBuilder Builder of the request, with its Authorization header set.
+     * @param policy         Policy of the endpoint.
+     * @param attempt        Zero-based number of the attempt.
+     * @param future         Future completed with the outcome of the call.
+     */
+    private void send(SimpleRequestBuilder requestBuilder, EpicEndpointPolicy policy, int attempt,
+            CompletableFuture<ResponseEntity<Map<String, Object>>> future) {
+        EpicCircuitBreaker circuitBreaker = policy.getCircuitBreaker();
+        try {
+            circuitBreaker.acquirePermission();
+            epicClientService.getAsyncHttpClientInstance().execute(requestBuilder.build(), new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    circuitBreaker.onResult(response.getCode());
+                    if (EpicEndpointPolicy.isRetryableStatus(response.getCode()) && epicEndpointPolicyRegistry.shouldRetry(policy, attempt,
+                            MessageFormat.format("status {0}", response.getCode()))) {
+                        retryAsync(requestBuilder, policy, attempt, future);
+                        return;
+                    }
+                    try {
+                        Map<String, Object> responseMap = response.getBodyBytes() == null ? new HashMap<>()
+                                : objectMapper.readValue(response.getBodyBytes(), RESPONSE_MAP_TYPE);
+                        future.complete(ResponseEntity.status(response.getCode()).body(responseMap));
+                    } catch (IOException ex) {
+                        future.completeExceptionally(ex);
+                    }
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    circuitBreaker.onFailure();
+                    if (ex instanceof IOException && epicEndpointPolicyRegistry.shouldRetry(policy, attempt, ex.toString())) {
+                        retryAsync(requestBuilder, policy, attempt, future);
+                        return;
+                    }
+                    logger.error(MessageFormat.format("Epic REST API asynchronous request failed :  {0}", ex.getMessage()));
+                    future.completeExceptionally(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            });
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Schedule the next attempt of an asynchronous call after the backoff, without holding a thread while waiting.
+     *
+     * @param requestBuilder Builder of the request.
+     * @param policy         Policy of the endpoint.
+     * @param attempt        Zero-based number of the attempt that failed.
+     * @param future         Future completed with the outcome of the call.
+     */
+    private void retryAsync(SimpleRequestBuilder requestBuilder, EpicEndpointPolicy policy, int attempt,
+            CompletableFuture<ResponseEntity<Map<String, Object>>> future) {
+        CompletableFuture.runAsync(() -> pacedSendAsync(requestBuilder, policy, attempt + 1, future),
+                CompletableFuture.delayedExecutor(policy.backoffMillis(attempt), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Reserve a rate limit permit for an attempt of an asynchronous call and send it once the permit can be used,
+     * without holding a thread while waiting.
+     *
+     * @param requestBuilder Builder of the request.
+     * @param policy         Policy of the endpoint.
+     * @param attempt        Zero-based number of the attempt.
+     * @param future         Future completed with the outcome of the call.
+     */
+    private void pacedSendAsync(SimpleRequestBuilder requestBuilder, EpicEndpointPolicy policy, int attempt,
+            CompletableFuture<ResponseEntity<Map<String, Object>>> future) {
+        long wait;
+        try {
+            wait = policy.getRateLimiter().reserve();
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            return;
+        }
+        if (wait == 0) {
+            sendAsync(requestBuilder, policy, attempt, future);
+        } else {
+            CompletableFuture.runAsync(() -> sendAsync(requestBuilder, policy, attempt, future),
+                    CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
         }
-        return ResponseEntity.status(responseCode).body(responseMap);
     }
-}
\ No newline at end of file
+}
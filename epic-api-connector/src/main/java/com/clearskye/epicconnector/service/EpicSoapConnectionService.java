@@ -3,41 +3,60 @@ package com.clearskye.epicconnector.service;
 import static com.clearskye.epicconnector.utils.EpicConstants.DEFAULT_MAX_RECORDS;
 import static com.clearskye.epicconnector.utils.EpicConstants.MAX_RECORDS;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToDoubleFunction;
 
+import javax.xml.transform.stream.StreamSource;
 
-import javax.xml.namespace.QName;
-
-import jakarta.xml.soap.MessageFactory;
-import jakarta.xml.soap.MimeHeaders;
-import jakarta.xml.soap.SOAPBody;
-import jakarta.xml.soap.SOAPConnection;
-import jakarta.xml.soap.SOAPElement;
-import jakarta.xml.soap.SOAPEnvelope;
-import jakarta.xml.soap.SOAPException;
-import jakarta.xml.soap.SOAPFault;
-import jakarta.xml.soap.SOAPHeader;
-import jakarta.xml.soap.SOAPMessage;
-import jakarta.xml.soap.SOAPPart;
-
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
 import com.clearskye.epicconnector.exception.CustomCommonException;
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicy;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicyRegistry;
+import com.clearskye.epicconnector.soap.EpicGetRecordsEnvelope;
+import com.clearskye.epicconnector.soap.EpicGetRecordsParser;
+import com.clearskye.epicconnector.soap.EpicPageCursor;
+import com.clearskye.epicconnector.soap.EpicPartitionedCursor;
+import com.clearskye.epicconnector.soap.EpicRecordCursor;
 import com.clearskye.epicconnector.utils.EpicConstants;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import jakarta.xml.soap.SOAPConnectionFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -46,21 +65,172 @@ import lombok.RequiredArgsConstructor;
 @Service
 @RequiredArgsConstructor
 public class EpicSoapConnectionService {
+    /**
+     * Logger instance for logging EpicSoapConnectionService events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicSoapConnectionService.class);
     /**
      * Object Mapper for the Epic SOAP Connection.
      */
     private static final ObjectMapper objectMapper = new ObjectMapper();
     /**
-     * SOAP Connection.
+     * Type of a parsed GetRecords response.
      */
-    private SOAPConnection soapConnection;
+    private static final TypeReference<Map<String, Object>> RESPONSE_MAP_TYPE = new TypeReference<Map<String, Object>>() {
+    };
     /**
      * Environment to access environment-specific properties.
      */
     private final Environment environment;
+    /**
+     * Registry of the timeout and retry policy of every Epic endpoint.
+     */
+    private final EpicEndpointPolicyRegistry epicEndpointPolicyRegistry;
+    /**
+     * Pre-rendered GetRecords envelope.
+     */
+    private final EpicGetRecordsEnvelope epicGetRecordsEnvelope;
+    /**
+     * Registry of the connector metrics.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * Pooled connection manager of the Epic SOAP calls.
+     */
+    private PoolingHttpClientConnectionManager connectionManager;
+    /**
+     * The long-lived HTTP client sending the SOAP envelopes.
+     */
+    private CloseableHttpClient httpClient;
+    /**
+     * Executor fetching the pages of open cursors ahead and running enumeration partitions, with enough threads for
+     * {@code epic.enumeration.maxConcurrent} enumerations.
+     */
+    private ExecutorService prefetchExecutor;
+    /**
+     * Permits of the enumerations open at the same time.
+     */
+    private Semaphore enumerationPermits;
 
     /**
-     * Execute the SOAP Service.
+     * A cursor holding an enumeration permit until it is closed.
+     */
+    private static final class PermittedCursor implements EpicPageCursor {
+        /**
+         * The enumeration cursor.
+         */
+        private final EpicPageCursor cursor;
+        /**
+         * Permits the permit of the cursor is given back to.
+         */
+        private final Semaphore permits;
+        /**
+         * Whether the permit was given back.
+         */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * Hold a permit until the cursor is closed.
+         *
+         * @param cursor  The enumeration cursor.
+         * @param permits Permits a permit was taken from for the cursor.
+         */
+        private PermittedCursor(EpicPageCursor cursor, Semaphore permits) {
+            this.cursor = cursor;
+            this.permits = permits;
+        }
+
+        @Override
+        public Page nextPage() throws Exception {
+            return cursor.nextPage();
+        }
+
+        @Override
+        public void close() {
+            try {
+                cursor.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the pooled SOAP HTTP client and the prefetch executor once the service is created.
+     *
+     * <p>An enumeration takes one prefetch thread per cursor fetching ahead, plus one per partition searched
+     * concurrently, so the executor has that many threads for each of the {@code epic.enumeration.maxConcurrent}
+     * enumerations allowed at the same time.</p>
+     */
+    @PostConstruct
+    public void initHttpClient() {
+        int maxEnumerations = environment.getProperty(EpicConstants.ENUMERATION_MAX_CONCURRENT, Integer.class,
+                EpicConstants.DEFAULT_ENUMERATION_MAX_CONCURRENT);
+        int prefetchThreads = Math.max(1, maxEnumerations * enumerationThreads());
+        ThreadPoolExecutor prefetchPoolExecutor = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setNameFormat("epic-soap-prefetch-%d").setDaemon(true).build());
+        prefetchPoolExecutor.allowCoreThreadTimeOut(true);
+        prefetchExecutor = prefetchPoolExecutor;
+        enumerationPermits = new Semaphore(maxEnumerations);
+        int keepAlive = environment.getProperty(EpicConstants.HTTP_KEEP_ALIVE, Integer.class, EpicConstants.DEFAULT_HTTP_KEEP_ALIVE);
+        int maxTotal = environment.getProperty(EpicConstants.SOAP_POOL_MAX_TOTAL, Integer.class, EpicConstants.DEFAULT_SOAP_POOL_MAX_TOTAL);
+        connectionManager = new PoolingHttpClientConnectionManager(environment.getProperty(EpicConstants.HTTP_CONNECTION_TTL,
+                Integer.class, EpicConstants.DEFAULT_HTTP_CONNECTION_TTL), TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxTotal);
+        connectionManager.setValidateAfterInactivity(EpicConstants.HTTP_VALIDATE_AFTER_INACTIVITY);
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : TimeUnit.SECONDS.toMillis(keepAlive);
+        };
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(epicEndpointPolicyRegistry.getGetRecordsPolicy().getRequestConfig())
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(environment.getProperty(EpicConstants.HTTP_IDLE_EVICTION, Integer.class,
+                        EpicConstants.DEFAULT_HTTP_IDLE_EVICTION), TimeUnit.SECONDS)
+                .build();
+        registerPoolGauge("leased", pool -> pool.getTotalStats().getLeased());
+        registerPoolGauge("available", pool -> pool.getTotalStats().getAvailable());
+        registerPoolGauge("pending", pool -> pool.getTotalStats().getPending());
+        registerPoolGauge("max", pool -> pool.getTotalStats().getMax());
+        logger.info(MessageFormat.format("Epic SOAP connection pool initialised with max total {0}", maxTotal));
+    }
+
+    /**
+     * Stop fetching ahead and close the pooled SOAP HTTP client on shutdown.
+     */
+    @PreDestroy
+    public void closeHttpClient() {
+        prefetchExecutor.shutdownNow();
+        try {
+            if (httpClient != null) {
+                httpClient.close();
+            }
+        } catch (IOException ex) {
+            logger.error(MessageFormat.format("Epic SOAP connection pool close failed :  {0}", ex.getMessage()));
+        }
+    }
+
+    /**
+     * Register a gauge of the SOAP connection pool.
+     *
+     * @param state Connection state the gauge reports.
+     * @param value Reads the number of connections in that state from the pool.
+     */
+    private void registerPoolGauge(String state, ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder(EpicConstants.METRIC_SOAP_POOL_CONNECTIONS, connectionManager, value)
+                .description("Connections of the Epic SOAP connection pool")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Execute the SOAP Service. Identical concurrent searches share one call, each getting its own copy of the response.
      *
      * @param searchContextMap Map to be used for pagination
      * @param type             Details to get
@@ -70,130 +240,167 @@ public class EpicSoapConnectionService {
      */
     public Map<String, Object> callSoapService(Map<String, Object> searchContextMap,
             String type, String filter) throws Exception {
-        Map<String, Object> responseMap = new HashMap<String, Object>();
-        soapConnection = this.getSoapConnection();
-        MessageFactory messageFactory = MessageFactory.newInstance();
-        SOAPMessage soapMessage = messageFactory.createMessage();
-        MimeHeaders headers = soapMessage.getMimeHeaders();
-        headers.addHeader(EpicConstants.EPIC_CLIENT_ID, environment.getProperty(EpicConstants.CLIENT_ID));
-        createSoapEnvelope(soapMessage, searchContextMap, type, filter);
-        soapMessage.saveChanges();
-        SOAPMessage soapResponse = soapConnection.call(soapMessage, environment.
-                getProperty(EpicConstants.SOAPENDPOINT) + EpicConstants.SOAP_END_POINT);
-        SOAPBody body = soapResponse.getSOAPBody();
-        if (body.hasFault()) {
-            handleSoapError(body.getFault());
+        byte[] envelope = createSoapEnvelope(searchContextMap, type, filter);
+        return epicEndpointPolicyRegistry.getSoapSingleFlight().execute(ByteBuffer.wrap(envelope), () -> callWithPolicy(envelope),
+                response -> objectMapper.convertValue(response, RESPONSE_MAP_TYPE));
+    }
+
+    /**
+     * Open a cursor over the pages of a search, fetching {@code epic.soap.prefetch} pages ahead of the caller.
+     *
+     * @param searchContextMap Page size and search context of the first page.
+     * @param type             Details to get
+     * @param filter           Filter the result, may be null
+     * @return cursor The cursor, to be closed by the caller
+     */
+    private EpicRecordCursor openCursor(Map<String, Object> searchContextMap, String type, String filter) {
+        int prefetch = environment.getProperty(EpicConstants.SOAP_PREFETCH, Integer.class, EpicConstants.DEFAULT_SOAP_PREFETCH);
+        return new EpicRecordCursor(pageContext -> callSoapService(pageContext, type, filter), searchContextMap, prefetch, prefetchExecutor);
+    }
+
+    /**
+     * Open a cursor over every record of a type. When {@code epic.enumeration.partitions} lists search strings,
+     * each is searched as an independent partition, {@code epic.enumeration.parallelism} at a time, and the
+     * records are merged without duplicates; otherwise the default search runs as a single cursor.
+     *
+     * <p>The single cursor holds a constant number of pages whatever the number of records. The partitioned
+     * cursor also keeps the id of every record returned so far, to drop the records of overlapping partitions, so
+     * its memory grows by one id per record until it is closed.</p>
+     *
+     * <p>At most {@code epic.enumeration.maxConcurrent} enumerations are open at the same time, each until its
+     * cursor is closed; opening one more is refused rather than queued behind them.</p>
+     *
+     * @param searchContextMap Page size of the searches.
+     * @param type             Details to get
+     * @return cursor The cursor, to be closed by the caller
+     * @throws EpicUnavailableException If the maximum number of enumerations are already open.
+     */
+    public EpicPageCursor openEnumeration(Map<String, Object> searchContextMap, String type) {
+        if (!enumerationPermits.tryAcquire()) {
+            throw new EpicUnavailableException(MessageFormat.format("Epic enumeration refused, {0} enumerations are already open",
+                    environment.getProperty(EpicConstants.ENUMERATION_MAX_CONCURRENT, Integer.class, EpicConstants.DEFAULT_ENUMERATION_MAX_CONCURRENT)));
+        }
+        try {
+            String[] partitions = environment.getProperty(EpicConstants.ENUMERATION_PARTITIONS, String[].class, new String[0]);
+            if (partitions.length == 0) {
+                return new PermittedCursor(openCursor(searchContextMap, type, null), enumerationPermits);
+            }
+            int parallelism = environment.getProperty(EpicConstants.ENUMERATION_PARALLELISM, Integer.class,
+                    EpicConstants.DEFAULT_ENUMERATION_PARALLELISM);
+            return new PermittedCursor(new EpicPartitionedCursor(List.of(partitions), partition -> openCursor(searchContextMap, type, partition),
+                    parallelism, prefetchExecutor), enumerationPermits);
+        } catch (RuntimeException ex) {
+            enumerationPermits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Number of prefetch threads one enumeration may take.
+     *
+     * @return threads One per cursor fetching ahead and one per partition searched concurrently
+     */
+    private int enumerationThreads() {
+        int prefetchThreads = environment.getProperty(EpicConstants.SOAP_PREFETCH, Integer.class, EpicConstants.DEFAULT_SOAP_PREFETCH) > 0 ? 1 : 0;
+        if (environment.getProperty(EpicConstants.ENUMERATION_PARTITIONS, String[].class, new String[0]).length == 0) {
+            return prefetchThreads;
         }
-        NodeList responseNodeList = body.getElementsByTagName(EpicConstants.GET_RECORDS_RESPONSE);
-        Node responseNode = responseNodeList.item(0);
-        if (responseNode.getNodeType() == Node.ELEMENT_NODE) {
-            Element responseElement = (Element) responseNode;
-            NodeList recordsNodeList = responseElement.getElementsByTagName(EpicConstants.RESULT_RECORD_TAG);
-            if (recordsNodeList != null && recordsNodeList.getLength() > 0) {
-                List<Map<String, Object>> recordList = new ArrayList<Map<String, Object>>();
-                for (int i = 0; i < recordsNodeList.getLength(); i++) {
-                    Node resultNode = recordsNodeList.item(i);
-                    NodeList resultElementList = resultNode.getChildNodes();
-                    if (resultElementList != null && resultElementList.getLength() > 0) {
-                        Map<String, Object> recordMap = new HashMap<>();
-                        for (int j = 0; j < resultElementList.getLength(); j++) {
-                            Node elementNode = resultElementList.item(j);
-                            if (elementNode.getNodeName().equals(EpicConstants.ADD_FIELDS_TAG)) {
-                                Element resultElement = (Element) resultNode;
-                                NodeList additionalRecords = resultElement
-                                        .getElementsByTagName(EpicConstants.XML_FIELD_TAG);
-                                if (additionalRecords != null && additionalRecords
-                                        .getLength() > 0) {
-                                    for (int k = 0; k < additionalRecords.getLength(); k++) {
-                                        Element additionalNode = (Element) additionalRecords
-                                                .item(k);
-                                        recordMap.put(additionalNode.getElementsByTagName(
-                                                        EpicConstants.XML_FIELDS_KEY).item(0).getTextContent(),
-                                                additionalNode.getElementsByTagName(EpicConstants.XML_FIELDS_VALUE)
-                                                        .item(0)
-                                                        .getTextContent());
-                                    }
-                                }
-                            } else {
-                                recordMap.put(elementNode.getNodeName(), elementNode
-                                        .getTextContent()
-                                        .trim());
-                            }
-                        }
-                        recordList.add(recordMap);
+        return environment.getProperty(EpicConstants.ENUMERATION_PARALLELISM, Integer.class,
+                EpicConstants.DEFAULT_ENUMERATION_PARALLELISM) * (1 + prefetchThreads);
+    }
+
+    /**
+     * Check whether {@link #openEnumeration(Map, String)} returns every record: either it runs the default search,
+     * or {@code epic.enumeration.partitionsExhaustive} declares that its partitions cover every record.
+     *
+     * @return complete True if a record missing from an enumeration no longer exists in Epic
+     */
+    public boolean isEnumerationComplete() {
+        String[] partitions = environment.getProperty(EpicConstants.ENUMERATION_PARTITIONS, String[].class, new String[0]);
+        return partitions.length == 0
+                || environment.getProperty(EpicConstants.ENUMERATION_PARTITIONS_EXHAUSTIVE, Boolean.class, false);
+    }
+
+    /**
+     * Post the GetRecords envelope with the timeouts, rate limit, circuit breaker and bulkhead of its endpoint policy, retrying transient failures.
+     *
+     * @param envelope Envelope to be sent.
+     * @return responseMap Records and search context of the response
+     * @throws Exception Exception during SOAP request.
+     */
+    private Map<String, Object> callWithPolicy(byte[] envelope) throws Exception {
+        EpicEndpointPolicy policy = epicEndpointPolicyRegistry.getGetRecordsPolicy();
+        epicEndpointPolicyRegistry.getRetryBudget().recordCall();
+        String url = environment.getProperty(EpicConstants.SOAPENDPOINT) + EpicConstants.SOAP_END_POINT;
+        ByteArrayEntity entity = new ByteArrayEntity(envelope, ContentType.parse(EpicConstants.SOAP_CONTENT_TYPE));
+        policy.getBulkhead().acquire();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                HttpPost httpPost = new HttpPost(url);
+                httpPost.setConfig(policy.getRequestConfig());
+                httpPost.setHeader(EpicConstants.SOAP_ACTION, EpicConstants.SOAP_ACTION_VALUE);
+                httpPost.setHeader(EpicConstants.EPIC_CLIENT_ID, environment.getProperty(EpicConstants.CLIENT_ID));
+                httpPost.setEntity(entity);
+                policy.getRateLimiter().acquire();
+                policy.getCircuitBreaker().acquirePermission();
+                try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    boolean retryableStatus = EpicEndpointPolicy.isRetryableStatus(statusCode);
+                    if (retryableStatus) {
+                        policy.getCircuitBreaker().onFailure();
+                    } else {
+                        policy.getCircuitBreaker().onSuccess();
+                    }
+                    if (!retryableStatus || !epicEndpointPolicyRegistry.shouldRetry(policy, attempt, String.valueOf(statusCode))) {
+                        return readResponse(response);
+                    }
+                    EntityUtils.consumeQuietly(response.getEntity());
+                } catch (IOException ex) {
+                    policy.getCircuitBreaker().onFailure();
+                    if (!epicEndpointPolicyRegistry.shouldRetry(policy, attempt, ex.toString())) {
+                        throw ex;
                     }
                 }
-                responseMap.put(EpicConstants.RECORDLIST, recordList);
-            }
-            NodeList contextElement = responseElement.getElementsByTagName(
-                    EpicConstants.SEARCH_CONTEXT);
-            Map<String, Object> pageMap = new HashMap<>();
-            Element searchElement = (Element) contextElement.item(0);
-            if (searchElement != null) {
-                pageMap.put(EpicConstants.IDENTIFIER, searchElement.getElementsByTagName(EpicConstants.IDENTIFIER)
-                        .item(0)
-                        .getTextContent());
-                pageMap.put(EpicConstants.RESUME_INFO, searchElement.getElementsByTagName(EpicConstants.RESUME_INFO)
-                        .item(0)
-                        .getTextContent());
-                pageMap.put(EpicConstants.CRITERIA_HASH, searchElement.getElementsByTagName(EpicConstants.CRITERIA_HASH)
-                        .item(0)
-                        .getTextContent());
-                responseMap.put(EpicConstants.SEARCH_CONTEXT, pageMap);
+                policy.backOff(attempt);
             }
+        } finally {
+            policy.getBulkhead().release();
+        }
+    }
+
+    /**
+     * Parse a GetRecords response straight from the connection; SOAP faults come back with status 500.
+     *
+     * @param response Response of Epic.
+     * @return responseMap Records and search context of the response
+     * @throws Exception Exception during reading the response.
+     */
+    private static Map<String, Object> readResponse(CloseableHttpResponse response) throws Exception {
+        int statusCode = response.getStatusLine().getStatusCode();
+        HttpEntity responseEntity = response.getEntity();
+        if (responseEntity == null || (statusCode != HttpStatus.SC_OK && statusCode != HttpStatus.SC_INTERNAL_SERVER_ERROR)) {
+            EntityUtils.consumeQuietly(responseEntity);
+            throw new CustomCommonException(MessageFormat.format("Bad response: ({0} {1})", statusCode,
+                    response.getStatusLine().getReasonPhrase()));
+        }
+        try (InputStream content = responseEntity.getContent()) {
+            Map<String, Object> responseMap = EpicGetRecordsParser.parse(new StreamSource(content));
+            EntityUtils.consume(responseEntity);
+            return responseMap;
         }
-        soapMessage.removeAllAttachments();
-        return responseMap;
     }
 
     /**
      * Create the SOAP Envelope for the Service.
      *
-     * @param soapMessage      Message to be added.
      * @param searchContextMap contextMap added for pagination.
      * @param type             Details to get
      * @param filter           Filter the result, may be null.
-     * @throws SOAPException Exception during create SOAP envelope.
+     * @return envelope The envelope filled from the pre-rendered template
      */
-    private void createSoapEnvelope(SOAPMessage soapMessage, Map<String, Object> searchContextMap,
-            String type, String filter) throws SOAPException {
+    private byte[] createSoapEnvelope(Map<String, Object> searchContextMap, String type, String filter) {
         Map<String, String> contextMap = new HashMap<>();
         String maxRecord = String.valueOf(DEFAULT_MAX_RECORDS);
-        SOAPPart soapPart = soapMessage.getSOAPPart();
-        SOAPEnvelope envelope = soapPart.getEnvelope();
-        envelope.addAttribute(new QName(EpicConstants.XMLNS_URN), EpicConstants.SOAP_URN_VALUE);
-        SOAPHeader header = envelope.getHeader();
-        SOAPElement security = header.addChildElement(EpicConstants.SECURITY, EpicConstants.WSSE, EpicConstants.SECURITY_URN);
-        security.addAttribute(new QName(EpicConstants.XMLNS_WSU), EpicConstants.XMLNS_WSU_URN);
-        SOAPElement usernameToken = security.addChildElement(EpicConstants.USERNAME_TOKEN, EpicConstants.WSSE);
-        usernameToken.addAttribute(new QName(EpicConstants.WSU_ID), EpicConstants.USERNAME_TOKEN_ID);
-        SOAPElement username = usernameToken.addChildElement(EpicConstants.USERNAME, EpicConstants.WSSE);
-        username.addTextNode(EpicConstants.EMP_COLON + environment.getProperty(EpicConstants.CONFIG_USERNAME));
-        SOAPElement password = usernameToken.addChildElement(EpicConstants.PASSWORD, EpicConstants.WSSE);
-        password.setAttribute(EpicConstants.TYPE, EpicConstants.TYPE_PASSWORD_URN);
-        String passwordString = environment.getProperty(EpicConstants.CONFIG_PASSWORD);
-        if (passwordString.contains(EpicConstants.AMP_CHAR_REF)) {
-            passwordString = passwordString.replace(EpicConstants.AMP_CHAR_REF, EpicConstants.AMPERSAND);
-        }
-        password.addTextNode(passwordString);
-        SOAPElement nonce = usernameToken.addChildElement(EpicConstants.NONCE, EpicConstants.WSSE);
-        nonce.setAttribute(EpicConstants.ENCODING_TYPE, EpicConstants.ENCODING_TYPE_URN);
-        nonce.addTextNode(EpicConstants.TEXT_NODE_IQ);
-        SOAPBody soapBody = envelope.getBody();
-        SOAPElement getRecords = soapBody.addChildElement(new QName(EpicConstants.GET_RECORDS_URN,
-                EpicConstants.GET_RECORDS));
-        getRecords.setAttribute(EpicConstants.XSI, EpicConstants.XSI_URN);
-        SOAPElement searchElement = getRecords.addChildElement(EpicConstants.SEARCH_CRITERIA);
-        SOAPElement iniAttr = searchElement.addChildElement(EpicConstants.INI);
-        iniAttr.addTextNode(type);
-        if (filter != null) {
-            SOAPElement searchAttr = searchElement.addChildElement(EpicConstants.SEARCH_STRING);
-            searchAttr.addTextNode(filter
-            );
-        } else {
-            SOAPElement searchAttr = searchElement.addChildElement(EpicConstants.SEARCH_STRING);
-            searchAttr.addTextNode("HCTI");
-        }
         if (searchContextMap != null) {
             maxRecord =
                     objectMapper.convertValue(Optional.
@@ -206,59 +413,6 @@ public class EpicSoapConnectionService {
                     new TypeReference<Map<String, String>>() {
                     });
         }
-        SOAPElement stateAttr = searchElement.addChildElement(EpicConstants.RECORDSTATE);
-        stateAttr.addTextNode(EpicConstants.ACTIVE);
-        SOAPElement skipEnRole = searchElement.addChildElement(EpicConstants.SKIPENROL);
-        skipEnRole.addTextNode(EpicConstants.FALSE);
-        SOAPElement modeAttr = searchElement.addChildElement(EpicConstants.SOUNDS_LIKE_MODE);
-        modeAttr.addTextNode(EpicConstants.USE_IF_NEEDED);
-        SOAPElement maxRecords = searchElement.addChildElement(EpicConstants.MAX_REC_PER_FETCH);
-        maxRecords.addTextNode(maxRecord);
-        if (contextMap != null && !contextMap.isEmpty()) {
-            SOAPElement searchContext = getRecords.addChildElement(EpicConstants.SEARCH_CONTEXT);
-            SOAPElement identifier = searchContext.addChildElement(EpicConstants.IDENTIFIER);
-            identifier.addTextNode(contextMap.get(EpicConstants.IDENTIFIER));
-            SOAPElement resInfo = searchContext.addChildElement(EpicConstants.RESUME_INFO);
-            resInfo.addTextNode(contextMap.get(EpicConstants.RESUME_INFO));
-            SOAPElement crHash = searchContext.addChildElement(EpicConstants.CRITERIA_HASH);
-            crHash.addTextNode(contextMap.get(EpicConstants.CRITERIA_HASH));
-        }
-        SOAPElement userId = getRecords.addChildElement(EpicConstants.USER_ID_FIELD);
-        userId.addTextNode(environment.getProperty(EpicConstants.CONFIG_USERNAME));
-    }
-
-    /**
-     * Handle Custom SOAP Errors.
-     *
-     * @param soapFault SOAP Fault.
-     */
-    private void handleSoapError(SOAPFault soapFault) {
-        String faultString = soapFault.getFaultString();
-        if (soapFault.getFaultCode().equals("fns:FailedAuthentication")) {
-            throw new CustomInvalidCredentialException(faultString);
-        }
-        throw new CustomCommonException(faultString);
-    }
-
-
-    /**
-     * Retrieve/Create SOAP Connection.
-     *
-     * @return soapConnection SOAP connection to be used
-     */
-    public SOAPConnection getSoapConnection() {
-        if (null == soapConnection) {
-            synchronized (this) {
-                if (null == soapConnection) {
-                    try {
-                        SOAPConnectionFactory soapConnectionFactory = SOAPConnectionFactory.newInstance();
-                        this.soapConnection = soapConnectionFactory.createConnection();
-                    } catch (SOAPException ex) {
-                        ex.printStackTrace();
-                    }
-                }
-            }
-        }
-        return soapConnection;
+        return epicGetRecordsEnvelope.fill(type, filter != null ? filter : EpicConstants.DEFAULT_SEARCH_STRING, maxRecord, contextMap);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,230 @@
+package com.clearskye.epicconnector.service;
+
+import static com.clearskye.epicconnector.utils.EpicConstants.EMP;
+
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clearskye.epicconnector.snapshot.EpicUserSnapshotStore;
+import com.clearskye.epicconnector.soap.EpicPageCursor;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Service keeping the user snapshot in line with Epic in the background.
+ *
+ * <p>Every {@code epic.crawler.interval} milliseconds all users are enumerated page by page, at most
+ * {@code epic.crawler.maxRecordsPerSecond}, and enriched into the snapshot, which only writes the users whose content
+ * hash changed. Once the enumeration completes, the users Epic no longer returns are removed, provided the enumeration
+ * covers every user: the default search does, partitions only when {@code epic.enumeration.partitionsExhaustive}
+ * declares so.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class EpicUserCrawlerService {
+    /**
+     * Logger instance for logging EpicUserCrawlerService events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicUserCrawlerService.class);
+    /**
+     * Environment to access environment-specific properties.
+     */
+    private final Environment environment;
+    /**
+     * Connection for Epic SOAP API.
+     */
+    private final EpicSoapConnectionService epicSoapConnectionService;
+    /**
+     * Epic User Enrichment Service fetching the details of the users of a page.
+     */
+    private final EpicUserEnrichmentService epicUserEnrichmentService;
+    /**
+     * Snapshot the crawled users are written to.
+     */
+    private final EpicUserSnapshotStore epicUserSnapshotStore;
+    /**
+     * Registry the crawler metrics are published to.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * Users crawled by the current or last crawl.
+     */
+    private final AtomicLong crawledRecords = new AtomicLong();
+    /**
+     * Counter of the users updated by the crawler.
+     */
+    private Counter updatedCounter;
+    /**
+     * Counter of the users removed by the crawler.
+     */
+    private Counter removedCounter;
+    /**
+     * Snapshot size when the current or last crawl started, the expected number of users.
+     */
+    private volatile long expectedRecords;
+    /**
+     * Time in nanoseconds the current or last crawl started.
+     */
+    private volatile long crawlStartedNanos;
+    /**
+     * Time in nanoseconds the last crawl ended, 0 while a crawl is running.
+     */
+    private volatile long crawlEndedNanos;
+    /**
+     * Time in epoch milliseconds the last complete crawl started, 0 before the first one.
+     */
+    private volatile long lastCompleteCrawl;
+
+    /**
+     * Publish the crawler metrics.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder(EpicConstants.METRIC_CRAWLER_RECORDS, crawledRecords, AtomicLong::get)
+                .description("Users crawled by the current or last crawl")
+                .register(meterRegistry);
+        Gauge.builder(EpicConstants.METRIC_CRAWLER_PROGRESS, this, EpicUserCrawlerService::progress)
+                .description("Share of the snapshot the current or last crawl went through")
+                .register(meterRegistry);
+        Gauge.builder(EpicConstants.METRIC_CRAWLER_RATE, this, EpicUserCrawlerService::recordsPerSecond)
+                .description("Users crawled per second by the current or last crawl")
+                .register(meterRegistry);
+        Gauge.builder(EpicConstants.METRIC_CRAWLER_LAG, this, EpicUserCrawlerService::lagSeconds)
+                .description("Seconds since the last complete crawl started")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        updatedCounter = Counter.builder(EpicConstants.METRIC_CRAWLER_CHANGES)
+                .description("Snapshot changes written by the crawler")
+                .tag("change", "updated")
+                .register(meterRegistry);
+        removedCounter = Counter.builder(EpicConstants.METRIC_CRAWLER_CHANGES)
+                .description("Snapshot changes written by the crawler")
+                .tag("change", "removed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Crawl the users at the configured interval, when the crawler is enabled.
+     */
+    @Scheduled(initialDelayString = "${epic.crawler.initialDelay:60000}", fixedDelayString = "${epic.crawler.interval:3600000}")
+    public void crawlUsersScheduled() {
+        if (!environment.getProperty(EpicConstants.CRAWLER_ENABLED, Boolean.class, false)) {
+            return;
+        }
+        try {
+            crawlUsers();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.error(MessageFormat.format("Epic user crawl failed, because of error {0} : ", ex.getMessage()));
+        }
+    }
+
+    /**
+     * Enumerate all users into the snapshot and, when the enumeration covers every user, remove the users Epic no
+     * longer returns.
+     *
+     * @return crawled Number of users crawled
+     * @throws Exception Exception during Epic requests.
+     */
+    public synchronized long crawlUsers() throws Exception {
+        double maxRecordsPerSecond = environment.getProperty(EpicConstants.CRAWLER_MAX_RECORDS_PER_SECOND, Double.class,
+                EpicConstants.DEFAULT_CRAWLER_MAX_RECORDS_PER_SECOND);
+        long startedAt = System.currentTimeMillis();
+        LongAdder updated = new LongAdder();
+        Set<String> seenUserIds = new HashSet<>();
+        expectedRecords = epicUserSnapshotStore.size();
+        crawledRecords.set(0);
+        crawlStartedNanos = System.nanoTime();
+        crawlEndedNanos = 0;
+        try (EpicPageCursor cursor = epicSoapConnectionService.openEnumeration(new HashMap<>(), EMP)) {
+            EpicPageCursor.Page page;
+            while ((page = cursor.nextPage()) != null) {
+                List<String> userIds = page.recordIds();
+                epicUserEnrichmentService.enrichUsers(userIds, updated);
+                seenUserIds.addAll(userIds);
+                pace(crawledRecords.addAndGet(userIds.size()), maxRecordsPerSecond);
+            }
+        } finally {
+            crawlEndedNanos = System.nanoTime();
+        }
+        int removed = 0;
+        if (epicSoapConnectionService.isEnumerationComplete()) {
+            removed = epicUserSnapshotStore.retainSeen(seenUserIds, startedAt);
+        } else {
+            logger.info("Epic user crawl keeps the users it did not see, the enumeration partitions are not declared exhaustive.");
+        }
+        updatedCounter.increment(updated.sum());
+        removedCounter.increment(removed);
+        lastCompleteCrawl = startedAt;
+        logger.info(MessageFormat.format("Epic user crawl went through {0} users in {1} ms, {2} updated and {3} removed",
+                crawledRecords.get(), TimeUnit.NANOSECONDS.toMillis(crawlEndedNanos - crawlStartedNanos), updated.sum(), removed));
+        return crawledRecords.get();
+    }
+
+    /**
+     * Wait until the users crawled so far are within the maximum rate.
+     *
+     * @param crawled             Users crawled so far.
+     * @param maxRecordsPerSecond Maximum number of users crawled per second, no limit when not positive.
+     * @throws InterruptedException When the thread is interrupted while waiting.
+     */
+    private void pace(long crawled, double maxRecordsPerSecond) throws InterruptedException {
+        if (maxRecordsPerSecond <= 0) {
+            return;
+        }
+        long due = crawlStartedNanos + (long) (crawled / maxRecordsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Share of the snapshot the current or last crawl went through.
+     *
+     * @return progress Crawled users over the snapshot size when the crawl started, 1 once it is exceeded
+     */
+    private double progress() {
+        return expectedRecords == 0 ? (crawlEndedNanos == 0 ? 0 : 1) : Math.min(1, (double) crawledRecords.get() / expectedRecords);
+    }
+
+    /**
+     * Users crawled per second by the current or last crawl.
+     *
+     * @return rate Users per second, 0 before the first crawl
+     */
+    private double recordsPerSecond() {
+        if (crawlStartedNanos == 0) {
+            return 0;
+        }
+        long end = crawlEndedNanos == 0 ? System.nanoTime() : crawlEndedNanos;
+        return end == crawlStartedNanos ? 0 : crawledRecords.get() * (double) TimeUnit.SECONDS.toNanos(1) / (end - crawlStartedNanos);
+    }
+
+    /**
+     * Seconds since the last complete crawl started, the maximum age of the snapshot.
+     *
+     * @return lag Seconds since the last complete crawl started, NaN before the first one
+     */
+    private double lagSeconds() {
+        return lastCompleteCrawl == 0 ? Double.NaN : (System.currentTimeMillis() - lastCompleteCrawl) / 1000.0;
+    }
+}
@@ -0,0 +1,439 @@
+package com.clearskye.epicconnector.service;
+
+import static com.clearskye.epicconnector.utils.EpicConstants.EPIC_GET_USER_ENDPOINT;
+import static com.clearskye.epicconnector.utils.EpicConstants.EXTERNAL;
+import static com.clearskye.epicconnector.utils.EpicConstants.REST_ENDPOINT;
+import static com.clearskye.epicconnector.utils.EpicConstants.USERGROUPS;
+import static com.clearskye.epicconnector.utils.EpicConstants.USER_ID_FIELD;
+import static com.clearskye.epicconnector.utils.EpicConstants.USER_ID_TYPE_FIELD;
+
+import java.io.UncheckedIOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.env.Environment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.clearskye.epicconnector.dto.EpicViewUser;
+import com.clearskye.epicconnector.exception.EpicResponseException;
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+import com.clearskye.epicconnector.exception.EpicUserNotFoundException;
+import com.clearskye.epicconnector.snapshot.EpicUserSnapshotStore;
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Service enriching the users found by a search with their Epic details and groups.
+ *
+ * <p>The users of a page are enriched concurrently, at most {@code epic.enrichment.parallelism} at a time, so
+ * page latency follows the slowest users instead of the sum of all of them. A single user lookup runs its
+ * two Epic calls concurrently under one deadline, on a pool of its own so it never queues behind whole pages.</p>
+ *
+ * <p>Both pools have bounded queues. A page worker that finds the enrichment queue full runs on the thread
+ * enriching the page, and a lookup that finds the lookup queue full is refused as Epic unavailable. A lookup call
+ * still running at its deadline keeps its thread until the Epic socket timeout, because a blocking HTTP call
+ * does not end on interrupt; only the lookup pool is held up by it.</p>
+ *
+ * <p>Single users are read through a cache bounded by {@code epic.userCache.maxSize} entries. An entry older than
+ * {@code epic.userCache.refreshAfter} is still served while it is reloaded in the background, and one older than
+ * {@code epic.userCache.ttl} is loaded again. Writes to a user evict its entry and move the user to a new write
+ * generation; a load or reload that started before the write may still store its result, but an entry of an older
+ * generation is never served and is loaded again. Page enrichment and crawls read Epic directly and leave the cache
+ * alone.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class EpicUserEnrichmentService {
+    /**
+     * Logger instance for logging EpicUserEnrichmentService events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicUserEnrichmentService.class);
+    /**
+     * Environment to access environment-specific properties.
+     */
+    private final Environment environment;
+    /**
+     * Epic Connection Service for Epic REST calls.
+     */
+    private final EpicConnectionService epicConnectionService;
+    /**
+     * Epic User Utility Service for the user groups and the user response.
+     */
+    private final EpicUserUtilityService epicUserUtilityService;
+    /**
+     * Snapshot every enriched user is recorded in.
+     */
+    private final EpicUserSnapshotStore epicUserSnapshotStore;
+    /**
+     * Registry the user cache metrics are published to.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * Executor running the enrichment of users.
+     */
+    private ExecutorService executor;
+    /**
+     * Executor running the Epic calls of single user lookups.
+     */
+    private ExecutorService lookupExecutor;
+    /**
+     * Executor reloading the stale cached users, apart from the enrichment executor the reloads wait on.
+     */
+    private ExecutorService refreshExecutor;
+    /**
+     * Enriched users by UserID, with the write generation their load started in.
+     */
+    private LoadingCache<String, CachedUser> userCache;
+    /**
+     * Write generation, moved on by every eviction.
+     */
+    private final AtomicLong writeGeneration = new AtomicLong();
+    /**
+     * Write generation of the last eviction of every user, kept as long as an entry loaded before it may live.
+     */
+    private Cache<String, Long> evictedGenerations;
+
+    /**
+     * An enriched user in the cache.
+     *
+     * @param generation Write generation when its load started.
+     * @param user       The enriched user.
+     */
+    private record CachedUser(long generation, Map<String, Object> user) {
+    }
+
+    /**
+     * Start the enrichment executors and build the user cache once the service is created.
+     */
+    @PostConstruct
+    public void initExecutor() {
+        int threads = environment.getProperty(EpicConstants.ENRICHMENT_THREADS, Integer.class, EpicConstants.DEFAULT_ENRICHMENT_THREADS);
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(environment.getProperty(EpicConstants.ENRICHMENT_QUEUE_SIZE, Integer.class, EpicConstants.DEFAULT_ENRICHMENT_QUEUE_SIZE)),
+                new ThreadFactoryBuilder().setNameFormat("epic-enrichment-%d").setDaemon(true).build(), (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Epic enrichment executor is shut down");
+                    }
+                    task.run();
+                });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        executor = threadPoolExecutor;
+        int lookupThreads = environment.getProperty(EpicConstants.LOOKUP_THREADS, Integer.class, EpicConstants.DEFAULT_LOOKUP_THREADS);
+        ThreadPoolExecutor lookupPoolExecutor = new ThreadPoolExecutor(lookupThreads, lookupThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(environment.getProperty(EpicConstants.LOOKUP_QUEUE_SIZE, Integer.class, EpicConstants.DEFAULT_LOOKUP_QUEUE_SIZE)),
+                new ThreadFactoryBuilder().setNameFormat("epic-user-lookup-%d").setDaemon(true).build());
+        lookupPoolExecutor.allowCoreThreadTimeOut(true);
+        lookupExecutor = lookupPoolExecutor;
+        refreshExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("epic-user-refresh-%d").setDaemon(true).build());
+        long ttl = environment.getProperty(EpicConstants.USER_CACHE_TTL, Long.class, EpicConstants.DEFAULT_USER_CACHE_TTL);
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(environment.getProperty(EpicConstants.USER_CACHE_MAX_SIZE, Long.class, EpicConstants.DEFAULT_USER_CACHE_MAX_SIZE))
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .recordStats();
+        evictedGenerations = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl + environment.getProperty(EpicConstants.ENRICHMENT_DEADLINE, Long.class, EpicConstants.DEFAULT_ENRICHMENT_DEADLINE), TimeUnit.MILLISECONDS)
+                .build();
+        long refreshAfter = environment.getProperty(EpicConstants.USER_CACHE_REFRESH_AFTER, Long.class, EpicConstants.DEFAULT_USER_CACHE_REFRESH_AFTER);
+        if (refreshAfter > 0) {
+            cacheBuilder.refreshAfterWrite(refreshAfter, TimeUnit.MILLISECONDS);
+        }
+        userCache = cacheBuilder.build(CacheLoader.asyncReloading(new CacheLoader<>() {
+            @Override
+            public CachedUser load(String userId) throws Exception {
+                long generation = writeGeneration.get();
+                return new CachedUser(generation, fetchUser(userId));
+            }
+
+            @Override
+            public ListenableFuture<CachedUser> reload(String userId, CachedUser oldValue) throws Exception {
+                long generation = writeGeneration.get();
+                try {
+                    return Futures.immediateFuture(new CachedUser(generation, fetchUser(userId)));
+                } catch (EpicUserNotFoundException ex) {
+                    userCache.invalidate(userId);
+                    throw ex;
+                }
+            }
+        }, refreshExecutor));
+        GuavaCacheMetrics.monitor(meterRegistry, userCache, EpicConstants.METRIC_USER_CACHE);
+    }
+
+    /**
+     * Stop the enrichment executors on shutdown.
+     */
+    @PreDestroy
+    public void shutdownExecutor() {
+        refreshExecutor.shutdownNow();
+        lookupExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Get one user with its Epic details and groups through the user cache.
+     *
+     * @param userId External id of the user.
+     * @return user The enriched user, possibly being refreshed in the background
+     * @throws EpicResponseException      If Epic refused to return the user.
+     * @throws EpicUserNotFoundException If Epic returned the user without any UserIDs.
+     * @throws EpicUnavailableException  If the lookup pool has no capacity left.
+     * @throws TimeoutException           If the calls did not complete before the deadline.
+     * @throws Exception                  Exception during Epic requests.
+     */
+    public Map<String, Object> getUser(String userId) throws Exception {
+        while (true) {
+            CachedUser cached;
+            try {
+                cached = userCache.get(userId);
+            } catch (ExecutionException | UncheckedExecutionException ex) {
+                throw ex.getCause() instanceof Exception cause ? cause : ex;
+            }
+            Long evicted = evictedGenerations.getIfPresent(userId);
+            if (evicted == null || cached.generation() >= evicted) {
+                return cached.user();
+            }
+            userCache.asMap().remove(userId, cached);
+        }
+    }
+
+    /**
+     * Evict a user from the cache after a write, so the next read gets it from Epic, even if a load that started
+     * before the write stores its result afterwards.
+     *
+     * @param userId External id of the user.
+     */
+    public void evictUser(String userId) {
+        evictedGenerations.put(userId, writeGeneration.incrementAndGet());
+        userCache.invalidate(userId);
+    }
+
+    /**
+     * Enrich users with their Epic details and groups.
+     *
+     * <p>Users Epic refuses to return are logged and left out. Any other failure fails the whole page,
+     * and the users not started yet are not enriched.</p>
+     *
+     * @param userIds External ids of the users, in page order.
+     * @return users The enriched users, in page order
+     * @throws Exception Exception during enrichment of a user.
+     */
+    public List<Map<String, Object>> enrichUsers(List<String> userIds) throws Exception {
+        return enrichUsers(userIds, null);
+    }
+
+    /**
+     * Enrich users with their Epic details and groups, counting the users whose snapshot changed.
+     *
+     * @param userIds External ids of the users, in page order.
+     * @param written Incremented for every user written to the snapshot, may be null.
+     * @return users The enriched users, in page order
+     * @throws Exception Exception during enrichment of a user.
+     * @see #enrichUsers(List)
+     */
+    public List<Map<String, Object>> enrichUsers(List<String> userIds, LongAdder written) throws Exception {
+        int parallelism = Math.min(userIds.size(), environment.getProperty(EpicConstants.ENRICHMENT_PARALLELISM, Integer.class,
+                EpicConstants.DEFAULT_ENRICHMENT_PARALLELISM));
+        AtomicReferenceArray<Map<String, Object>> results = new AtomicReferenceArray<>(userIds.size());
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism];
+        for (int worker = 0; worker < parallelism; worker++) {
+            workers[worker] = CompletableFuture.runAsync(() -> {
+                int index;
+                while (failure.get() == null && (index = nextIndex.getAndIncrement()) < userIds.size()) {
+                    try {
+                        results.set(index, enrichUser(userIds.get(index), written));
+                    } catch (Exception ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(workers).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof Exception cause ? cause : ex;
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        List<Map<String, Object>> users = new ArrayList<>(userIds.size());
+        for (int index = 0; index < results.length(); index++) {
+            if (results.get(index) != null) {
+                users.add(results.get(index));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Fetch one user with its Epic details and groups.
+     *
+     * <p>ViewUser and ViewUserGroups run concurrently and share one deadline; whichever is still running
+     * when the other fails or the deadline passes is cancelled.</p>
+     *
+     * @param userId External id of the user.
+     * @return user The enriched user
+     * @throws EpicResponseException      If Epic refused to return the user.
+     * @throws EpicUserNotFoundException If Epic returned the user without any UserIDs.
+     * @throws EpicUnavailableException  If the lookup pool has no capacity left.
+     * @throws TimeoutException           If the calls did not complete before the deadline.
+     * @throws Exception                  Exception during Epic requests.
+     */
+    public Map<String, Object> fetchUser(String userId) throws Exception {
+        long deadlineMillis = environment.getProperty(EpicConstants.ENRICHMENT_DEADLINE, Long.class, EpicConstants.DEFAULT_ENRICHMENT_DEADLINE);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        long readMark = epicUserSnapshotStore.lastSequence();
+        Future<EpicViewUser> viewUser;
+        try {
+            viewUser = lookupExecutor.submit(() -> viewUser(userId));
+        } catch (RejectedExecutionException ex) {
+            throw new EpicUnavailableException(MessageFormat.format("Epic user lookup pool is full, lookup of the user {0} rejected", userId));
+        }
+        Future<ResponseEntity<Map<String, Object>>> grpEntity;
+        try {
+            grpEntity = lookupExecutor.submit(() -> epicUserUtilityService.getUserGroups(epicConnectionService, userId));
+        } catch (RejectedExecutionException ex) {
+            viewUser.cancel(true);
+            throw new EpicUnavailableException(MessageFormat.format("Epic user lookup pool is full, lookup of the user {0} rejected", userId));
+        }
+        try {
+            EpicViewUser user = await(viewUser, deadline, deadlineMillis);
+            Map<String, Object> enrichedUser = record(epicUserUtilityService.buildReturnMap(user, userGroups(await(grpEntity, deadline, deadlineMillis))), readMark, null);
+            if (enrichedUser == null) {
+                throw new EpicUserNotFoundException(MessageFormat.format("Epic returned no UserIDs for the user {0}", userId));
+            }
+            return enrichedUser;
+        } finally {
+            viewUser.cancel(true);
+            grpEntity.cancel(true);
+        }
+    }
+
+    /**
+     * Enrich one user of a page with its Epic details and groups.
+     *
+     * @param userId  External id of the user.
+     * @param written Incremented if the user is written to the snapshot, may be null.
+     * @return user The enriched user, or null if Epic refused to return it
+     * @throws Exception Exception during Epic requests.
+     */
+    private Map<String, Object> enrichUser(String userId, LongAdder written) throws Exception {
+        long readMark = epicUserSnapshotStore.lastSequence();
+        EpicViewUser viewUser;
+        try {
+            viewUser = viewUser(userId);
+        } catch (EpicResponseException ex) {
+            logger.warn(MessageFormat.format("Epic fetch single user failed in fetch all user operation, {0}", ex.getBody()));
+            return null;
+        }
+        ResponseEntity<Map<String, Object>> grpEntity = epicUserUtilityService.getUserGroups(epicConnectionService, userId);
+        return record(epicUserUtilityService.buildReturnMap(viewUser, userGroups(grpEntity)), readMark, written);
+    }
+
+    /**
+     * Record an enriched user in the snapshot, unless it was written since the read started; a snapshot failure does
+     * not fail the read.
+     *
+     * @param user     The enriched user, may be null.
+     * @param readMark Snapshot sequence taken before the user was read from Epic.
+     * @param written  Incremented if the user is written to the snapshot, may be null.
+     * @return user The same user
+     */
+    private Map<String, Object> record(Map<String, Object> user, long readMark, LongAdder written) {
+        if (user != null) {
+            try {
+                if (epicUserSnapshotStore.put(user, readMark) != null && written != null) {
+                    written.increment();
+                }
+            } catch (UncheckedIOException ex) {
+                logger.warn(MessageFormat.format("Epic user snapshot not updated, because of the exception : {0}", ex.getMessage()));
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Get a user through Epic ViewUser.
+     *
+     * @param userId External id of the user.
+     * @return viewUser The user as returned by Epic
+     * @throws EpicResponseException If Epic refused to return the user.
+     * @throws Exception             Exception during the Epic request.
+     */
+    private EpicViewUser viewUser(String userId) throws Exception {
+        Map<String, Object> paramRequestMap = new HashMap<>();
+        paramRequestMap.put(USER_ID_FIELD, userId);
+        paramRequestMap.put(USER_ID_TYPE_FIELD, EXTERNAL);
+        String url = environment.getProperty(REST_ENDPOINT) + EPIC_GET_USER_ENDPOINT;
+        return epicConnectionService.executeRequest(url, EpicConnectionService.HttpOperationType.GET,
+                paramRequestMap, null, EpicViewUser.class).getBody();
+    }
+
+    /**
+     * Wait for an Epic call until the deadline.
+     *
+     * @param future         The running Epic call.
+     * @param deadline       Deadline as a {@link System#nanoTime()} value.
+     * @param deadlineMillis Length of the deadline, for the error message.
+     * @param <T>            The result type of the call.
+     * @return result The result of the call
+     * @throws Exception The failure of the call, or a TimeoutException once the deadline passed.
+     */
+    private static <T> T await(Future<T> future, long deadline, long deadlineMillis) throws Exception {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof Exception cause ? cause : ex;
+        } catch (TimeoutException ex) {
+            throw new TimeoutException(MessageFormat.format("Epic user lookup did not complete within {0} ms", deadlineMillis));
+        }
+    }
+
+    /**
+     * Extract the group names from a ViewUserGroups response.
+     *
+     * @param grpEntity Response of the user groups request.
+     * @return userGroups Group names, or null if the response has none
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> userGroups(ResponseEntity<Map<String, Object>> grpEntity) {
+        Map<String, Object> body = grpEntity.getBody();
+        return body == null ? null : (List<String>) body.get(USERGROUPS);
+    }
+}
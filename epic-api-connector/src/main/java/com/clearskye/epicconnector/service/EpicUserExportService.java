@@ -0,0 +1,146 @@
+package com.clearskye.epicconnector.service;
+
+import static com.clearskye.epicconnector.utils.EpicConstants.EMP;
+import static com.clearskye.epicconnector.utils.EpicConstants.EXPORTED_USERS;
+import static com.clearskye.epicconnector.utils.EpicConstants.EXPORT_COMPLETE;
+import static com.clearskye.epicconnector.utils.EpicConstants.EXPORT_FAILED;
+import static com.clearskye.epicconnector.utils.EpicConstants.EXPORT_STATUS;
+import static com.clearskye.epicconnector.utils.EpicConstants.PAGE_SIZE;
+import static com.clearskye.epicconnector.utils.EpicConstants.RESPONSE_MESSAGE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+import com.clearskye.epicconnector.soap.EpicPageCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Service exporting every Epic user as newline-delimited JSON.
+ *
+ * <p>The SOAP search is paged server-side: one page is enriched and written at a time while the next ones are
+ * fetched ahead, so memory stays constant whatever the size of the directory and a slow client slows the export
+ * down instead of buffering it.</p>
+ *
+ * <p>The last line is a status line instead of a user, with {@code ExportStatus} Complete or Failed and the number of
+ * users written in {@code ExportedUsers}. The response is committed with the first page, so a client can only tell a
+ * complete export from a truncated one by this line.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class EpicUserExportService {
+    /**
+     * Logger instance for logging EpicUserExportService events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicUserExportService.class);
+    /**
+     * Object Mapper writing the exported users.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Line separator of newline-delimited JSON.
+     */
+    private static final int NEWLINE = '\n';
+    /**
+     * Connection for Epic SOAP API.
+     */
+    private final EpicSoapConnectionService epicSoapConnectionService;
+    /**
+     * Epic User Enrichment Service fetching the details of the users of a page.
+     */
+    private final EpicUserEnrichmentService epicUserEnrichmentService;
+
+    /**
+     * Export every user, one JSON object per line, flushing after each page, and end with the status line.
+     *
+     * <p>A failure of Epic is written on the status line before it is thrown; a failure writing to the client
+     * is thrown as is, since nothing more can reach it.</p>
+     *
+     * @param pageSize Number of users per SOAP page, may be null for the configured default.
+     * @param out      Stream the users are written to.
+     * @return exported Number of users exported
+     * @throws Exception Exception during Epic requests, after it was written on the status line, or during writing
+     *                   the users.
+     */
+    public long exportUsers(String pageSize, OutputStream out) throws Exception {
+        Map<String, Object> searchContextMap = new HashMap<>();
+        if (pageSize != null) {
+            searchContextMap.put(PAGE_SIZE, pageSize);
+        }
+        long exported = 0;
+        int pages = 0;
+        EpicPageCursor cursor;
+        try {
+            cursor = epicSoapConnectionService.openEnumeration(searchContextMap, EMP);
+        } catch (Exception ex) {
+            writeStatus(out, EXPORT_FAILED, exported, ex.getMessage());
+            throw ex;
+        }
+        try (cursor) {
+            while (true) {
+                List<Map<String, Object>> users;
+                try {
+                    EpicPageCursor.Page page = cursor.nextPage();
+                    if (page == null) {
+                        break;
+                    }
+                    users = epicUserEnrichmentService.enrichUsers(page.recordIds());
+                } catch (Exception ex) {
+                    writeStatus(out, EXPORT_FAILED, exported, ex.getMessage());
+                    throw ex;
+                }
+                for (Map<String, Object> user : users) {
+                    writeLine(out, user);
+                    exported++;
+                }
+                out.flush();
+                pages++;
+            }
+        }
+        writeStatus(out, EXPORT_COMPLETE, exported, null);
+        logger.info(MessageFormat.format("Epic user export wrote {0} users in {1} pages", exported, pages));
+        return exported;
+    }
+
+    /**
+     * Write the status line ending the export and flush it.
+     *
+     * @param out      Stream the line is written to.
+     * @param status   Export status, Complete or Failed.
+     * @param exported Number of users written before the status line.
+     * @param message  Message of the failure, null on a complete export.
+     * @throws IOException Exception during writing the line.
+     */
+    private static void writeStatus(OutputStream out, String status, long exported, String message) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put(EXPORT_STATUS, status);
+        line.put(EXPORTED_USERS, exported);
+        if (message != null) {
+            line.put(RESPONSE_MESSAGE, message);
+        }
+        writeLine(out, line);
+        out.flush();
+    }
+
+    /**
+     * Write one JSON object as a line.
+     *
+     * @param out  Stream the line is written to.
+     * @param line The object of the line.
+     * @throws IOException Exception during writing the line.
+     */
+    private static void writeLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write(NEWLINE);
+    }
+}
@@ -12,6 +12,14 @@ import org.springframework.core.env.Environment;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.clearskye.epicconnector.dto.EpicIdentifier;
+import com.clearskye.epicconnector.dto.EpicIdentifiers;
+import com.clearskye.epicconnector.dto.EpicIndexedIdentifier;
+import com.clearskye.epicconnector.dto.EpicLinkedTemplatesConfig;
+import com.clearskye.epicconnector.dto.EpicUserComplexName;
+import com.clearskye.epicconnector.dto.EpicUserGroups;
+import com.clearskye.epicconnector.dto.EpicViewUser;
+import com.clearskye.epicconnector.exception.EpicResponseException;
 import com.clearskye.epicconnector.utils.EpicConstants;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -34,6 +42,16 @@ public class EpicUserUtilityService {
      * Object Mapper for the Epic User Utility Service.
      */
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Type of a list of strings, shared so it is not recreated per attribute.
+     */
+    private static final TypeReference<List<String>> STRING_LIST_TYPE = new TypeReference<>() {
+    };
+    /**
+     * Type of a JSON object map, shared so it is not recreated per attribute.
+     */
+    private static final TypeReference<Map<String, Object>> OBJECT_MAP_TYPE = new TypeReference<>() {
+    };
 
     /**
      * Generate the Request Map to perform the Operations.
@@ -47,74 +65,33 @@ public class EpicUserUtilityService {
         EpicConstants.EPIC_OPTIONAL_ATTRIBUTES.forEach(attrName -> {
             if (!attrName.equals(EpicConstants.GROUP) && attributesMap.get(attrName) != null) {
                 if (EpicConstants.EPIC_COMPLEX_TYPE_ATTR_SET.contains(attrName)) {
-                    Map<String, Object> attrMap = objectMapper.convertValue(attributesMap.get(attrName),
-                            new TypeReference<Map<String, Object>>() {
-                            });
-                    requestMap.put(attrName, attrMap);
+                    requestMap.put(attrName, objectMapper.convertValue(attributesMap.get(attrName), OBJECT_MAP_TYPE));
                 } else if (attrName.equals(EpicConstants.USER_ID_TYPE_FIELD)) {
                     requestMap.put(attrName, attributesMap.get(attrName));
                 } else if (EpicConstants.USER_COMPLEX_NAME_ATTRS.contains(attrName)) {
                     userComplexNameMap.put(attrName, attributesMap.get(attrName).toString());
                 } else if (attrName.equals(EpicConstants.EPIC_ATTR_DEFAULT_LOGIN_DEPT_ID)
                         || attrName.equals(EpicConstants.EPIC_ATTR_PRIMARY_MANAGER)) {
-                    Map<String, String> defaultLoginDepartmentId = new HashMap<>();
-                    defaultLoginDepartmentId.put(EpicConstants.ID, attributesMap.get(attrName).toString());
-                    defaultLoginDepartmentId.put(EpicConstants.TYPE, EpicConstants.USER_ID_TYPE_VALUE);
-                    requestMap.put(attrName, defaultLoginDepartmentId);
+                    requestMap.put(attrName, EpicIdentifier.external(attributesMap.get(attrName).toString()));
                 } else if (attrName.equals(EpicConstants.DEFAULT_TEMPLATE_ID)) {
-                    Map<String, Object> configMap = new HashMap<>();
-                    Map<String, Object> templateMap = new HashMap<>();
-                    templateMap.put(EpicConstants.ID, attributesMap.get(attrName).toString());
-                    templateMap.put(EpicConstants.TYPE, EpicConstants.USER_ID_TYPE_VALUE);
-                    configMap.put(EpicConstants.DEFAULT_TEMPLATE_ID, templateMap);
-                    configMap.put(EpicConstants.APPLIED_TEMPLATE_ID, templateMap);
-                    List<Map<String, Object>> templatesList = new ArrayList<>();
-                    templatesList.add(templateMap);
-                    configMap.put(EpicConstants.AVAILABLE_TEMPLATES, templatesList);
-                    requestMap.put(EpicConstants.TEMPLATES_CONFIG, configMap);
+                    requestMap.put(EpicConstants.TEMPLATES_CONFIG,
+                            EpicLinkedTemplatesConfig.of(EpicIdentifier.external(attributesMap.get(attrName).toString())));
                 } else if (attrName.equals(EpicConstants.EPIC_ATTR_USER_SUBTEMPLATE_IDS)) {
-                    List<String> ids = objectMapper.convertValue(attributesMap.get(attrName),
-                            new TypeReference<List<String>>() {
-                            });
+                    List<String> ids = objectMapper.convertValue(attributesMap.get(attrName), STRING_LIST_TYPE);
                     if (ids != null) {
-                        List<Map<String, Object>> idsList = new ArrayList<>();
-                        int index = 1;
-                        for (String id : ids) {
-                            Map<String, Object> attributeEntry = new HashMap<>();
-                            Map<String, Object> identifierEntry = new HashMap<>();
-                            identifierEntry.put(EpicConstants.ID, id);
-                            identifierEntry.put(EpicConstants.TYPE, EpicConstants.USER_ID_TYPE_VALUE);
-                            attributeEntry.put(EpicConstants.IDENTIFIER, identifierEntry);
-                            attributeEntry.put(EpicConstants.INDEX, index);
-                            index++;
-                            idsList.add(attributeEntry);
+                        List<EpicIndexedIdentifier> idsList = new ArrayList<>(ids.size());
+                        for (int index = 0; index < ids.size(); index++) {
+                            idsList.add(new EpicIndexedIdentifier(EpicIdentifier.external(ids.get(index)), index + 1));
                         }
                         requestMap.put(attrName, idsList);
                     }
                 } else if (attrName.equals(EpicConstants.USERS_MANAGERS)) {
-                    List<String> ids = objectMapper.convertValue(attributesMap.get(attrName),
-                            new TypeReference<List<String>>() {
-                            });
-                    List<Map<String, Object>> idsList = new ArrayList<>();
-                    ids.forEach(id -> {
-                        Map<String, Object> identifierEntry = new HashMap<>();
-                        identifierEntry.put(EpicConstants.ID, id);
-                        identifierEntry.put(EpicConstants.TYPE, EpicConstants.USER_ID_TYPE_VALUE);
-                        idsList.add(identifierEntry);
-                    });
-                    requestMap.put(attrName, idsList);
+                    List<String> ids = objectMapper.convertValue(attributesMap.get(attrName), STRING_LIST_TYPE);
+                    requestMap.put(attrName, ids.stream().map(EpicIdentifier::external).toList());
                 } else if (attrName.equals(EpicConstants.PROVIDER)) {
-                    Map<String, Object> providerMap = new HashMap<>();
-                    providerMap.put(EpicConstants.ID, attributesMap.get(attrName).toString());
-                    providerMap.put(EpicConstants.TYPE, EpicConstants.USER_ID_TYPE_VALUE);
-                    requestMap.put(EpicConstants.PROVIDER_ID, providerMap);
+                    requestMap.put(EpicConstants.PROVIDER_ID, EpicIdentifier.external(attributesMap.get(attrName).toString()));
                 } else if (attrName.equals(EpicConstants.INBASKET_CLASSIFICATION) || attrName.equals(EpicConstants.CATEGORY_REPORT_GROUPER6)) {
-                    if (attributesMap.get(attrName).toString() != null) {
-                        List<String> list = objectMapper.convertValue(attributesMap.get(attrName),
-                                new TypeReference<List<String>>() {
-                                });
-                        requestMap.put(attrName, list);
-                    }
+                    requestMap.put(attrName, objectMapper.convertValue(attributesMap.get(attrName), STRING_LIST_TYPE));
                 } else if (EpicConstants.BOOLEAN_ATTR_SET.contains(attrName)) {
                     requestMap.put(attrName, Boolean.parseBoolean(attributesMap.get(attrName).toString()));
                 } else if (attrName.equals(EpicConstants.CONTACTDATE)) {
@@ -129,7 +106,7 @@ public class EpicUserUtilityService {
             }
         });
         if (!userComplexNameMap.isEmpty()) {
-            requestMap.put(EpicConstants.COMPLEX_NAME, userComplexNameMap);
+            requestMap.put(EpicConstants.COMPLEX_NAME, EpicUserComplexName.from(userComplexNameMap));
         }
         return requestMap;
     }
@@ -164,10 +141,7 @@ public class EpicUserUtilityService {
     public ResponseEntity<Map<String, Object>> setUserGroups(EpicConnectionService epicConnectionService, String userId,
             List<String> groupsNames) throws Exception {
         Map<String, Object> bodyRequestMap = new HashMap<>();
-        Map<String, String> innerRequestMap = new HashMap<>();
-        innerRequestMap.put(EpicConstants.ID, userId);
-        innerRequestMap.put(EpicConstants.TYPE, EpicConstants.USER_ID_TYPE_VALUE);
-        bodyRequestMap.put(EpicConstants.USER_ID_FIELD, innerRequestMap);
+        bodyRequestMap.put(EpicConstants.USER_ID_FIELD, EpicIdentifier.external(userId));
         bodyRequestMap.put(EpicConstants.USERGROUPS, groupsNames);
         return epicConnectionService.executeRequest(environment.getProperty(EpicConstants.REST_ENDPOINT)
                         + EpicConstants.EPIC_UPDATE_USER_GROUPS_ENDPOINT, EpicConnectionService.HttpOperationType.POST,
@@ -182,151 +156,102 @@ public class EpicUserUtilityService {
      * @throws Exception Exception during retrieve user groups.
      */
     public ResponseEntity<Map<String, Object>> getUserGroups(EpicConnectionService epicConnectionService, String userId) throws Exception {
-        List<String> userGroupList = new ArrayList<>();
         Map<String, Object> responseMap = new HashMap<>();
-        Map<String, Object> paramRequestMap = new HashMap<>();
         Map<String, Object> bodyRequestMap = new HashMap<>();
-        Map<String, String> innerRequestMap = new HashMap<>();
-        innerRequestMap.put(EpicConstants.ID, userId);
-        innerRequestMap.put(EpicConstants.TYPE, EpicConstants.USER_ID_TYPE_VALUE);
-        bodyRequestMap.put(EpicConstants.USER_ID_FIELD, innerRequestMap);
-        ResponseEntity<Map<String, Object>> groupReponseEntity = epicConnectionService.executeRequest(
-                environment.getProperty(EpicConstants.REST_ENDPOINT) + EpicConstants.EPIC_GET_USER_GROUPS_ENDPOINT, EpicConnectionService.HttpOperationType.POST,
-                paramRequestMap, bodyRequestMap);
-        if (groupReponseEntity.getStatusCode().value() >= org.apache.http.HttpStatus.SC_MULTIPLE_CHOICES) {
-            return groupReponseEntity;
+        bodyRequestMap.put(EpicConstants.USER_ID_FIELD, EpicIdentifier.external(userId));
+        EpicUserGroups userGroups;
+        try {
+            userGroups = epicConnectionService.executeRequest(environment.getProperty(EpicConstants.REST_ENDPOINT)
+                            + EpicConstants.EPIC_GET_USER_GROUPS_ENDPOINT, EpicConnectionService.HttpOperationType.POST,
+                    new HashMap<String, Object>(), bodyRequestMap, EpicUserGroups.class).getBody();
+        } catch (EpicResponseException ex) {
+            return ResponseEntity.status(ex.getStatusCode()).body(ex.getBody());
         }
-        Map<String, Object> grpResponseMap = objectMapper.convertValue(groupReponseEntity.getBody(), new TypeReference<Map<String, Object>>() {
-        });
-        userGroupList = objectMapper.convertValue(grpResponseMap.get(EpicConstants.USERGROUPS), new TypeReference<List<String>>() {
-        });
-        responseMap.put(EpicConstants.USERGROUPS, userGroupList);
+        responseMap.put(EpicConstants.USERGROUPS, userGroups == null ? null : userGroups.userGroups());
         return ResponseEntity.status(HttpStatus.SC_OK).body(responseMap);
     }
 
     /**
      * Build return map for single user.
      *
-     * @param result To build Response.
+     * @param user       User as returned by ViewUser.
+     * @param userGroups Groups of the user.
      * @return responseMap Single user response.
      */
-    public Map<String, Object> buildReturnMap(Map<String, Object> result) {
-        Map<String, String> uidMap = new HashMap<>();
-        Map<String, Object> userComplexName = new HashMap<>();
+    public Map<String, Object> buildReturnMap(EpicViewUser user, List<String> userGroups) {
         Map<String, Object> responseMap = new HashMap<>();
-        if (result.get(EpicConstants.USER_IDS) == null) {
+        if (user.userIds() == null) {
             return null;
         }
-        List<Map<String, String>> userIdMapList = objectMapper.convertValue(result.get(EpicConstants.USER_IDS),
-                new TypeReference<List<Map<String, String>>>() {
-                });
-        userIdMapList.forEach(userIdMap -> {
-            if (userIdMap.get(EpicConstants.TYPE).equalsIgnoreCase(EpicConstants.USER_ID_TYPE_VALUE)) {
-                uidMap.put(EpicConstants.USER_ID_FIELD, userIdMap.get(EpicConstants.ID));
-            }
-        });
-        for (String attrName : EpicConstants.EPIC_OPTIONAL_ATTRIBUTES) {
-            if (EpicConstants.EPIC_COMPLEX_TYPE_ATTR_SET.contains(attrName)) {
-                if (result.get(attrName) != null) {
-                    responseMap.put(attrName, result.get(attrName));
-                }
-            } else if (attrName.equals(EpicConstants.DEFAULT_TEMPLATE_ID)) {
-                Map<String, Object> configMap = objectMapper.convertValue(result.get(EpicConstants.TEMPLATES_CONFIG),
-                        new TypeReference<Map<String, Object>>() {
-                        });
-                List<Map<String, Object>> templateList = objectMapper.convertValue(configMap
-                        .get(EpicConstants.DEFAULT_TEMPLATE_ID), new TypeReference<List<Map<String, Object>>>() {
-                });
-                Map<String, Object> templateMap = templateList.stream()
-                        .filter(attr -> attr.get(EpicConstants.TYPE).equals(EpicConstants.EXTERNAL))
-                        .findFirst()
-                        .orElse(null);
-                if (templateMap != null) {
-                    responseMap.put(attrName, templateMap.get(EpicConstants.ID));
-                }
-            } else if (attrName.equals(EpicConstants.EPIC_ATTR_USER_SUBTEMPLATE_IDS) || attrName.equals(EpicConstants.USERS_MANAGERS)) {
-                List<Map<String, Object>> list = objectMapper.convertValue(result.get(attrName),
-                        new TypeReference<List<Map<String, Object>>>() {
-                        });
-                List<String> idsList = new ArrayList<>();
-                if (list != null && list.size() > 0) {
-                    list.forEach(subTemplateObject -> {
-                        Map<String, Object> idMap = objectMapper.convertValue(subTemplateObject
-                                        .get(EpicConstants.IDENTIFIERS), new TypeReference<List<Map<String, Object>>>(
-                                ) {
-                                }).stream()
-                                .filter(record -> record.get(EpicConstants.TYPE)
-                                        .equals(EpicConstants.USER_ID_TYPE_VALUE))
-                                .findFirst()
-                                .orElse(null);
-                        if (idMap != null) {
-                            idsList.add(idMap.get(EpicConstants.ID).toString());
-                        }
-                    });
-                }
-                responseMap.put(attrName, objectMapper.convertValue(idsList,
-                        new TypeReference<List<String>>() {
-                        }));
-            } else if (EpicConstants.USER_COMPLEX_NAME_ATTRS.contains(attrName)) {
-                if (userComplexName.isEmpty()) {
-                    userComplexName = objectMapper.convertValue(result.get(EpicConstants.COMPLEX_NAME),
-                            new TypeReference<Map<String, Object>>() {
-                            });
-                }
-                if (userComplexName.get(attrName) != null) {
-                    responseMap.put(attrName, userComplexName.get(attrName).toString());
-                }
-            } else if (attrName.equals(EpicConstants.EPIC_ATTR_DEFAULT_LOGIN_DEPT_ID)
-                    || attrName.equals(EpicConstants.EPIC_ATTR_PRIMARY_MANAGER)) {
-                List<Map<String, Object>> complexList = objectMapper.convertValue(result.get(attrName),
-                        new TypeReference<List<Map<String, Object>>>() {
-                        });
-                if (complexList != null && complexList.size() > 0) {
-                    Map<String, Object> attributeMap = complexList.stream()
-                            .filter(record -> record.get(EpicConstants.TYPE).equals(EpicConstants.USER_ID_TYPE_VALUE))
-                            .findAny()
-                            .orElse(null);
-                    if (attributeMap != null) {
-                        responseMap.put(attrName, attributeMap.get(EpicConstants.ID));
-                    }
-                }
-            } else if (attrName.equals(EpicConstants.INBASKET_CLASSIFICATION) || attrName.equals(
-                    EpicConstants.GROUP) || attrName.equals(EpicConstants.CATEGORY_REPORT_GROUPER6)) {
-                List<String> list = objectMapper.convertValue(
-                        result.get(attrName), new TypeReference<List<String>>() {
-                        });
-                responseMap.put(attrName, list);
-            } else if (attrName.contains(EpicConstants.PROVIDER)) {
-                List<Map<String, Object>> providerValue = objectMapper.convertValue(result.get(EpicConstants.PROVIDER_ID),
-                        new TypeReference<List<Map<String, Object>>>() {
-                        });
-                if (providerValue != null && providerValue.size() > 0) {
-                    Map<String, Object> providerMap = providerValue.stream()
-                            .filter(record -> record.get(EpicConstants.TYPE).equals(EpicConstants.USER_ID_TYPE_VALUE))
-                            .findAny()
-                            .orElse(null);
-                    if (providerMap != null) {
-                        responseMap.put(attrName, providerMap.get(EpicConstants.ID));
-                    }
-                }
-            } else if (attrName.equals(EpicConstants.STATUS_FIELD)) {
-                responseMap.put(attrName, result.get(attrName));
-            } else if (attrName.equals(EpicConstants.USER_ID_FIELD) && uidMap.get(EpicConstants.USER_ID_FIELD) != null
-                    && !uidMap.get(EpicConstants.USER_ID_FIELD).isEmpty()) {
-                responseMap.put(attrName, uidMap.get(EpicConstants.USER_ID_FIELD));
-            } else {
-                Object value = result.get(attrName);
-                if (value != null && !value.toString().isEmpty()) {
+        putIfNotEmpty(responseMap, EpicConstants.USER_ID_FIELD, user.externalUserId());
+        putIfNotEmpty(responseMap, EpicConstants.DEFAULT_TEMPLATE_ID, user.defaultTemplateExternalId());
+        putIfNotEmpty(responseMap, EpicConstants.EPIC_ATTR_DEFAULT_LOGIN_DEPT_ID, EpicViewUser.externalId(user.defaultLoginDepartmentId()));
+        putIfNotEmpty(responseMap, EpicConstants.EPIC_ATTR_PRIMARY_MANAGER, EpicViewUser.externalId(user.primaryManager()));
+        putIfNotEmpty(responseMap, EpicConstants.PROVIDER, EpicViewUser.externalId(user.linkedProviderId()));
+        responseMap.put(EpicConstants.USERS_MANAGERS, externalIds(user.usersManagers()));
+        responseMap.put(EpicConstants.EPIC_ATTR_USER_SUBTEMPLATE_IDS, externalIds(user.userSubtemplateIds()));
+        responseMap.put(EpicConstants.INBASKET_CLASSIFICATION, user.inBasketClassifications());
+        responseMap.put(EpicConstants.CATEGORY_REPORT_GROUPER6, user.categoryReportGrouper6());
+        responseMap.put(EpicConstants.GROUP, userGroups);
+        responseMap.put(EpicConstants.STATUS_FIELD, user.isActive());
+        if (user.blockStatus() != null) {
+            responseMap.put("BlockStatus", user.blockStatus());
+        }
+        if (user.userComplexName() != null) {
+            user.userComplexName().putInto(responseMap);
+        }
+        putIfNotEmpty(responseMap, "Name", user.name());
+        putIfNotEmpty(responseMap, "Status", user.status());
+        putIfNotEmpty(responseMap, "Sex", user.sex());
+        putIfNotEmpty(responseMap, "StartDate", user.startDate());
+        putIfNotEmpty(responseMap, "EndDate", user.endDate());
+        putIfNotEmpty(responseMap, EpicConstants.CONTACTDATE, user.contactDate());
+        putIfNotEmpty(responseMap, "ContactComment", user.contactComment());
+        putIfNotEmpty(responseMap, "LDAPOverrideID", user.ldapOverrideId());
+        putIfNotEmpty(responseMap, "SystemLoginID", user.systemLoginId());
+        putIfNotEmpty(responseMap, "UserAlias", user.userAlias());
+        putIfNotEmpty(responseMap, "UserPhotoPath", user.userPhotoPath());
+        putIfNotEmpty(responseMap, "ReportGrouper1", user.reportGrouper1());
+        putIfNotEmpty(responseMap, "ReportGrouper2", user.reportGrouper2());
+        putIfNotEmpty(responseMap, "ReportGrouper3", user.reportGrouper3());
+        putIfNotEmpty(responseMap, "AuditUserID", user.auditUserId());
+        putIfNotEmpty(responseMap, "AuditUserIDType", user.auditUserIdType());
+        if (user.notes() != null && !user.notes().isNull() && !(user.notes().isTextual() && user.notes().asText().isEmpty())) {
+            responseMap.put("Notes", user.notes());
+        }
+        return responseMap;
+    }
 
-                    if (EpicConstants.BOOLEAN_ATTR_SET.contains(attrName)) {
-                        responseMap.put(attrName, Boolean.valueOf(value.toString()));
-                    } else {
-                        responseMap.put(attrName, result.get(attrName));
-                    }
+    /**
+     * Collect the External identifier values of records, skipping records without one.
+     *
+     * @param records Records to collect the identifiers from, may be null.
+     * @return ids External identifier values
+     */
+    private List<String> externalIds(List<EpicIdentifiers> records) {
+        List<String> idsList = new ArrayList<>();
+        if (records != null) {
+            records.forEach(record -> {
+                String id = record.externalId();
+                if (id != null) {
+                    idsList.add(id);
                 }
-            }
+            });
+        }
+        return idsList;
+    }
+
+    /**
+     * Add a value to the response map when it is set and not empty.
+     *
+     * @param responseMap Map the value is added to.
+     * @param attrName    Attribute name.
+     * @param value       Attribute value.
+     */
+    private void putIfNotEmpty(Map<String, Object> responseMap, String attrName, String value) {
+        if (value != null && !value.isEmpty()) {
+            responseMap.put(attrName, value);
         }
-        return responseMap;
     }
 
     /**
@@ -0,0 +1,18 @@
+package com.clearskye.epicconnector.snapshot;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Stored version of an enriched Epic user, as written to the snapshot log.
+ *
+ * @param userId    External id of the user, null on the marker of the last tombstone purged.
+ * @param sequence  Position of the version in the snapshot log, increasing with every write.
+ * @param updatedAt Time the version was stored, in epoch milliseconds.
+ * @param hash      SHA-256 of the canonical JSON of the user, null when the user was removed.
+ * @param user      The enriched user as returned by getUser, null when the user was removed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EpicUserSnapshot(String userId, long sequence, long updatedAt, String hash, Map<String, Object> user) {
+}
@@ -0,0 +1,564 @@
+package com.clearskye.epicconnector.snapshot;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * File-backed snapshot of the enriched Epic users, keyed by UserID.
+ *
+ * <p>Every version is appended as one JSON line to {@code epic.snapshot.path} and the latest version of each user
+ * is kept in a sorted in-memory index, so reads never touch the disk or Epic. A version whose content hash matches
+ * the stored one is not written again. Removed users are kept as tombstones, so the latest versions can also be
+ * read in sequence order to get the changes since a watermark. The log is replayed on startup and compacted to the
+ * latest versions whenever it holds more than {@code epic.snapshot.compactRatio} times as many lines.</p>
+ *
+ * <p>A user read from Epic is stored with the sequence current when the read started, and is dropped if the user
+ * was stored or removed since, so a read that raced a deletion does not bring the user back.</p>
+ *
+ * <p>Compaction drops the tombstones older than {@code epic.snapshot.tombstoneRetention} and records the last one
+ * dropped as a purge marker, the first line of the log. A watermark before the marker may have missed removals, so
+ * its reader has to read all users again.</p>
+ *
+ * <p>Writes only update the indexes and queue the version, at most {@code epic.snapshot.queueSize} of them; a single
+ * background thread appends the queued versions in batches with one flush each, and compacts the log from the
+ * indexes without holding up writers. Writes never wait for the queue: a version that finds it full is left to the
+ * next compaction, which rebuilds the log from the indexes. The log writer never takes this store, only the lock of
+ * the tombstones. A version is readable as soon as it is stored, and on disk shortly after.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class EpicUserSnapshotStore {
+    /**
+     * Logger instance for logging EpicUserSnapshotStore events.
+     */
+    private static final Logger logger = LogManager.getLogger(EpicUserSnapshotStore.class);
+    /**
+     * Object Mapper of the snapshot log lines.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Object Mapper writing the users hashed, with the map keys sorted so equal content hashes equally.
+     */
+    private static final ObjectMapper hashMapper = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+    /**
+     * Environment to access environment-specific properties.
+     */
+    private final Environment environment;
+    /**
+     * Latest version of every stored user, sorted by UserID.
+     */
+    private final ConcurrentSkipListMap<String, EpicUserSnapshot> snapshots = new ConcurrentSkipListMap<>();
+    /**
+     * Tombstone of every removed user not stored again, by UserID.
+     */
+    private final Map<String, EpicUserSnapshot> tombstones = new ConcurrentHashMap<>();
+    /**
+     * Lock of the tombstones, taken by writers indexing a version and by the log writer purging them.
+     */
+    private final Object tombstoneLock = new Object();
+    /**
+     * Latest version of every stored or removed user, sorted by sequence.
+     */
+    private final ConcurrentSkipListMap<Long, EpicUserSnapshot> changes = new ConcurrentSkipListMap<>();
+    /**
+     * Marker of the last tombstone purged, with its sequence and time and no user, null if none was purged.
+     */
+    private volatile EpicUserSnapshot purged;
+    /**
+     * The snapshot log.
+     */
+    private Path path;
+    /**
+     * Versions stored but not written to the log yet, in sequence order.
+     */
+    private BlockingQueue<EpicUserSnapshot> pending;
+    /**
+     * Writer appending to the snapshot log, only used by the log writer thread once open.
+     */
+    private BufferedWriter writer;
+    /**
+     * Thread appending the pending versions to the log.
+     */
+    private Thread logWriter;
+    /**
+     * Whether the log misses stored versions, so the log writer compacts it from the indexes.
+     */
+    private volatile boolean logBehind;
+    /**
+     * Sequence of the last version written, guarded by this store.
+     */
+    private long sequence;
+    /**
+     * Number of lines in the snapshot log, only used by the log writer thread once open.
+     */
+    private long logLines;
+    /**
+     * Compact once the log holds this many times the live users.
+     */
+    private int compactRatio;
+    /**
+     * Milliseconds a tombstone is kept for at least, 0 to keep them forever.
+     */
+    private long tombstoneRetention;
+
+    /**
+     * Replay the snapshot log, open it for appending and start the log writer.
+     *
+     * @throws IOException Exception during reading or compacting the log.
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        path = Path.of(environment.getProperty(EpicConstants.SNAPSHOT_PATH, EpicConstants.DEFAULT_SNAPSHOT_PATH));
+        compactRatio = environment.getProperty(EpicConstants.SNAPSHOT_COMPACT_RATIO, Integer.class, EpicConstants.DEFAULT_SNAPSHOT_COMPACT_RATIO);
+        tombstoneRetention = environment.getProperty(EpicConstants.SNAPSHOT_TOMBSTONE_RETENTION, Long.class, EpicConstants.DEFAULT_SNAPSHOT_TOMBSTONE_RETENTION);
+        pending = new ArrayBlockingQueue<>(environment.getProperty(EpicConstants.SNAPSHOT_QUEUE_SIZE, Integer.class, EpicConstants.DEFAULT_SNAPSHOT_QUEUE_SIZE));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        if (Files.exists(path)) {
+            replay();
+        }
+        compact();
+        logWriter = new Thread(this::writeLog, "epic-snapshot-writer");
+        logWriter.setDaemon(true);
+        logWriter.start();
+        logger.info(MessageFormat.format("Epic user snapshot opened at {0} with {1} users", path.toAbsolutePath(), snapshots.size()));
+    }
+
+    /**
+     * Write the pending versions and close the snapshot log on shutdown.
+     */
+    @PreDestroy
+    public void close() {
+        if (logWriter == null) {
+            return;
+        }
+        logWriter.interrupt();
+        try {
+            logWriter.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the stored version of a user.
+     *
+     * @param userId External id of the user.
+     * @return snapshot The stored version, empty if the user is not in the snapshot
+     */
+    public Optional<EpicUserSnapshot> get(String userId) {
+        return Optional.ofNullable(snapshots.get(userId));
+    }
+
+    /**
+     * Get a page of stored users in UserID order.
+     *
+     * @param afterUserId UserID the page starts after, null for the first page.
+     * @param pageSize    Maximum number of users of the page.
+     * @return snapshots The stored versions of the page
+     */
+    public List<EpicUserSnapshot> page(String afterUserId, int pageSize) {
+        Map<String, EpicUserSnapshot> tail = afterUserId == null ? snapshots : snapshots.tailMap(afterUserId, false);
+        return tail.values().stream().limit(pageSize).toList();
+    }
+
+    /**
+     * Check whether users follow a UserID.
+     *
+     * @param userId UserID to check after.
+     * @return hasMore True if a stored user sorts after the UserID
+     */
+    public boolean hasAfter(String userId) {
+        return snapshots.higherKey(userId) != null;
+    }
+
+    /**
+     * Number of stored users.
+     *
+     * @return size Number of stored users
+     */
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * Get a page of the latest versions written after a watermark, in sequence order, removals included.
+     *
+     * @param afterSequence Sequence the page starts after, 0 for all versions.
+     * @param pageSize      Maximum number of versions of the page.
+     * @return snapshots The latest versions of the page, with a null user for the removed users
+     */
+    public List<EpicUserSnapshot> changedAfter(long afterSequence, int pageSize) {
+        return changes.tailMap(afterSequence, false).values().stream().limit(pageSize).toList();
+    }
+
+    /**
+     * Check whether versions were written after a sequence.
+     *
+     * @param sequence Sequence to check after.
+     * @return hasMore True if a latest version has a higher sequence
+     */
+    public boolean hasChangedAfter(long sequence) {
+        return changes.higherKey(sequence) != null;
+    }
+
+    /**
+     * Check whether a watermark is older than the last tombstone purged, so removals after it may be missing.
+     *
+     * @param watermark Sequence of the last change read.
+     * @return resync True if the users must be read again from watermark 0
+     */
+    public boolean requiresFullResync(long watermark) {
+        EpicUserSnapshot marker = purged;
+        return marker != null && watermark < marker.sequence();
+    }
+
+    /**
+     * Translate a time into a watermark.
+     *
+     * <p>Versions are stored with increasing times in sequence order, so the latest versions are binary-searched by
+     * sequence, each probe reading the first version at or after the middle sequence.</p>
+     *
+     * @param time Time in epoch milliseconds.
+     * @return sequence Sequence of the last latest version, or purged tombstone, stored at or before the time, 0 if none
+     */
+    public long sequenceAt(long time) {
+        EpicUserSnapshot marker = purged;
+        long sequenceAt = marker != null && marker.updatedAt() <= time ? marker.sequence() : 0;
+        Long last = changes.isEmpty() ? null : changes.lastKey();
+        if (last == null) {
+            return sequenceAt;
+        }
+        long low = sequenceAt + 1;
+        long high = last;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            Map.Entry<Long, EpicUserSnapshot> probe = changes.ceilingEntry(middle);
+            if (probe == null || probe.getKey() > high || probe.getValue().updatedAt() > time) {
+                high = middle - 1;
+            } else {
+                sequenceAt = probe.getKey();
+                low = sequenceAt + 1;
+            }
+        }
+        return sequenceAt;
+    }
+
+    /**
+     * Sequence of the last version written.
+     *
+     * @return sequence The sequence of the last version written, 0 if none
+     */
+    public synchronized long lastSequence() {
+        return sequence;
+    }
+
+    /**
+     * Store the latest version of an enriched user, unless its content is unchanged.
+     *
+     * @param user The enriched user, keyed by its UserID.
+     * @return snapshot The stored version, or null if the user has no UserID or is unchanged
+     */
+    public EpicUserSnapshot put(Map<String, Object> user) {
+        return put(user, Long.MAX_VALUE);
+    }
+
+    /**
+     * Store the latest version of a user read from Epic, unless its content is unchanged or the user was stored or
+     * removed after the read started.
+     *
+     * @param user     The enriched user, keyed by its UserID.
+     * @param readMark {@link #lastSequence()} taken before the user was read from Epic.
+     * @return snapshot The stored version, or null if the user has no UserID, is unchanged or the read is stale
+     */
+    public EpicUserSnapshot put(Map<String, Object> user, long readMark) {
+        Object userId = user.get(EpicConstants.USER_ID_FIELD);
+        if (userId == null) {
+            return null;
+        }
+        String hash = hash(user);
+        synchronized (this) {
+            EpicUserSnapshot stored = snapshots.getOrDefault(userId.toString(), tombstones.get(userId.toString()));
+            if (stored != null && stored.sequence() > readMark) {
+                logger.info(MessageFormat.format("Epic user snapshot drops the read of {0} older than sequence {1}", userId, stored.sequence()));
+                return null;
+            }
+            if (stored != null && hash.equals(stored.hash())) {
+                return null;
+            }
+            EpicUserSnapshot snapshot = new EpicUserSnapshot(userId.toString(), ++sequence, System.currentTimeMillis(), hash, user);
+            index(snapshot);
+            enqueue(snapshot);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Remove a user from the snapshot.
+     *
+     * @param userId External id of the user.
+     */
+    public synchronized void remove(String userId) {
+        if (snapshots.containsKey(userId)) {
+            EpicUserSnapshot tombstone = new EpicUserSnapshot(userId, ++sequence, System.currentTimeMillis(), null, null);
+            index(tombstone);
+            enqueue(tombstone);
+        }
+    }
+
+    /**
+     * Hash the content of a user.
+     *
+     * @param user The enriched user.
+     * @return hash Hex SHA-256 of the canonical JSON of the user
+     */
+    private String hash(Map<String, Object> user) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(hashMapper.writeValueAsBytes(user)));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(MessageFormat.format("Epic user snapshot hash failed for {0}", user.get(EpicConstants.USER_ID_FIELD)), ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Remove the users a full enumeration did not return, unless they were stored since it started.
+     *
+     * @param seenUserIds UserIDs returned by the enumeration.
+     * @param startedAt   Time the enumeration started, in epoch milliseconds.
+     * @return removed Number of users removed
+     */
+    public synchronized int retainSeen(Set<String> seenUserIds, long startedAt) {
+        List<String> unseen = snapshots.values().stream()
+                .filter(snapshot -> snapshot.updatedAt() < startedAt && !seenUserIds.contains(snapshot.userId()))
+                .map(EpicUserSnapshot::userId)
+                .toList();
+        unseen.forEach(this::remove);
+        return unseen.size();
+    }
+
+    /**
+     * Make a version the latest one of its user in the indexes.
+     *
+     * @param snapshot Version to index, a tombstone when the user is null.
+     */
+    private void index(EpicUserSnapshot snapshot) {
+        changes.put(snapshot.sequence(), snapshot);
+        EpicUserSnapshot previous = snapshot.user() == null
+                ? snapshots.remove(snapshot.userId())
+                : snapshots.put(snapshot.userId(), snapshot);
+        EpicUserSnapshot previousTombstone;
+        synchronized (tombstoneLock) {
+            previousTombstone = snapshot.user() == null
+                    ? tombstones.put(snapshot.userId(), snapshot)
+                    : tombstones.remove(snapshot.userId());
+            if (previousTombstone != null) {
+                changes.remove(previousTombstone.sequence(), previousTombstone);
+            }
+        }
+        if (previous != null) {
+            changes.remove(previous.sequence(), previous);
+        }
+    }
+
+    /**
+     * Queue a version for the log writer without waiting; the indexes must already hold the version. If the queue is
+     * full the log is left behind, so the log writer rebuilds it from the indexes.
+     *
+     * <p>Called while holding this store, so versions are queued in sequence order.</p>
+     *
+     * @param snapshot Version to write.
+     */
+    private void enqueue(EpicUserSnapshot snapshot) {
+        if (!pending.offer(snapshot)) {
+            logBehind = true;
+        }
+    }
+
+    /**
+     * Append the pending versions to the log in batches until the store is closed, then write the remaining ones.
+     */
+    private void writeLog() {
+        List<EpicUserSnapshot> batch = new ArrayList<>(EpicConstants.SNAPSHOT_WRITE_BATCH);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                EpicUserSnapshot snapshot = pending.poll(1, TimeUnit.SECONDS);
+                if (snapshot != null || logBehind) {
+                    if (snapshot != null) {
+                        batch.add(snapshot);
+                        pending.drainTo(batch, EpicConstants.SNAPSHOT_WRITE_BATCH - 1);
+                    }
+                    write(batch);
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        pending.drainTo(batch);
+        write(batch);
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            logger.error(MessageFormat.format("Epic user snapshot close failed :  {0}", ex.getMessage()));
+        }
+    }
+
+    /**
+     * Append a batch of versions to the log with one flush, compacting the log once it grew too large or misses
+     * versions. A failed write leaves the log behind, to be rebuilt from the indexes by the next batch.
+     *
+     * @param batch Versions to append, in sequence order.
+     */
+    private void write(List<EpicUserSnapshot> batch) {
+        try {
+            if (!logBehind) {
+                for (EpicUserSnapshot snapshot : batch) {
+                    writer.write(objectMapper.writeValueAsString(snapshot));
+                    writer.newLine();
+                }
+                writer.flush();
+                logLines += batch.size();
+            }
+            if (logBehind || logLines > (long) compactRatio * Math.max(changes.size(), EpicConstants.SNAPSHOT_MIN_COMPACT_LINES)) {
+                logBehind = false;
+                compact();
+            }
+        } catch (IOException ex) {
+            logBehind = true;
+            logger.error(MessageFormat.format("Epic user snapshot write failed at {0}, because of the exception : {1}", path, ex.getMessage()));
+        }
+    }
+
+    /**
+     * Replay the log into the index; a line cut short by a crash ends the replay, and a version older than the one
+     * already replayed for its user, written again after a compaction, is skipped. A line without UserID is the
+     * purge marker.
+     *
+     * @throws IOException Exception during reading the log.
+     */
+    private void replay() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                EpicUserSnapshot snapshot;
+                try {
+                    snapshot = objectMapper.readValue(line, EpicUserSnapshot.class);
+                } catch (JsonProcessingException ex) {
+                    logger.warn(MessageFormat.format("Epic user snapshot ignores unreadable line after sequence {0}", sequence));
+                    break;
+                }
+                sequence = Math.max(sequence, snapshot.sequence());
+                if (snapshot.userId() == null) {
+                    if (purged == null || purged.sequence() < snapshot.sequence()) {
+                        purged = snapshot;
+                    }
+                    continue;
+                }
+                EpicUserSnapshot current = snapshots.getOrDefault(snapshot.userId(), tombstones.get(snapshot.userId()));
+                if (current == null || current.sequence() < snapshot.sequence()) {
+                    index(snapshot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the log with the purge marker and the latest versions, in sequence order, and swap it in atomically.
+     *
+     * <p>Reads the indexes without holding this store, once the expired tombstones are purged. A version stored
+     * meanwhile may or may not be in the rewritten log, but it is queued and appended after it, so the log never
+     * misses one.</p>
+     *
+     * @throws IOException Exception during writing the log.
+     */
+    private void compact() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        purgeTombstones();
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        long lines = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            EpicUserSnapshot marker = purged;
+            if (marker != null) {
+                out.write(objectMapper.writeValueAsString(marker));
+                out.newLine();
+                lines++;
+            }
+            for (EpicUserSnapshot snapshot : changes.values()) {
+                out.write(objectMapper.writeValueAsString(snapshot));
+                out.newLine();
+                lines++;
+            }
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logLines = lines;
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Drop the tombstones older than the retention and move the purge marker to the last one dropped.
+     *
+     * <p>Runs on the log writer under the lock of the tombstones only, never this store, so it cannot wait on a
+     * writer.</p>
+     */
+    private void purgeTombstones() {
+        if (tombstoneRetention <= 0) {
+            return;
+        }
+        long horizon = System.currentTimeMillis() - tombstoneRetention;
+        synchronized (tombstoneLock) {
+            EpicUserSnapshot marker = purged;
+            for (EpicUserSnapshot tombstone : List.copyOf(tombstones.values())) {
+                if (tombstone.updatedAt() < horizon && tombstones.remove(tombstone.userId(), tombstone)) {
+                    changes.remove(tombstone.sequence(), tombstone);
+                    if (marker == null || marker.sequence() < tombstone.sequence()) {
+                        marker = new EpicUserSnapshot(null, tombstone.sequence(), tombstone.updatedAt(), null, null);
+                    }
+                }
+            }
+            purged = marker;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.clearskye.epicconnector.soap;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Pre-rendered SOAP GetRecords envelope.
+ *
+ * <p>The envelope head, with the WS-Security header and the Epic credentials, and its tail are rendered once at
+ * startup; a request only writes the escaped search criteria and search context between them.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class EpicGetRecordsEnvelope {
+    /**
+     * Environment to access environment-specific properties.
+     */
+    private final Environment environment;
+    /**
+     * Envelope up to the INI of the search criteria.
+     */
+    private byte[] head;
+    /**
+     * Envelope from the UserID to the end.
+     */
+    private byte[] tail;
+
+    /**
+     * Render the constant parts of the envelope.
+     */
+    @PostConstruct
+    public void render() {
+        String username = environment.getProperty(EpicConstants.CONFIG_USERNAME);
+        String password = environment.getProperty(EpicConstants.CONFIG_PASSWORD, EpicConstants.EMPTY_STRING)
+                .replace(EpicConstants.AMP_CHAR_REF, EpicConstants.AMPERSAND);
+        head = ("<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\" "
+                + EpicConstants.XMLNS_URN + "=\"" + EpicConstants.SOAP_URN_VALUE + "\">"
+                + "<SOAP-ENV:Header>"
+                + "<wsse:" + EpicConstants.SECURITY + " xmlns:" + EpicConstants.WSSE + "=\"" + EpicConstants.SECURITY_URN + "\" "
+                + EpicConstants.XMLNS_WSU + "=\"" + EpicConstants.XMLNS_WSU_URN + "\">"
+                + "<wsse:" + EpicConstants.USERNAME_TOKEN + " " + EpicConstants.WSU_ID + "=\"" + EpicConstants.USERNAME_TOKEN_ID + "\">"
+                + element("wsse:" + EpicConstants.USERNAME, EpicConstants.EMP_COLON + escape(username))
+                + "<wsse:" + EpicConstants.PASSWORD + " " + EpicConstants.TYPE + "=\"" + EpicConstants.TYPE_PASSWORD_URN + "\">"
+                + escape(password) + "</wsse:" + EpicConstants.PASSWORD + ">"
+                + "<wsse:" + EpicConstants.NONCE + " " + EpicConstants.ENCODING_TYPE + "=\"" + EpicConstants.ENCODING_TYPE_URN + "\">"
+                + EpicConstants.TEXT_NODE_IQ + "</wsse:" + EpicConstants.NONCE + ">"
+                + "</wsse:" + EpicConstants.USERNAME_TOKEN + "></wsse:" + EpicConstants.SECURITY + ">"
+                + "</SOAP-ENV:Header>"
+                + "<SOAP-ENV:Body>"
+                + "<" + EpicConstants.GET_RECORDS + " xmlns=\"" + EpicConstants.GET_RECORDS_URN + "\" "
+                + EpicConstants.XSI + "=\"" + EpicConstants.XSI_URN + "\">"
+                + "<" + EpicConstants.SEARCH_CRITERIA + "><" + EpicConstants.INI + ">").getBytes(StandardCharsets.UTF_8);
+        tail = (element(EpicConstants.USER_ID_FIELD, escape(username))
+                + "</" + EpicConstants.GET_RECORDS + ">"
+                + "</SOAP-ENV:Body>"
+                + "</SOAP-ENV:Envelope>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fill the envelope for one GetRecords request.
+     *
+     * @param type          INI of the records to get.
+     * @param searchString  Search string of the criteria.
+     * @param maxRecords    Maximum number of records per fetch.
+     * @param searchContext Search context of the page to resume from, may be null or empty.
+     * @return envelope The envelope as UTF-8 bytes
+     */
+    public byte[] fill(String type, String searchString, String maxRecords, Map<String, String> searchContext) {
+        StringBuilder criteria = new StringBuilder(256)
+                .append(escape(type)).append("</").append(EpicConstants.INI).append('>')
+                .append(element(EpicConstants.SEARCH_STRING, escape(searchString)))
+                .append(element(EpicConstants.RECORDSTATE, EpicConstants.ACTIVE))
+                .append(element(EpicConstants.SKIPENROL, EpicConstants.FALSE))
+                .append(element(EpicConstants.SOUNDS_LIKE_MODE, EpicConstants.USE_IF_NEEDED))
+                .append(element(EpicConstants.MAX_REC_PER_FETCH, escape(maxRecords)))
+                .append("</").append(EpicConstants.SEARCH_CRITERIA).append('>');
+        if (searchContext != null && !searchContext.isEmpty()) {
+            criteria.append('<').append(EpicConstants.SEARCH_CONTEXT).append('>')
+                    .append(element(EpicConstants.IDENTIFIER, escape(searchContext.get(EpicConstants.IDENTIFIER))))
+                    .append(element(EpicConstants.RESUME_INFO, escape(searchContext.get(EpicConstants.RESUME_INFO))))
+                    .append(element(EpicConstants.CRITERIA_HASH, escape(searchContext.get(EpicConstants.CRITERIA_HASH))))
+                    .append("</").append(EpicConstants.SEARCH_CONTEXT).append('>');
+        }
+        byte[] middle = criteria.toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream envelope = new ByteArrayOutputStream(head.length + middle.length + tail.length);
+        envelope.writeBytes(head);
+        envelope.writeBytes(middle);
+        envelope.writeBytes(tail);
+        return envelope.toByteArray();
+    }
+
+    /**
+     * Render an element with text content.
+     *
+     * @param name Qualified name of the element.
+     * @param text Escaped text content.
+     * @return element The rendered element
+     */
+    private static String element(String name, String text) {
+        return "<" + name + ">" + text + "</" + name + ">";
+    }
+
+    /**
+     * Escape text content for XML.
+     *
+     * @param text Text to escape, may be null.
+     * @return escaped The escaped text, empty for null
+     */
+    private static String escape(String text) {
+        if (text == null) {
+            return EpicConstants.EMPTY_STRING;
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String entity = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (entity != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (entity != null) {
+                    escaped.append(entity);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+}
@@ -0,0 +1,279 @@
+package com.clearskye.epicconnector.soap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+
+import com.clearskye.epicconnector.exception.CustomCommonException;
+import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Single pass StAX parser of the SOAP GetRecords response.
+ *
+ * <p>Produces the same map the DOM walk did: the records under {@code recordList} and the
+ * {@code SearchStateContext} for the next page, without building the document in memory.</p>
+ */
+public final class EpicGetRecordsParser {
+    /**
+     * Factory of the stream readers, with DTDs and external entities disabled.
+     */
+    private static final XMLInputFactory inputFactory = createInputFactory();
+    /**
+     * SOAP fault element.
+     */
+    private static final String FAULT = "Fault";
+    /**
+     * SOAP 1.1 fault code element.
+     */
+    private static final String FAULT_CODE = "faultcode";
+    /**
+     * SOAP 1.1 fault string element.
+     */
+    private static final String FAULT_STRING = "faultstring";
+    /**
+     * Fault code of a failed authentication.
+     */
+    private static final String FAILED_AUTHENTICATION = "fns:FailedAuthentication";
+
+    /**
+     * Utility class.
+     */
+    private EpicGetRecordsParser() {
+    }
+
+    /**
+     * Parse a GetRecords response.
+     *
+     * @param source The response envelope.
+     * @return responseMap Records and search context of the response
+     * @throws XMLStreamException               Exception during reading the response.
+     * @throws CustomInvalidCredentialException If Epic refused the credentials.
+     * @throws CustomCommonException            If Epic returned any other fault.
+     */
+    public static Map<String, Object> parse(Source source) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(source);
+        try {
+            Map<String, Object> responseMap = new HashMap<>();
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                if (FAULT.equals(reader.getLocalName())) {
+                    readFault(reader);
+                } else if (EpicConstants.GET_RECORDS_RESPONSE.equals(reader.getLocalName())) {
+                    readResponse(reader, responseMap);
+                    break;
+                }
+            }
+            return responseMap;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read the records and the search context of the GetRecordsResponse element.
+     *
+     * @param reader      Reader positioned on the GetRecordsResponse start element.
+     * @param responseMap Map the records and search context are added to.
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static void readResponse(XMLStreamReader reader, Map<String, Object> responseMap) throws XMLStreamException {
+        List<Map<String, Object>> recordList = new ArrayList<>();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (EpicConstants.RESULT_RECORD_TAG.equals(name)) {
+                    Map<String, Object> recordMap = readRecord(reader);
+                    if (!recordMap.isEmpty()) {
+                        recordList.add(recordMap);
+                    }
+                } else if (EpicConstants.SEARCH_CONTEXT.equals(name) && !responseMap.containsKey(EpicConstants.SEARCH_CONTEXT)) {
+                    responseMap.put(EpicConstants.SEARCH_CONTEXT, readSearchContext(reader));
+                } else {
+                    depth++;
+                }
+            }
+        }
+        if (!recordList.isEmpty()) {
+            responseMap.put(EpicConstants.RECORDLIST, recordList);
+        }
+    }
+
+    /**
+     * Read one ResultRecord: its child elements by name, and its AdditionalFields by title.
+     *
+     * @param reader Reader positioned on the ResultRecord start element.
+     * @return recordMap Fields of the record
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static Map<String, Object> readRecord(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, Object> recordMap = new HashMap<>();
+        while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (EpicConstants.ADD_FIELDS_TAG.equals(name)) {
+                readAdditionalFields(reader, recordMap);
+            } else {
+                recordMap.put(name, readText(reader).trim());
+            }
+        }
+        return recordMap;
+    }
+
+    /**
+     * Read the Field elements of AdditionalFields into the record.
+     *
+     * @param reader    Reader positioned on the AdditionalFields start element.
+     * @param recordMap Fields of the record.
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static void readAdditionalFields(XMLStreamReader reader, Map<String, Object> recordMap) throws XMLStreamException {
+        while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+            if (!EpicConstants.XML_FIELD_TAG.equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+            String key = null;
+            String value = null;
+            while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (EpicConstants.XML_FIELDS_KEY.equals(name) && key == null) {
+                    key = readText(reader);
+                } else if (EpicConstants.XML_FIELDS_VALUE.equals(name) && value == null) {
+                    value = readText(reader);
+                } else {
+                    skipElement(reader);
+                }
+            }
+            if (key != null) {
+                recordMap.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Read the SearchStateContext needed to fetch the next page.
+     *
+     * @param reader Reader positioned on the SearchStateContext start element.
+     * @return pageMap Identifier, ResumeInfo and CriteriaHash of the search
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static Map<String, Object> readSearchContext(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, Object> pageMap = new HashMap<>();
+        while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (EpicConstants.IDENTIFIER.equals(name) || EpicConstants.RESUME_INFO.equals(name)
+                    || EpicConstants.CRITERIA_HASH.equals(name)) {
+                pageMap.putIfAbsent(name, readText(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+        return pageMap;
+    }
+
+    /**
+     * Read a SOAP fault and throw it as the matching exception.
+     *
+     * @param reader Reader positioned on the Fault start element.
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static void readFault(XMLStreamReader reader) throws XMLStreamException {
+        String faultCode = null;
+        String faultString = null;
+        while (nextElement(reader) == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if (FAULT_CODE.equals(name)) {
+                faultCode = readText(reader).trim();
+            } else if (FAULT_STRING.equals(name)) {
+                faultString = readText(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        if (FAILED_AUTHENTICATION.equals(faultCode)) {
+            throw new CustomInvalidCredentialException(faultString);
+        }
+        throw new CustomCommonException(faultString);
+    }
+
+    /**
+     * Read the text content of an element, including the text of nested elements.
+     *
+     * @param reader Reader positioned on the start element, left on its end element.
+     * @return text Text content of the element
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                default -> {
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Skip an element and everything in it.
+     *
+     * @param reader Reader positioned on the start element, left on its end element.
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Move to the next start or end element, ignoring text and comments between child elements.
+     *
+     * @param reader Reader positioned inside an element.
+     * @return event START_ELEMENT or END_ELEMENT
+     * @throws XMLStreamException Exception during reading the response.
+     */
+    private static int nextElement(XMLStreamReader reader) throws XMLStreamException {
+        int event;
+        do {
+            event = reader.next();
+        } while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT);
+        return event;
+    }
+
+    /**
+     * Create the factory of the stream readers.
+     *
+     * @return inputFactory Factory with DTDs and external entities disabled
+     */
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
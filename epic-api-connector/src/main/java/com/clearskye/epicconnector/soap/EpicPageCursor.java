@@ -0,0 +1,43 @@
+package com.clearskye.epicconnector.soap;
+
+import java.util.List;
+import java.util.Map;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Cursor over the pages of records of an Epic enumeration.
+ */
+public interface EpicPageCursor extends AutoCloseable {
+
+    /**
+     * Get the next page, waiting for it if it is still being fetched.
+     *
+     * @return page The next page, or null at the end of the enumeration
+     * @throws Exception Exception during fetching the page.
+     */
+    Page nextPage() throws Exception;
+
+    /**
+     * Stop fetching and drop the pages not read yet.
+     */
+    @Override
+    void close();
+
+    /**
+     * One page of records.
+     *
+     * @param records       Records of the page.
+     * @param searchContext Search context returned with the page, null on the last one.
+     */
+    record Page(List<Map<String, Object>> records, Map<String, Object> searchContext) {
+        /**
+         * External ids of the records of the page.
+         *
+         * @return userIds External ids, in page order
+         */
+        public List<String> recordIds() {
+            return records.stream().map(record -> (String) record.get(EpicConstants.XML_RECORD_ID)).toList();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.clearskye.epicconnector.soap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Cursor merging the pages of several independent searches run concurrently.
+ *
+ * <p>Each partition of the search space, such as a search string prefix, is enumerated by its own
+ * {@link EpicRecordCursor}; at most {@code parallelism} partitions run at a time and their pages are handed out as
+ * they arrive. A record found by more than one partition is only returned the first time, so the pages carry no
+ * search context and the ids already returned are kept for the whole enumeration: unlike the pages, that set grows
+ * with the number of records enumerated.</p>
+ */
+public final class EpicPartitionedCursor implements EpicPageCursor {
+    /**
+     * Opens the cursor of one partition.
+     */
+    private final Function<String, EpicPageCursor> opener;
+    /**
+     * Partitions of the search space.
+     */
+    private final List<String> partitions;
+    /**
+     * Index of the next partition to enumerate.
+     */
+    private final AtomicInteger nextPartition = new AtomicInteger();
+    /**
+     * Ids of the records already returned.
+     */
+    private final Set<String> seenIds = ConcurrentHashMap.newKeySet();
+    /**
+     * Pages of all partitions, not read yet.
+     */
+    private final BlockingQueue<Entry> queue;
+    /**
+     * Tasks enumerating the partitions.
+     */
+    private final List<Future<?>> workers = new ArrayList<>();
+    /**
+     * Number of tasks still enumerating.
+     */
+    private int runningWorkers;
+    /**
+     * Whether the caller has seen the end of the enumeration.
+     */
+    private boolean exhausted;
+    /**
+     * Whether the cursor was closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * A page of a partition, the failure of a partition, or the end of a task when both are null.
+     *
+     * @param page    The fetched page.
+     * @param failure The failure of the partition.
+     */
+    private record Entry(Page page, Exception failure) {
+    }
+
+    /**
+     * Open the cursor and start enumerating the partitions.
+     *
+     * @param partitions  Partitions of the search space, such as search string prefixes.
+     * @param opener      Opens the cursor of one partition.
+     * @param parallelism Maximum number of partitions enumerated at a time.
+     * @param executor    Executor running the partitions.
+     */
+    public EpicPartitionedCursor(List<String> partitions, Function<String, EpicPageCursor> opener, int parallelism,
+            ExecutorService executor) {
+        this.partitions = List.copyOf(partitions);
+        this.opener = opener;
+        this.runningWorkers = Math.max(1, Math.min(parallelism, this.partitions.size()));
+        this.queue = new ArrayBlockingQueue<>(runningWorkers);
+        for (int worker = 0; worker < runningWorkers; worker++) {
+            workers.add(executor.submit(this::enumerate));
+        }
+    }
+
+    @Override
+    public Page nextPage() throws Exception {
+        while (!exhausted && !closed) {
+            Entry entry = queue.take();
+            if (entry.failure() != null) {
+                exhausted = true;
+                close();
+                throw entry.failure();
+            }
+            if (entry.page() != null) {
+                return entry.page();
+            }
+            exhausted = --runningWorkers == 0;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        workers.forEach(worker -> worker.cancel(true));
+        queue.clear();
+    }
+
+    /**
+     * Enumerate partitions until none is left, the cursor is closed or a partition fails.
+     */
+    private void enumerate() {
+        try {
+            int partition;
+            while (!closed && (partition = nextPartition.getAndIncrement()) < partitions.size()) {
+                try (EpicPageCursor cursor = opener.apply(partitions.get(partition))) {
+                    Page page;
+                    while (!closed && (page = cursor.nextPage()) != null) {
+                        List<Map<String, Object>> records = page.records().stream()
+                                .filter(record -> seenIds.add(String.valueOf(record.get(EpicConstants.XML_RECORD_ID))))
+                                .toList();
+                        if (!records.isEmpty()) {
+                            queue.put(new Entry(new Page(records, null), null));
+                        }
+                    }
+                }
+            }
+            queue.put(new Entry(null, null));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            try {
+                queue.put(new Entry(null, ex));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.clearskye.epicconnector.soap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Cursor over the pages of a SOAP GetRecords search.
+ *
+ * <p>With a prefetch depth above zero a background task keeps fetching the following pages with the returned
+ * {@code SearchStateContext} while the caller works on the current one, holding at most that many pages ahead;
+ * with a depth of zero every page is fetched when asked for. The search ends when Epic returns no search context,
+ * or the same one again.</p>
+ */
+public final class EpicRecordCursor implements EpicPageCursor {
+    /**
+     * Queue entry marking the end of the search.
+     */
+    private static final Entry END = new Entry(null, null);
+    /**
+     * Fetches one page for a search context.
+     */
+    private final PageFetcher fetcher;
+    /**
+     * Page size and search context of the next page to fetch.
+     */
+    private final Map<String, Object> searchContextMap;
+    /**
+     * Pages fetched ahead of the caller, null without prefetch.
+     */
+    private final BlockingQueue<Entry> queue;
+    /**
+     * Background task fetching ahead, null without prefetch.
+     */
+    private final Future<?> producer;
+    /**
+     * Whether the last page has been fetched, only touched by the fetching thread.
+     */
+    private boolean fetchedLast;
+    /**
+     * Whether the caller has seen the end of the search.
+     */
+    private boolean exhausted;
+    /**
+     * Whether the cursor was closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Fetches one GetRecords page.
+     */
+    @FunctionalInterface
+    public interface PageFetcher {
+        /**
+         * Fetch the page of a search context.
+         *
+         * @param searchContextMap Page size and search context of the page.
+         * @return response Parsed GetRecords response
+         * @throws Exception Exception during SOAP request.
+         */
+        Map<String, Object> fetch(Map<String, Object> searchContextMap) throws Exception;
+    }
+
+    /**
+     * A fetched page, or the failure that ended the search.
+     *
+     * @param page    The fetched page.
+     * @param failure The failure of the fetch.
+     */
+    private record Entry(Page page, Exception failure) {
+    }
+
+    /**
+     * Open a cursor.
+     *
+     * @param fetcher          Fetches one page for a search context.
+     * @param searchContextMap Page size and search context of the first page.
+     * @param prefetch         Number of pages fetched ahead, 0 to fetch on demand.
+     * @param executor         Executor running the fetch ahead.
+     */
+    public EpicRecordCursor(PageFetcher fetcher, Map<String, Object> searchContextMap, int prefetch, ExecutorService executor) {
+        this.fetcher = fetcher;
+        this.searchContextMap = new HashMap<>(searchContextMap);
+        if (prefetch > 0) {
+            this.queue = new ArrayBlockingQueue<>(prefetch);
+            this.producer = executor.submit(this::produce);
+        } else {
+            this.queue = null;
+            this.producer = null;
+        }
+    }
+
+    @Override
+    public Page nextPage() throws Exception {
+        if (exhausted || closed) {
+            return null;
+        }
+        if (queue == null) {
+            Page page;
+            try {
+                page = fetchNext();
+            } catch (Exception ex) {
+                exhausted = true;
+                throw ex;
+            }
+            exhausted = page == null;
+            return page;
+        }
+        Entry entry = queue.take();
+        if (entry == END) {
+            exhausted = true;
+            return null;
+        }
+        if (entry.failure() != null) {
+            exhausted = true;
+            throw entry.failure();
+        }
+        return entry.page();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (producer != null) {
+            producer.cancel(true);
+            queue.clear();
+        }
+    }
+
+    /**
+     * Fetch the next page and move the search context forward.
+     *
+     * @return page The fetched page, or null once the last page was fetched
+     * @throws Exception Exception during SOAP request.
+     */
+    @SuppressWarnings("unchecked")
+    private Page fetchNext() throws Exception {
+        if (fetchedLast) {
+            return null;
+        }
+        Map<String, Object> response = fetcher.fetch(searchContextMap);
+        Map<String, Object> searchContext = (Map<String, Object>) response.get(EpicConstants.SEARCH_CONTEXT);
+        if (searchContext == null || searchContext.equals(searchContextMap.get(EpicConstants.SEARCH_CONTEXT))) {
+            fetchedLast = true;
+        } else {
+            searchContextMap.put(EpicConstants.SEARCH_CONTEXT, searchContext);
+        }
+        return new Page((List<Map<String, Object>>) response.getOrDefault(EpicConstants.RECORDLIST, Collections.emptyList()),
+                fetchedLast ? null : searchContext);
+    }
+
+    /**
+     * Fetch pages ahead until the end of the search, a failure or close, blocking while the queue is full.
+     */
+    private void produce() {
+        try {
+            Page page;
+            while (!closed && (page = fetchNext()) != null) {
+                queue.put(new Entry(page, null));
+            }
+            queue.put(END);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            try {
+                queue.put(new Entry(null, ex));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -263,10 +263,6 @@ public final class EpicConstants {
      * Client Id String.
      */
     public static final String EPIC_CLIENT_ID = "Epic-Client-ID";
-    /**
-     * JWT format String.
-     */
-    public static final String FORMAT = "{0}-{1}-{2}-{3}-{4}";
     /**
      * XML Criteria Hash tag.
      */
@@ -460,10 +456,6 @@ public final class EpicConstants {
      * RSA String.
      */
     public static final String RSA = "RSA";
-    /**
-     * UTF SOAP String.
-     */
-    public static final String UTF = "UTF-8";
     /**
      * Epic User Id Key.
      */
@@ -483,9 +475,530 @@ public final class EpicConstants {
      */
     public static final int DEFAULT_MAX_RECORDS = 50;
     /**
-     * Default Maximum Timeout of Connection in seconds.
+     * Config parameter maximum total connections of the Epic REST connection pool.
+     */
+    public static final String HTTP_POOL_MAX_TOTAL = "epic.http.pool.maxTotal";
+    /**
+     * Default maximum total connections of the Epic REST connection pool.
+     */
+    public static final int DEFAULT_HTTP_POOL_MAX_TOTAL = 200;
+    /**
+     * Config parameter maximum connections per route of the Epic REST connection pool.
+     */
+    public static final String HTTP_POOL_MAX_PER_ROUTE = "epic.http.pool.maxPerRoute";
+    /**
+     * Default maximum connections per route of the Epic REST connection pool.
+     */
+    public static final int DEFAULT_HTTP_POOL_MAX_PER_ROUTE = 100;
+    /**
+     * Config parameter keep-alive duration in seconds, used when Epic does not send a Keep-Alive header.
+     */
+    public static final String HTTP_KEEP_ALIVE = "epic.http.pool.keepAlive";
+    /**
+     * Default keep-alive duration in seconds.
+     */
+    public static final int DEFAULT_HTTP_KEEP_ALIVE = 30;
+    /**
+     * Config parameter idle time in seconds after which pooled connections are evicted.
+     */
+    public static final String HTTP_IDLE_EVICTION = "epic.http.pool.idleEviction";
+    /**
+     * Default idle time in seconds after which pooled connections are evicted.
+     */
+    public static final int DEFAULT_HTTP_IDLE_EVICTION = 60;
+    /**
+     * Config parameter total time to live in seconds of a pooled connection.
+     */
+    public static final String HTTP_CONNECTION_TTL = "epic.http.pool.connectionTtl";
+    /**
+     * Default total time to live in seconds of a pooled connection.
+     */
+    public static final int DEFAULT_HTTP_CONNECTION_TTL = 300;
+    /**
+     * Validate pooled connections that were inactive longer than this many milliseconds.
+     */
+    public static final int HTTP_VALIDATE_AFTER_INACTIVITY = 2000;
+    /**
+     * Config parameter seconds before expiry at which the Epic access token is renewed in the background.
+     */
+    public static final String TOKEN_REFRESH_AHEAD = "epic.token.refreshAhead";
+    /**
+     * Default seconds before expiry at which the Epic access token is renewed in the background.
+     */
+    public static final long DEFAULT_TOKEN_REFRESH_AHEAD = 300;
+    /**
+     * Metric name of the Epic client assertion signing timer.
+     */
+    public static final String METRIC_ASSERTION_SIGN = "epic.oauth.assertion.sign";
+    /**
+     * Http context attribute marking requests that must not carry the Epic bearer token.
+     */
+    public static final String SKIP_AUTHORIZATION = "epic.skipAuthorization";
+    /**
+     * Prefix of the per-endpoint policy config parameters, followed by the policy name and the setting.
+     */
+    public static final String POLICY_PREFIX = "epic.policy.";
+    /**
+     * Policy setting for the connect timeout in milliseconds.
+     */
+    public static final String POLICY_CONNECT_TIMEOUT = ".connectTimeout";
+    /**
+     * Policy setting for the socket (read) timeout in milliseconds.
+     */
+    public static final String POLICY_SOCKET_TIMEOUT = ".socketTimeout";
+    /**
+     * Policy setting for the time in milliseconds to wait for a pooled connection.
+     */
+    public static final String POLICY_POOL_TIMEOUT = ".poolTimeout";
+    /**
+     * Policy setting for the maximum number of retries of an idempotent call.
+     */
+    public static final String POLICY_MAX_RETRIES = ".maxRetries";
+    /**
+     * Policy setting for the backoff in milliseconds before the first retry.
+     */
+    public static final String POLICY_INITIAL_BACKOFF = ".initialBackoff";
+    /**
+     * Policy setting for the upper bound in milliseconds of the backoff between retries.
+     */
+    public static final String POLICY_MAX_BACKOFF = ".maxBackoff";
+    /**
+     * Policy setting for the permits per second of the endpoint rate limit, no limit when not positive.
+     */
+    public static final String POLICY_RATE_LIMIT = ".rateLimit";
+    /**
+     * Policy setting for the number of permits the rate limit saves up for a burst.
+     */
+    public static final String POLICY_RATE_BURST = ".rateBurst";
+    /**
+     * Policy setting for the maximum number of callers waiting on the rate limit.
+     */
+    public static final String POLICY_RATE_QUEUE = ".rateQueue";
+    /**
+     * Policy setting for the maximum milliseconds a caller waits on the rate limit.
+     */
+    public static final String POLICY_RATE_MAX_WAIT = ".rateMaxWait";
+    /**
+     * Default connect timeout in milliseconds of an Epic call.
+     */
+    public static final int DEFAULT_POLICY_CONNECT_TIMEOUT = 5000;
+    /**
+     * Default socket timeout in milliseconds of an Epic read.
+     */
+    public static final int DEFAULT_POLICY_READ_SOCKET_TIMEOUT = 15000;
+    /**
+     * Default socket timeout in milliseconds of an Epic write.
+     */
+    public static final int DEFAULT_POLICY_WRITE_SOCKET_TIMEOUT = 30000;
+    /**
+     * Default socket timeout in milliseconds of the SOAP GetRecords call.
+     */
+    public static final int DEFAULT_POLICY_SOAP_SOCKET_TIMEOUT = 60000;
+    /**
+     * Default time in milliseconds to wait for a pooled connection.
+     */
+    public static final int DEFAULT_POLICY_POOL_TIMEOUT = 5000;
+    /**
+     * Default maximum number of retries of an idempotent call.
+     */
+    public static final int DEFAULT_POLICY_MAX_RETRIES = 2;
+    /**
+     * Default backoff in milliseconds before the first retry.
+     */
+    public static final long DEFAULT_POLICY_INITIAL_BACKOFF = 200;
+    /**
+     * Default upper bound in milliseconds of the backoff between retries.
+     */
+    public static final long DEFAULT_POLICY_MAX_BACKOFF = 3000;
+    /**
+     * Default permits per second of an endpoint rate limit.
+     */
+    public static final double DEFAULT_POLICY_RATE_LIMIT = 50;
+    /**
+     * Default maximum number of callers waiting on an endpoint rate limit.
+     */
+    public static final int DEFAULT_POLICY_RATE_QUEUE = 100;
+    /**
+     * Default maximum milliseconds a caller waits on an endpoint rate limit.
+     */
+    public static final long DEFAULT_POLICY_RATE_MAX_WAIT = 5000;
+    /**
+     * Config parameter share of calls that may additionally be spent on retries.
+     */
+    public static final String RETRY_BUDGET_RATIO = "epic.retry.budgetRatio";
+    /**
+     * Default share of calls that may additionally be spent on retries.
+     */
+    public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.2;
+    /**
+     * Config parameter maximum number of retries that can be saved up in the retry budget.
+     */
+    public static final String RETRY_BUDGET_MAX = "epic.retry.budgetMax";
+    /**
+     * Default maximum number of retries that can be saved up in the retry budget.
+     */
+    public static final int DEFAULT_RETRY_BUDGET_MAX = 20;
+    /**
+     * Prefix of the circuit breaker config parameters, followed by the backend name (rest, soap or oauth) and the setting.
+     */
+    public static final String CIRCUIT_PREFIX = "epic.circuit.";
+    /**
+     * Circuit breaker setting for the number of consecutive failures that opens the circuit.
+     */
+    public static final String CIRCUIT_FAILURE_THRESHOLD = ".failureThreshold";
+    /**
+     * Circuit breaker setting for the milliseconds the circuit stays open before probing.
+     */
+    public static final String CIRCUIT_OPEN_DURATION = ".openDuration";
+    /**
+     * Circuit breaker setting for the number of concurrent probe calls while half open.
+     */
+    public static final String CIRCUIT_HALF_OPEN_PROBES = ".halfOpenProbes";
+    /**
+     * Default number of consecutive failures that opens a circuit.
+     */
+    public static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 5;
+    /**
+     * Default milliseconds a circuit stays open before probing.
+     */
+    public static final long DEFAULT_CIRCUIT_OPEN_DURATION = 30000;
+    /**
+     * Default number of concurrent probe calls while half open.
+     */
+    public static final int DEFAULT_CIRCUIT_HALF_OPEN_PROBES = 1;
+    /**
+     * Prefix of the bulkhead config parameters, followed by the bulkhead name (read or write) and the setting.
+     */
+    public static final String BULKHEAD_PREFIX = "epic.bulkhead.";
+    /**
+     * Bulkhead setting for the maximum number of concurrent calls.
+     */
+    public static final String BULKHEAD_MAX_CONCURRENT = ".maxConcurrent";
+    /**
+     * Bulkhead setting for the milliseconds a caller waits for capacity.
+     */
+    public static final String BULKHEAD_MAX_WAIT = ".maxWait";
+    /**
+     * Default maximum number of concurrent Epic reads, such as user enumeration.
+     */
+    public static final int DEFAULT_BULKHEAD_READ_MAX_CONCURRENT = 40;
+    /**
+     * Default maximum number of concurrent Epic writes.
+     */
+    public static final int DEFAULT_BULKHEAD_WRITE_MAX_CONCURRENT = 20;
+    /**
+     * Default milliseconds a caller waits for bulkhead capacity.
+     */
+    public static final long DEFAULT_BULKHEAD_MAX_WAIT = 500;
+    /**
+     * Metric name of the circuit breaker state gauge, 0 closed, 1 open and 2 half open.
+     */
+    public static final String METRIC_CIRCUIT_STATE = "epic.circuit.state";
+    /**
+     * Metric name of the bulkhead available permits gauge.
+     */
+    public static final String METRIC_BULKHEAD_AVAILABLE = "epic.bulkhead.available";
+    /**
+     * Metric name of the timer recording how long calls waited on an endpoint rate limit.
+     */
+    public static final String METRIC_RATE_LIMIT_QUEUE = "epic.ratelimit.queue";
+    /**
+     * Metric name of the counter of calls rejected by an endpoint rate limit.
+     */
+    public static final String METRIC_RATE_LIMIT_REJECTED = "epic.ratelimit.rejected";
+    /**
+     * Metric name of the Epic reads served by an identical call already in flight.
+     */
+    public static final String METRIC_SINGLE_FLIGHT_SHARED = "epic.singleflight.shared";
+    /**
+     * Metric name of the distinct Epic reads in flight.
+     */
+    public static final String METRIC_SINGLE_FLIGHT_IN_FLIGHT = "epic.singleflight.inflight";
+    /**
+     * Config parameter number of threads enriching users with their Epic details.
+     */
+    public static final String ENRICHMENT_THREADS = "epic.enrichment.threads";
+    /**
+     * Default number of threads enriching users with their Epic details.
+     */
+    public static final int DEFAULT_ENRICHMENT_THREADS = 16;
+    /**
+     * Config parameter maximum number of page workers waiting for an enrichment thread.
+     */
+    public static final String ENRICHMENT_QUEUE_SIZE = "epic.enrichment.queueSize";
+    /**
+     * Default maximum number of page workers waiting for an enrichment thread.
+     */
+    public static final int DEFAULT_ENRICHMENT_QUEUE_SIZE = 256;
+    /**
+     * Config parameter maximum number of users of one page enriched concurrently.
+     */
+    public static final String ENRICHMENT_PARALLELISM = "epic.enrichment.parallelism";
+    /**
+     * Default maximum number of users of one page enriched concurrently.
+     */
+    public static final int DEFAULT_ENRICHMENT_PARALLELISM = 8;
+    /**
+     * Config parameter deadline in milliseconds shared by the Epic calls of a single user lookup.
+     */
+    public static final String ENRICHMENT_DEADLINE = "epic.enrichment.deadline";
+    /**
+     * Default deadline in milliseconds shared by the Epic calls of a single user lookup.
+     */
+    public static final long DEFAULT_ENRICHMENT_DEADLINE = 20000;
+    /**
+     * Config parameter number of threads running the Epic calls of single user lookups.
+     */
+    public static final String LOOKUP_THREADS = "epic.lookup.threads";
+    /**
+     * Default number of threads running the Epic calls of single user lookups.
+     */
+    public static final int DEFAULT_LOOKUP_THREADS = 16;
+    /**
+     * Config parameter maximum number of single user lookup calls waiting for a thread.
+     */
+    public static final String LOOKUP_QUEUE_SIZE = "epic.lookup.queueSize";
+    /**
+     * Default maximum number of single user lookup calls waiting for a thread.
+     */
+    public static final int DEFAULT_LOOKUP_QUEUE_SIZE = 64;
+    /**
+     * Config parameter maximum number of users in the user cache.
+     */
+    public static final String USER_CACHE_MAX_SIZE = "epic.userCache.maxSize";
+    /**
+     * Default maximum number of users in the user cache.
+     */
+    public static final long DEFAULT_USER_CACHE_MAX_SIZE = 10000;
+    /**
+     * Config parameter milliseconds a cached user is served for at most.
+     */
+    public static final String USER_CACHE_TTL = "epic.userCache.ttl";
+    /**
+     * Default milliseconds a cached user is served for at most.
+     */
+    public static final long DEFAULT_USER_CACHE_TTL = 300000;
+    /**
+     * Config parameter milliseconds after which a cached user is reloaded in the background, 0 to never reload.
+     */
+    public static final String USER_CACHE_REFRESH_AFTER = "epic.userCache.refreshAfter";
+    /**
+     * Default milliseconds after which a cached user is reloaded in the background.
+     */
+    public static final long DEFAULT_USER_CACHE_REFRESH_AFTER = 60000;
+    /**
+     * Metric name prefix of the user cache.
+     */
+    public static final String METRIC_USER_CACHE = "epic.user.cache";
+    /**
+     * Content type of the SOAP GetRecords request.
+     */
+    public static final String SOAP_CONTENT_TYPE = "text/xml; charset=utf-8";
+    /**
+     * SOAPAction header.
+     */
+    public static final String SOAP_ACTION = "SOAPAction";
+    /**
+     * SOAPAction header value of the GetRecords request.
+     */
+    public static final String SOAP_ACTION_VALUE = "\"\"";
+    /**
+     * Search string of GetRecords when no filter is given.
+     */
+    public static final String DEFAULT_SEARCH_STRING = "HCTI";
+    /**
+     * Config parameter maximum connections of the SOAP connection pool.
+     */
+    public static final String SOAP_POOL_MAX_TOTAL = "epic.soap.pool.maxTotal";
+    /**
+     * Default maximum connections of the SOAP connection pool.
+     */
+    public static final int DEFAULT_SOAP_POOL_MAX_TOTAL = 20;
+    /**
+     * Metric name of the gauges of the SOAP connection pool.
+     */
+    public static final String METRIC_SOAP_POOL_CONNECTIONS = "epic.soap.pool.connections";
+    /**
+     * Config parameter number of SOAP pages fetched ahead while a page is being processed.
+     */
+    public static final String SOAP_PREFETCH = "epic.soap.prefetch";
+    /**
+     * Default number of SOAP pages fetched ahead while a page is being processed.
+     */
+    public static final int DEFAULT_SOAP_PREFETCH = 1;
+    /**
+     * Config parameter maximum number of user enumerations open at the same time.
+     */
+    public static final String ENUMERATION_MAX_CONCURRENT = "epic.enumeration.maxConcurrent";
+    /**
+     * Default maximum number of user enumerations open at the same time.
+     */
+    public static final int DEFAULT_ENUMERATION_MAX_CONCURRENT = 2;
+    /**
+     * Config parameter search strings splitting a full enumeration into independent searches, comma separated.
+     */
+    public static final String ENUMERATION_PARTITIONS = "epic.enumeration.partitions";
+    /**
+     * Config parameter declaring that the enumeration partitions together return every record, so a full enumeration
+     * can tell which records were removed.
      */
-    public static final int DEFAULT_MAX_TIMEOUT = 600;
+    public static final String ENUMERATION_PARTITIONS_EXHAUSTIVE = "epic.enumeration.partitionsExhaustive";
+    /**
+     * Config parameter maximum number of enumeration partitions searched concurrently.
+     */
+    public static final String ENUMERATION_PARALLELISM = "epic.enumeration.parallelism";
+    /**
+     * Default maximum number of enumeration partitions searched concurrently.
+     */
+    public static final int DEFAULT_ENUMERATION_PARALLELISM = 4;
+    /**
+     * Config parameter file of the user snapshot log.
+     */
+    public static final String SNAPSHOT_PATH = "epic.snapshot.path";
+    /**
+     * Default file of the user snapshot log.
+     */
+    public static final String DEFAULT_SNAPSHOT_PATH = "data/epic-user-snapshot.jsonl";
+    /**
+     * Config parameter ratio of log lines to live users above which the snapshot log is compacted.
+     */
+    public static final String SNAPSHOT_COMPACT_RATIO = "epic.snapshot.compactRatio";
+    /**
+     * Default ratio of log lines to live users above which the snapshot log is compacted.
+     */
+    public static final int DEFAULT_SNAPSHOT_COMPACT_RATIO = 2;
+    /**
+     * Number of live users the compaction ratio is at least applied to, so a small snapshot is not compacted on every write.
+     */
+    public static final int SNAPSHOT_MIN_COMPACT_LINES = 1000;
+    /**
+     * Config parameter maximum number of snapshot versions waiting for the log writer, past which the log is rebuilt from the index.
+     */
+    public static final String SNAPSHOT_QUEUE_SIZE = "epic.snapshot.queueSize";
+    /**
+     * Default maximum number of snapshot versions waiting for the log writer, past which the log is rebuilt from the index.
+     */
+    public static final int DEFAULT_SNAPSHOT_QUEUE_SIZE = 10000;
+    /**
+     * Maximum number of snapshot versions the log writer appends before flushing.
+     */
+    public static final int SNAPSHOT_WRITE_BATCH = 1000;
+    /**
+     * Config parameter milliseconds a tombstone is kept for at least, 0 to keep them forever.
+     */
+    public static final String SNAPSHOT_TOMBSTONE_RETENTION = "epic.snapshot.tombstoneRetention";
+    /**
+     * Default milliseconds a tombstone is kept for at least, 30 days.
+     */
+    public static final long DEFAULT_SNAPSHOT_TOMBSTONE_RETENTION = 2592000000L;
+    /**
+     * Request parameter reading users from the snapshot instead of Epic.
+     */
+    public static final String SNAPSHOT = "snapshot";
+    /**
+     * Watermark of the user changes, the sequence of the last change returned.
+     */
+    public static final String WATERMARK = "Watermark";
+    /**
+     * Time in epoch milliseconds the user changes are requested from, when no watermark is known yet.
+     */
+    public static final String SINCE = "Since";
+    /**
+     * UserIDs of the users removed since the watermark.
+     */
+    public static final String REMOVED_USER_IDS = "RemovedUserIDs";
+    /**
+     * Whether more user changes follow the returned watermark.
+     */
+    public static final String HAS_MORE = "HasMore";
+    /**
+     * Whether the watermark is older than the removals kept, so the users must be read again from watermark 0.
+     */
+    public static final String FULL_RESYNC_REQUIRED = "FullResyncRequired";
+    /**
+     * Status of a user export, written on the last line of the export.
+     */
+    public static final String EXPORT_STATUS = "ExportStatus";
+    /**
+     * Number of users written by a user export, written on the last line of the export.
+     */
+    public static final String EXPORTED_USERS = "ExportedUsers";
+    /**
+     * Export status of an export that wrote every user.
+     */
+    public static final String EXPORT_COMPLETE = "Complete";
+    /**
+     * Export status of an export that ended on a failure.
+     */
+    public static final String EXPORT_FAILED = "Failed";
+    /**
+     * Config parameter milliseconds a user export may stream for.
+     */
+    public static final String EXPORT_TIMEOUT = "epic.export.timeout";
+    /**
+     * Default milliseconds a user export may stream for.
+     */
+    public static final long DEFAULT_EXPORT_TIMEOUT = 3600000;
+    /**
+     * Config parameter milliseconds a changed catalog file must stay quiet before it is reloaded.
+     */
+    public static final String CATALOG_RELOAD_DELAY = "epic.catalog.reloadDelay";
+    /**
+     * Default milliseconds a changed catalog file must stay quiet before it is reloaded.
+     */
+    public static final long DEFAULT_CATALOG_RELOAD_DELAY = 500;
+    /**
+     * Metric name of the number of times a catalog file was loaded.
+     */
+    public static final String METRIC_CATALOG_VERSION = "epic.catalog.version";
+    /**
+     * Metric name of the time a catalog file was last loaded.
+     */
+    public static final String METRIC_CATALOG_LOADED = "epic.catalog.loaded";
+    /**
+     * Metric name of the records of a loaded catalog file.
+     */
+    public static final String METRIC_CATALOG_RECORDS = "epic.catalog.records";
+    /**
+     * Metric name of the time taken to parse a catalog file.
+     */
+    public static final String METRIC_CATALOG_RELOAD = "epic.catalog.reload";
+    /**
+     * Prefix of the private copies of the catalog files that are mapped.
+     */
+    public static final String CATALOG_COPY_PREFIX = "epic-catalog-";
+    /**
+     * Config parameter enabling the background user crawler.
+     */
+    public static final String CRAWLER_ENABLED = "epic.crawler.enabled";
+    /**
+     * Config parameter maximum number of users crawled per second, no limit when not positive.
+     */
+    public static final String CRAWLER_MAX_RECORDS_PER_SECOND = "epic.crawler.maxRecordsPerSecond";
+    /**
+     * Default maximum number of users crawled per second.
+     */
+    public static final double DEFAULT_CRAWLER_MAX_RECORDS_PER_SECOND = 0;
+    /**
+     * Metric name of the users crawled by the current or last crawl.
+     */
+    public static final String METRIC_CRAWLER_RECORDS = "epic.crawler.records";
+    /**
+     * Metric name of the share of the snapshot the current or last crawl went through.
+     */
+    public static final String METRIC_CRAWLER_PROGRESS = "epic.crawler.progress";
+    /**
+     * Metric name of the users crawled per second by the current or last crawl.
+     */
+    public static final String METRIC_CRAWLER_RATE = "epic.crawler.rate";
+    /**
+     * Metric name of the seconds since the last complete crawl started.
+     */
+    public static final String METRIC_CRAWLER_LAG = "epic.crawler.lag";
+    /**
+     * Metric name of the snapshot changes written by the crawler.
+     */
+    public static final String METRIC_CRAWLER_CHANGES = "epic.crawler.changes";
     /**
      * Empty String.
      */
@@ -655,18 +1168,6 @@ public final class EpicConstants {
      */
     public static final List<String> POSSIBLE_DELIMITERS = Collections.unmodifiableList(Arrays
             .asList(",", ";", "\t", "|", "^"));
-    /**
-     * CSV delimiter.
-     */
-    public static final String CSV_DELIMITER = "delimiter";
-    /**
-     * CSV headers.
-     */
-    public static final String CSV_HEADERS = "headers";
-    /**
-     * Head row count string.
-     */
-    public static final String HEAD_ROW_COUNT = "headRowCount";
     /**
      * Offset string.
      */
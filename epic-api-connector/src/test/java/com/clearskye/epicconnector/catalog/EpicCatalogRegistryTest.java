@@ -0,0 +1,105 @@
+package com.clearskye.epicconnector.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of {@link EpicCatalogRegistry} watching catalog files in a temporary directory.
+ */
+class EpicCatalogRegistryTest {
+    /**
+     * Directory of the catalog files.
+     */
+    @TempDir
+    Path directory;
+    /**
+     * Registry of the catalog metrics.
+     */
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * The registry under test.
+     */
+    private EpicCatalogRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        registry = new EpicCatalogRegistry(new MockEnvironment().withProperty(EpicConstants.CATALOG_RELOAD_DELAY, "50"), meterRegistry);
+        registry.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.stop();
+    }
+
+    @Test
+    void reloadsARewrittenFileAndSwapsItIn() throws Exception {
+        Path file = write(directory.resolve("groups.csv"), "ID,Name\n1,One\n");
+        assertEquals(List.of(Map.of("ID", "1", "Name", "One")), registry.get(file.toString()).find("1"));
+        assertEquals(1, version(file));
+
+        write(file, "ID,Name\n1,Uno\n2,Two\n");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (version(file) < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, version(file));
+        EpicCatalog catalog = registry.get(file.toString());
+        assertEquals(List.of(Map.of("ID", "1", "Name", "Uno")), catalog.find("1"));
+        assertEquals(2, catalog.size());
+        assertEquals(2, meterRegistry.get(EpicConstants.METRIC_CATALOG_RECORDS).tag("file", file.toString()).gauge().value());
+    }
+
+    @Test
+    void tellsApartFilesOfTheSameName() throws Exception {
+        Path groups = write(Files.createDirectories(directory.resolve("groups")).resolve("catalog.csv"), "ID,Name\n1,Group\n");
+        Path templates = write(Files.createDirectories(directory.resolve("templates")).resolve("catalog.csv"), "ID,Name\n1,Template\n2,Other\n");
+
+        assertEquals("Group", registry.get(groups.toString()).find("1").get(0).get("Name"));
+        assertEquals("Template", registry.get(templates.toString()).find("1").get(0).get("Name"));
+
+        assertEquals(1, meterRegistry.get(EpicConstants.METRIC_CATALOG_RECORDS).tag("file", groups.toString()).gauge().value());
+        assertEquals(2, meterRegistry.get(EpicConstants.METRIC_CATALOG_RECORDS).tag("file", templates.toString()).gauge().value());
+        assertEquals(2, meterRegistry.get(EpicConstants.METRIC_CATALOG_RELOAD).timers().size());
+    }
+
+    /**
+     * Write a catalog file.
+     *
+     * @param file    The file.
+     * @param content The CSV content.
+     * @return file The absolute path of the file
+     * @throws IOException Exception during writing the file.
+     */
+    private static Path write(Path file, String content) throws IOException {
+        return Files.writeString(file, content, Charset.defaultCharset()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Version of a catalog file as published by its gauge.
+     *
+     * @param file Absolute path of the file.
+     * @return version Number of times the file was loaded
+     */
+    private double version(Path file) {
+        return meterRegistry.get(EpicConstants.METRIC_CATALOG_VERSION).tag("file", file.toString()).gauge().value();
+    }
+}
@@ -0,0 +1,272 @@
+package com.clearskye.epicconnector.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Unit tests of {@link EpicCatalog}, checked against the line-by-line parsing the catalog replaced.
+ */
+class EpicCatalogTest {
+    /**
+     * Directory of the catalog files of a test.
+     */
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsFirstRecordOfAnId() throws IOException {
+        EpicCatalog catalog = load("ID,Name\n1,One\n2,Two\n1,Duplicate\n");
+
+        assertEquals(List.of(Map.of("ID", "1", "Name", "One")), catalog.find("1"));
+        assertEquals(List.of(Map.of("ID", "2", "Name", "Two")), catalog.find("2"));
+        assertEquals(List.of(), catalog.find("3"));
+        assertEquals(3, catalog.size());
+    }
+
+    @Test
+    void readsCrLfAndCrLineEnds() throws IOException {
+        String content = "ID;Name\r\n1;One\r\n2;Two\r3;Three\n4;Four";
+        EpicCatalog catalog = load(content);
+
+        assertEquals(List.of(Map.of("ID", "4", "Name", "Four")), catalog.find("4"));
+        assertEquals(List.of("1", "2", "3", "4"), ids(catalog.all()));
+        assertMatchesFormer(content, catalog);
+    }
+
+    @Test
+    void skipsBlankIdsAndEmptyNames() throws IOException {
+        String content = "ID,Name\n,NoId\n   ,SpacesId\n\t,TabId\n5,\n6\n7,,Extra\n8,Eight\n";
+        EpicCatalog catalog = load(content);
+
+        assertEquals(List.of("8"), ids(catalog.all()));
+        assertEquals(List.of(), catalog.find("5"));
+        assertEquals(List.of(), catalog.find("7"));
+        assertMatchesFormer(content, catalog);
+    }
+
+    @Test
+    void skipsUnicodeBlankIds() throws IOException {
+        String content = "ID,Name\n\u2003,EmSpaceId\n\u3000\u2003,IdeographicSpaceId\n\u00a0,NoBreakSpaceId\n8,Eight\n";
+        assumeTrue(Charset.defaultCharset().newEncoder().canEncode(content), "default charset cannot encode the IDs");
+        EpicCatalog catalog = load(content);
+
+        assertEquals(List.of("\u00a0", "8"), ids(catalog.all()));
+        assertEquals(List.of(), catalog.find("\u2003"));
+        assertMatchesFormer(content, catalog);
+    }
+
+    @Test
+    void findsNonAsciiIds() throws IOException {
+        assumeTrue(Charset.defaultCharset().newEncoder().canEncode("\u00e9\u6f22"), "default charset cannot encode the IDs");
+        String content = "ID|Name\ncaf\u00e9|Caf\u00e9\n\u6f22\u5b57|Kanji\ncafe|Plain\n";
+        EpicCatalog catalog = load(content);
+
+        assertEquals(List.of(Map.of("ID", "caf\u00e9", "Name", "Caf\u00e9")), catalog.find("caf\u00e9"));
+        assertEquals(List.of(Map.of("ID", "\u6f22\u5b57", "Name", "Kanji")), catalog.find("\u6f22\u5b57"));
+        assertEquals(List.of(Map.of("ID", "cafe", "Name", "Plain")), catalog.find("cafe"));
+        assertMatchesFormer(content, catalog);
+    }
+
+    @Test
+    void pagesInFileOrder() throws IOException {
+        EpicCatalog catalog = load(numbered(10));
+
+        assertEquals(List.of("3", "4", "5"), ids(catalog.page(3, 3)));
+        assertEquals(List.of("8", "9"), ids(catalog.page(8, 5)));
+        assertEquals(List.of(), catalog.page(10, 5));
+        assertEquals(List.of(), catalog.page(50, 5));
+        assertEquals(List.of(), catalog.page(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertEquals(List.of("0", "1"), ids(catalog.page(-1, 3)));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalog.page(8, 5).get(2));
+        for (int offset = -3; offset <= 12; offset++) {
+            for (int pageSize = 0; pageSize <= 4; pageSize++) {
+                assertEquals(formerPage(numbered(10), offset, pageSize), catalog.page(offset, pageSize), offset + "/" + pageSize);
+            }
+        }
+    }
+
+    @Test
+    void takesFirstDelimitedLineAsHeader() throws IOException {
+        String content = "Groups export\n\nID\tName\tDescription\n1\tOne\tFirst\n";
+        EpicCatalog catalog = load(content);
+
+        assertEquals(List.of(Map.of("ID", "1", "Name", "One")), catalog.all());
+        assertMatchesFormer(content, catalog);
+    }
+
+    @Test
+    void headerlessFileHasNoRecords() throws IOException {
+        EpicCatalog catalog = load("1\n2\n3\n");
+
+        assertEquals(0, catalog.size());
+        assertEquals(List.of(), catalog.all());
+        assertEquals(List.of(), catalog.find("1"));
+        assertEquals(List.of(), catalog.page(0, 10));
+    }
+
+    @Test
+    void emptyFileHasNoRecords() throws IOException {
+        EpicCatalog catalog = load("");
+
+        assertEquals(0, catalog.size());
+        assertEquals(List.of(), catalog.find("1"));
+    }
+
+    @Test
+    void loadedCatalogIgnoresLaterRewrites() throws IOException {
+        Path file = directory.resolve("catalog.csv");
+        Files.writeString(file, numbered(100), Charset.defaultCharset());
+        EpicCatalog catalog = EpicCatalog.load(file);
+
+        Files.writeString(file, "ID,Name\nx,y\n", Charset.defaultCharset(), StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertEquals(100, catalog.size());
+        assertEquals(List.of(Map.of("ID", "99", "Name", "Name99")), catalog.find("99"));
+        assertEquals(List.of("97", "98", "99"), ids(catalog.page(97, 10)));
+    }
+
+    @Test
+    void leavesNoCopyOfTheFileBehind() throws IOException {
+        Path file = directory.resolve("copy-check-" + System.nanoTime() + ".csv");
+        Files.writeString(file, numbered(10), Charset.defaultCharset());
+
+        assertEquals(10, EpicCatalog.load(file).size());
+
+        try (Stream<Path> copies = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            assertEquals(List.of(), copies.filter(copy -> copy.getFileName().toString().endsWith(file.getFileName().toString())).toList());
+        }
+    }
+
+    @Test
+    void recordsAreUnmodifiable() throws IOException {
+        EpicCatalog catalog = load("ID,Name\n1,One\n");
+
+        assertThrows(UnsupportedOperationException.class, () -> catalog.find("1").get(0).put("ID", "2"));
+        assertThrows(UnsupportedOperationException.class, () -> catalog.all().clear());
+    }
+
+    @Test
+    void findsEveryIdOfALargeFile() throws IOException {
+        EpicCatalog catalog = load(numbered(5000));
+
+        for (int id = 0; id < 5000; id++) {
+            assertEquals(List.of(Map.of("ID", String.valueOf(id), "Name", "Name" + id)), catalog.find(String.valueOf(id)));
+        }
+        assertTrue(catalog.find("5000").isEmpty());
+    }
+
+    /**
+     * Write a catalog file in the default charset and load it.
+     *
+     * @param content Content of the file.
+     * @return catalog The loaded catalog
+     * @throws IOException Exception during writing or reading the file.
+     */
+    private EpicCatalog load(String content) throws IOException {
+        Path file = Files.createTempFile(directory, "catalog", ".csv");
+        Files.writeString(file, content, Charset.defaultCharset());
+        return EpicCatalog.load(file);
+    }
+
+    /**
+     * Content of a catalog with numbered records.
+     *
+     * @param count Number of records.
+     * @return content The CSV content
+     */
+    private static String numbered(int count) {
+        StringBuilder content = new StringBuilder("ID,Name\n");
+        for (int id = 0; id < count; id++) {
+            content.append(id).append(",Name").append(id).append('\n');
+        }
+        return content.toString();
+    }
+
+    /**
+     * IDs of records.
+     *
+     * @param records The records.
+     * @return ids The IDs in order
+     */
+    private static List<String> ids(List<Map<String, String>> records) {
+        return records.stream().map(record -> record.get("ID")).toList();
+    }
+
+    /**
+     * Check that a catalog serves every record, page and ID the way the former parsing did.
+     *
+     * @param content Content of the catalog file.
+     * @param catalog The loaded catalog.
+     * @throws IOException Exception during parsing.
+     */
+    private static void assertMatchesFormer(String content, EpicCatalog catalog) throws IOException {
+        List<Map<String, String>> former = formerPage(content, 0, Integer.MAX_VALUE);
+        assertEquals(former, catalog.all());
+        for (Map<String, String> record : former) {
+            String id = record.get("ID");
+            assertEquals(former.stream().filter(other -> other.get("ID").equals(id)).limit(1).toList(), catalog.find(id));
+        }
+    }
+
+    /**
+     * The former parsing of a page of a catalog file, read line by line.
+     *
+     * @param content  Content of the catalog file.
+     * @param offset   Index of the first record of the page.
+     * @param pageSize Maximum number of records of the page.
+     * @return records The records of the page
+     * @throws IOException Exception during parsing.
+     */
+    private static List<Map<String, String>> formerPage(String content, int offset, int pageSize) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(content));
+        String[] headers = null;
+        String delimiter = null;
+        List<Map<String, String>> records = new ArrayList<>();
+        int dataCount = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (delimiter == null) {
+                for (String possibleDelimiter : EpicConstants.POSSIBLE_DELIMITERS) {
+                    if (line.contains(possibleDelimiter)) {
+                        headers = line.split(Pattern.quote(possibleDelimiter));
+                        delimiter = possibleDelimiter;
+                        break;
+                    }
+                }
+                continue;
+            }
+            String[] data = line.split(EpicConstants.LEFT_BRACKET + delimiter + EpicConstants.RIGHT_BRACKET);
+            if (data.length > 1 && !data[0].isBlank() && !data[1].isEmpty()) {
+                if (dataCount >= offset && dataCount < (long) pageSize + offset) {
+                    Map<String, String> record = new HashMap<>();
+                    record.put(headers[0], data[0]);
+                    record.put(headers[1], data[1]);
+                    records.add(record);
+                }
+                dataCount++;
+            }
+        }
+        return records;
+    }
+}
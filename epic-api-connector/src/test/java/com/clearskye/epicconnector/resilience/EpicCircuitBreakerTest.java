@@ -0,0 +1,143 @@
+package com.clearskye.epicconnector.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+
+/**
+ * Unit tests of {@link EpicCircuitBreaker} on a manual clock.
+ */
+class EpicCircuitBreakerTest {
+    /**
+     * Manual clock in milliseconds.
+     */
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    /**
+     * Circuit opening after 3 failures for 10 seconds, with 2 probes.
+     */
+    private EpicCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new EpicCircuitBreaker("test", 3, 10_000, 2, clock::get);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        fail(2);
+        circuitBreaker.onSuccess();
+        fail(2);
+        assertEquals(EpicCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        fail(1);
+
+        assertEquals(EpicCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(EpicUnavailableException.class, circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    void countsOnlyServerErrors() {
+        for (int call = 0; call < 5; call++) {
+            circuitBreaker.acquirePermission();
+            circuitBreaker.onResult(404);
+        }
+        assertEquals(EpicCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        for (int call = 0; call < 3; call++) {
+            circuitBreaker.acquirePermission();
+            circuitBreaker.onResult(503);
+        }
+        assertEquals(EpicCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpensAfterOpenDurationWithLimitedProbes() {
+        fail(3);
+        clock.addAndGet(9_999);
+        assertThrows(EpicUnavailableException.class, circuitBreaker::acquirePermission);
+
+        clock.addAndGet(1);
+        circuitBreaker.acquirePermission();
+        circuitBreaker.acquirePermission();
+
+        assertEquals(EpicCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(EpicUnavailableException.class, circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    void successfulProbeCloses() {
+        fail(3);
+        clock.addAndGet(10_000);
+        circuitBreaker.acquirePermission();
+
+        circuitBreaker.onSuccess();
+
+        assertEquals(EpicCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        fail(2);
+        assertEquals(EpicCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void failedProbeReopens() {
+        fail(3);
+        clock.addAndGet(10_000);
+        circuitBreaker.acquirePermission();
+
+        circuitBreaker.onFailure();
+
+        assertEquals(EpicCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        clock.addAndGet(9_999);
+        assertThrows(EpicUnavailableException.class, circuitBreaker::acquirePermission);
+        clock.addAndGet(1);
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    void lostProbesAreReplacedAfterOpenDuration() {
+        fail(3);
+        clock.addAndGet(10_000);
+        circuitBreaker.acquirePermission();
+        circuitBreaker.acquirePermission();
+        clock.addAndGet(9_999);
+        assertThrows(EpicUnavailableException.class, circuitBreaker::acquirePermission);
+
+        clock.addAndGet(1);
+
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+        assertThrows(EpicUnavailableException.class, circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    void failuresWhileOpenDoNotExtendIt() {
+        fail(3);
+        clock.addAndGet(9_000);
+
+        for (int call = 0; call < 3; call++) {
+            circuitBreaker.onFailure();
+        }
+        clock.addAndGet(1_000);
+
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+        assertEquals(EpicCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    /**
+     * Send calls that all fail.
+     *
+     * @param calls Number of calls.
+     */
+    private void fail(int calls) {
+        for (int call = 0; call < calls; call++) {
+            circuitBreaker.acquirePermission();
+            circuitBreaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.clearskye.epicconnector.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of the endpoint policies built by {@link EpicEndpointPolicyRegistry}.
+ */
+class EpicEndpointPolicyRegistryTest {
+
+    @Test
+    void readsAreRetriedUpToTheirLimitAndWritesNever() {
+        EpicEndpointPolicyRegistry registry = registry(new MockEnvironment()
+                .withProperty(EpicConstants.POLICY_PREFIX + "viewUser" + EpicConstants.POLICY_MAX_RETRIES, "3"));
+        EpicEndpointPolicy read = registry.forUrl("https://epic/" + EpicConstants.EPIC_GET_USER_ENDPOINT);
+        EpicEndpointPolicy write = registry.forUrl("https://epic/" + EpicConstants.EPIC_UPDATE_USER_ENDPOINT);
+
+        assertTrue(read.isIdempotent());
+        assertTrue(registry.shouldRetry(read, 0, "status 503"));
+        assertTrue(registry.shouldRetry(read, 1, "status 503"));
+        assertTrue(registry.shouldRetry(read, 2, "status 503"));
+        assertFalse(registry.shouldRetry(read, 3, "status 503"));
+        assertFalse(write.isIdempotent());
+        assertEquals(0, write.getMaxRetries());
+        assertFalse(registry.shouldRetry(write, 0, "status 503"));
+        assertFalse(registry.shouldRetry(registry.getTokenPolicy(), 0, "status 503"));
+    }
+
+    @Test
+    void retriesStopAtTheBudget() {
+        EpicEndpointPolicyRegistry registry = registry(new MockEnvironment()
+                .withProperty(EpicConstants.POLICY_PREFIX + "viewUser" + EpicConstants.POLICY_MAX_RETRIES, "10")
+                .withProperty(EpicConstants.RETRY_BUDGET_MAX, "2")
+                .withProperty(EpicConstants.RETRY_BUDGET_RATIO, "0.5"));
+        EpicEndpointPolicy read = registry.forUrl("https://epic/" + EpicConstants.EPIC_GET_USER_ENDPOINT);
+
+        assertTrue(registry.shouldRetry(read, 0, "status 503"));
+        assertTrue(registry.shouldRetry(read, 1, "status 503"));
+        assertFalse(registry.shouldRetry(read, 2, "status 503"));
+
+        registry.getRetryBudget().recordCall();
+        registry.getRetryBudget().recordCall();
+        assertTrue(registry.shouldRetry(read, 0, "status 503"));
+        assertFalse(registry.shouldRetry(read, 1, "status 503"));
+    }
+
+    @Test
+    void backoffStaysUnderItsExponentialCeiling() {
+        EpicEndpointPolicy read = registry(new MockEnvironment()
+                .withProperty(EpicConstants.POLICY_PREFIX + "viewUser" + EpicConstants.POLICY_INITIAL_BACKOFF, "100")
+                .withProperty(EpicConstants.POLICY_PREFIX + "viewUser" + EpicConstants.POLICY_MAX_BACKOFF, "1000"))
+                .forUrl("https://epic/" + EpicConstants.EPIC_GET_USER_ENDPOINT);
+
+        for (int sample = 0; sample < 200; sample++) {
+            assertTrue(read.backoffMillis(0) <= 100);
+            assertTrue(read.backoffMillis(2) <= 400);
+            assertTrue(read.backoffMillis(30) <= 1000);
+        }
+    }
+
+    @Test
+    void onlyThrottlingAndGatewayFailuresAreTransient() {
+        assertTrue(EpicEndpointPolicy.isRetryableStatus(429));
+        assertTrue(EpicEndpointPolicy.isRetryableStatus(502));
+        assertTrue(EpicEndpointPolicy.isRetryableStatus(503));
+        assertTrue(EpicEndpointPolicy.isRetryableStatus(504));
+        assertFalse(EpicEndpointPolicy.isRetryableStatus(400));
+        assertFalse(EpicEndpointPolicy.isRetryableStatus(500));
+    }
+
+    @Test
+    void unknownEndpointsGetTheDefaultPolicy() {
+        EpicEndpointPolicyRegistry registry = registry(new MockEnvironment());
+
+        assertSame(registry.getDefaultPolicy(), registry.forUrl("https://epic/api/Unknown"));
+        assertFalse(registry.getDefaultPolicy().isIdempotent());
+    }
+
+    /**
+     * Build a registry and its policies.
+     *
+     * @param environment Config parameters of the policies.
+     * @return registry The initialised registry
+     */
+    private static EpicEndpointPolicyRegistry registry(MockEnvironment environment) {
+        EpicEndpointPolicyRegistry registry = new EpicEndpointPolicyRegistry(environment, new SimpleMeterRegistry());
+        registry.init();
+        return registry;
+    }
+}
@@ -0,0 +1,133 @@
+package com.clearskye.epicconnector.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of {@link EpicRateLimiter} on a manual clock.
+ */
+class EpicRateLimiterTest {
+    /**
+     * Nanoseconds between two permits at 10 permits per second.
+     */
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * Manual clock in nanoseconds.
+     */
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    /**
+     * Registry of the limiter metrics.
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void burstIsServedWithoutWaiting() {
+        EpicRateLimiter rateLimiter = rateLimiter(3, 10, 10_000);
+
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(INTERVAL, rateLimiter.reserve());
+    }
+
+    @Test
+    void reservationsWaitInArrivalOrder() {
+        EpicRateLimiter rateLimiter = rateLimiter(1, 10, 10_000);
+        rateLimiter.reserve();
+
+        assertEquals(INTERVAL, rateLimiter.reserve());
+        assertEquals(2 * INTERVAL, rateLimiter.reserve());
+        assertEquals(3 * INTERVAL, rateLimiter.reserve());
+        clock.addAndGet(INTERVAL);
+        assertEquals(3 * INTERVAL, rateLimiter.reserve());
+        assertEquals(5, queueTimer().count());
+    }
+
+    @Test
+    void refillsUpToTheBurst() {
+        EpicRateLimiter rateLimiter = rateLimiter(2, 10, 10_000);
+        rateLimiter.reserve();
+        rateLimiter.reserve();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(INTERVAL, rateLimiter.reserve());
+    }
+
+    @Test
+    void rejectsBeyondTheQueueBound() {
+        EpicRateLimiter rateLimiter = rateLimiter(1, 2, 10_000);
+        rateLimiter.reserve();
+        rateLimiter.reserve();
+        rateLimiter.reserve();
+
+        assertThrows(EpicUnavailableException.class, rateLimiter::reserve);
+        assertEquals(1, rejectedCounter().count());
+        clock.addAndGet(INTERVAL);
+        assertEquals(2 * INTERVAL, rateLimiter.reserve());
+    }
+
+    @Test
+    void rejectsBeyondTheMaximumWait() {
+        EpicRateLimiter rateLimiter = rateLimiter(1, 100, 250);
+        rateLimiter.reserve();
+        assertEquals(INTERVAL, rateLimiter.reserve());
+        assertEquals(2 * INTERVAL, rateLimiter.reserve());
+
+        assertThrows(EpicUnavailableException.class, rateLimiter::reserve);
+        assertEquals(1, rejectedCounter().count());
+    }
+
+    @Test
+    void noLimitWithoutRate() {
+        EpicRateLimiter rateLimiter = new EpicRateLimiter("test", 0, 1, 0, 0, queueTimer(), rejectedCounter(), clock::get);
+
+        for (int call = 0; call < 100; call++) {
+            assertEquals(0, rateLimiter.reserve());
+        }
+    }
+
+    /**
+     * Create a limiter of 10 permits per second on the manual clock.
+     *
+     * @param burst    Maximum number of permits saved up.
+     * @param maxQueue Maximum number of callers waiting.
+     * @param maxWait  Maximum milliseconds a caller waits.
+     * @return rateLimiter The limiter
+     */
+    private EpicRateLimiter rateLimiter(int burst, int maxQueue, long maxWait) {
+        return new EpicRateLimiter("test", 10, burst, maxQueue, maxWait, queueTimer(), rejectedCounter(), clock::get);
+    }
+
+    /**
+     * Timer of the waits.
+     *
+     * @return timer The queue timer
+     */
+    private Timer queueTimer() {
+        return meterRegistry.timer("queue");
+    }
+
+    /**
+     * Counter of the rejections.
+     *
+     * @return counter The rejected counter
+     */
+    private Counter rejectedCounter() {
+        return meterRegistry.counter("rejected");
+    }
+}
@@ -0,0 +1,62 @@
+package com.clearskye.epicconnector.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of {@link EpicRetryBudget}.
+ */
+class EpicRetryBudgetTest {
+
+    @Test
+    void startsFullAndIsExhausted() {
+        EpicRetryBudget retryBudget = new EpicRetryBudget(0.1, 3);
+
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertFalse(retryBudget.tryAcquireRetry());
+    }
+
+    @Test
+    void callsRefillAFractionOfARetry() {
+        EpicRetryBudget retryBudget = new EpicRetryBudget(0.1, 1);
+        retryBudget.tryAcquireRetry();
+
+        for (int call = 0; call < 9; call++) {
+            retryBudget.recordCall();
+        }
+        assertFalse(retryBudget.tryAcquireRetry());
+
+        retryBudget.recordCall();
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertFalse(retryBudget.tryAcquireRetry());
+    }
+
+    @Test
+    void refillStopsAtTheCapacity() {
+        EpicRetryBudget retryBudget = new EpicRetryBudget(0.5, 2);
+
+        for (int call = 0; call < 100; call++) {
+            retryBudget.recordCall();
+        }
+
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertTrue(retryBudget.tryAcquireRetry());
+        assertFalse(retryBudget.tryAcquireRetry());
+    }
+
+    @Test
+    void zeroRatioNeverRefills() {
+        EpicRetryBudget retryBudget = new EpicRetryBudget(0, 1);
+        retryBudget.tryAcquireRetry();
+
+        for (int call = 0; call < 1000; call++) {
+            retryBudget.recordCall();
+        }
+
+        assertFalse(retryBudget.tryAcquireRetry());
+    }
+}
@@ -0,0 +1,186 @@
+package com.clearskye.epicconnector.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.clearskye.epicconnector.exception.EpicResponseException;
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of {@link EpicSingleFlight} with calls held open by a latch.
+ */
+class EpicSingleFlightTest {
+    /**
+     * Executor running the callers.
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    /**
+     * Counter of the callers served by a call another caller made.
+     */
+    private final Counter shared = new SimpleMeterRegistry().counter("shared");
+    /**
+     * The group under test.
+     */
+    private final EpicSingleFlight singleFlight = new EpicSingleFlight(shared);
+    /**
+     * Counted down once the first call started.
+     */
+    private final CountDownLatch started = new CountDownLatch(1);
+    /**
+     * Released to end the first call.
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+    /**
+     * Number of calls made.
+     */
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sharesOneCallAndGivesEveryCallerItsOwnCopy() throws Exception {
+        List<String> result = new ArrayList<>(List.of("U1"));
+        Future<List<String>> leader = executor.submit(() -> execute("K", result));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<List<String>> follower = executor.submit(() -> execute("K", List.of()));
+        awaitShared(1);
+
+        release.countDown();
+
+        assertEquals(List.of("U1"), leader.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("U1"), follower.get(5, TimeUnit.SECONDS));
+        assertNotSame(result, leader.get());
+        assertNotSame(result, follower.get());
+        assertNotSame(leader.get(), follower.get());
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void keepsTheResultOfACallNobodyJoined() throws Exception {
+        release.countDown();
+        List<String> result = new ArrayList<>(List.of("U1"));
+
+        assertSame(result, execute("K", result));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void throwsEveryFollowerItsOwnFailure() throws Exception {
+        EpicUnavailableException failure = new EpicUnavailableException("Epic is down");
+        Future<List<String>> leader = executor.submit(() -> execute("K", failure));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        List<Future<List<String>>> followers = List.of(executor.submit(() -> execute("K", List.of())),
+                executor.submit(() -> execute("K", List.of())));
+        awaitShared(2);
+
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        Throwable first = assertThrows(ExecutionException.class, () -> followers.get(0).get(5, TimeUnit.SECONDS)).getCause();
+        Throwable second = assertThrows(ExecutionException.class, () -> followers.get(1).get(5, TimeUnit.SECONDS)).getCause();
+        for (Throwable followerFailure : List.of(first, second)) {
+            assertInstanceOf(EpicUnavailableException.class, followerFailure);
+            assertEquals("Epic is down", followerFailure.getMessage());
+            assertSame(failure, followerFailure.getCause());
+        }
+        assertNotSame(first, second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void keepsTheStatusOfAFailedResponse() throws Exception {
+        EpicResponseException failure = new EpicResponseException(404, Map.of("Message", "Not found"));
+        Future<List<String>> leader = executor.submit(() -> execute("K", failure));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<List<String>> follower = executor.submit(() -> execute("K", List.of()));
+        awaitShared(1);
+
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        EpicResponseException followerFailure = assertInstanceOf(EpicResponseException.class,
+                assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(404, followerFailure.getStatusCode());
+        assertEquals(Map.of("Message", "Not found"), followerFailure.getBody());
+        assertSame(failure, followerFailure.getCause());
+    }
+
+    @Test
+    void callersAfterAWriteDoNotJoinTheCallsBeforeIt() throws Exception {
+        Future<List<String>> before = executor.submit(() -> execute("K", List.of("Before")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        singleFlight.forgetInFlight();
+
+        assertEquals(List.of("After"), execute("K", List.of("After")));
+        release.countDown();
+        assertEquals(List.of("Before"), before.get(5, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+        assertEquals(0, shared.count());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    /**
+     * Call through the group: the first call waits for {@link #release}, and returns the result or throws it.
+     *
+     * @param key     Key of the call.
+     * @param outcome Result of the call, or the exception it throws.
+     * @return result The result, or a copy of it
+     * @throws Exception The failure of the call.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> execute(String key, Object outcome) throws Exception {
+        Callable<List<String>> call = () -> {
+            if (calls.incrementAndGet() == 1) {
+                started.countDown();
+                release.await();
+            }
+            if (outcome instanceof Exception failure) {
+                throw failure;
+            }
+            return (List<String>) outcome;
+        };
+        return singleFlight.execute(key, call, ArrayList::new);
+    }
+
+    /**
+     * Wait until a number of callers joined a call in flight.
+     *
+     * @param followers Number of callers to wait for.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void awaitShared(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (shared.count() < followers && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(followers, shared.count());
+    }
+}
@@ -0,0 +1,88 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of {@link EpicAssertionSigner} with a key pair generated for the tests.
+ */
+class EpicAssertionSignerTest {
+    /**
+     * Epic REST endpoint of the tests.
+     */
+    private static final String REST_ENDPOINT = "https://epic.example.com/";
+    /**
+     * Key pair the assertions are signed and verified with.
+     */
+    private static KeyPair keyPair;
+    /**
+     * Registry of the signing timer.
+     */
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(EpicConstants.RSA);
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    void signsAssertionsVerifiableWithThePublicKey() {
+        EpicAssertionSigner signer = signer(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+
+        DecodedJWT first = JWT.require(Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), null))
+                .withIssuer("client").withSubject("client").withAudience(REST_ENDPOINT + EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT)
+                .build().verify(signer.sign());
+        DecodedJWT second = JWT.decode(signer.sign());
+
+        assertEquals("JWT", first.getType());
+        assertTrue(first.getId().matches("[A-Z1-9]{4}-[A-Z1-9]{5}-[A-Z1-9]{5}-[A-Z1-9]{5}-[A-Z1-9]{4}"), first.getId());
+        assertNotEquals(first.getId(), second.getId());
+        long lifetime = first.getExpiresAtAsInstant().toEpochMilli() - System.currentTimeMillis();
+        assertTrue(lifetime > 0 && lifetime <= TimeUnit.MINUTES.toMillis(5), String.valueOf(lifetime));
+        assertEquals(List.of(REST_ENDPOINT + EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT), second.getAudience());
+        assertEquals(2, meterRegistry.get(EpicConstants.METRIC_ASSERTION_SIGN).timer().count());
+    }
+
+    @Test
+    void refusesAKeyThatIsNotAnRsaKeyOnStartup() {
+        assertThrows(CustomInvalidCredentialException.class, () -> signer(Base64.getEncoder().encodeToString(new byte[] {1, 2, 3})));
+    }
+
+    /**
+     * Build a signer of the client {@code client} and load its key.
+     *
+     * @param privateKey Base64 PKCS8 private key.
+     * @return signer The initialised signer
+     */
+    private EpicAssertionSigner signer(String privateKey) {
+        EpicAssertionSigner signer = new EpicAssertionSigner(new MockEnvironment()
+                .withProperty(EpicConstants.PRIVATE_KEY, privateKey)
+                .withProperty(EpicConstants.CLIENT_ID, "client")
+                .withProperty(EpicConstants.REST_ENDPOINT, REST_ENDPOINT), meterRegistry);
+        signer.init();
+        return signer;
+    }
+}
@@ -0,0 +1,206 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicyRegistry;
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of {@link EpicClientService} against a local HTTP server standing in for Epic.
+ */
+class EpicClientServiceTest {
+    /**
+     * Local server answering the token and API requests.
+     */
+    private HttpServer server;
+    /**
+     * Number of token requests received.
+     */
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    /**
+     * Counted down once a token request was received.
+     */
+    private final CountDownLatch tokenRequested = new CountDownLatch(1);
+    /**
+     * Awaited by the token requests before they are answered.
+     */
+    private volatile CountDownLatch tokenRelease = new CountDownLatch(0);
+    /**
+     * Status code of the token responses.
+     */
+    private final AtomicInteger tokenStatus = new AtomicInteger(200);
+    /**
+     * Lifetime in seconds of the tokens issued.
+     */
+    private final AtomicLong expiresIn = new AtomicLong(3600);
+    /**
+     * Client port and Authorization header of every API request received.
+     */
+    private final List<String> apiRequests = new CopyOnWriteArrayList<>();
+    /**
+     * The service under test.
+     */
+    private EpicClientService epicClientService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/" + EpicConstants.EPIC_ACCESS_TOKEN_ENDPOINT, exchange -> {
+            int request = tokenRequests.incrementAndGet();
+            tokenRequested.countDown();
+            try {
+                tokenRelease.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, tokenStatus.get(), "{\"access_token\":\"T" + request + "\",\"expires_in\":" + expiresIn.get() + "}");
+        });
+        server.createContext("/api", exchange -> {
+            apiRequests.add(exchange.getRemoteAddress().getPort() + " " + exchange.getRequestHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+            respond(exchange, 200, "{}");
+        });
+        server.start();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(EpicConstants.REST_ENDPOINT, "http://localhost:" + server.getAddress().getPort() + "/");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EpicEndpointPolicyRegistry epicEndpointPolicyRegistry = new EpicEndpointPolicyRegistry(environment, meterRegistry);
+        epicEndpointPolicyRegistry.init();
+        EpicAssertionSigner epicAssertionSigner = mock(EpicAssertionSigner.class);
+        when(epicAssertionSigner.sign()).thenReturn("assertion");
+        epicClientService = new EpicClientService(environment, new CacheService(), epicAssertionSigner, epicEndpointPolicyRegistry);
+        epicClientService.initHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        epicClientService.closeHttpClient();
+        server.stop(0);
+    }
+
+    @Test
+    void requestsShareOnePooledConnection() throws Exception {
+        assertSame(epicClientService.getHttpClientInstance(), epicClientService.getHttpClientInstance());
+
+        get("/api/first");
+        get("/api/second");
+
+        assertEquals(2, apiRequests.size());
+        assertEquals(apiRequests.get(0), apiRequests.get(1));
+        assertEquals(EpicConstants.TOKEN_TYPE + "T1", apiRequests.get(0).substring(apiRequests.get(0).indexOf(' ') + 1));
+        assertEquals(1, tokenRequests.get());
+    }
+
+    @Test
+    void concurrentCallersShareOneTokenRefresh() throws Exception {
+        tokenRelease = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> tokens = new ArrayList<>();
+            tokens.add(callers.submit(epicClientService::obtainAccessToken));
+            assertTrue(tokenRequested.await(5, TimeUnit.SECONDS));
+            for (int k = 1; k < 8; k++) {
+                tokens.add(callers.submit(epicClientService::obtainAccessToken));
+            }
+            CompletableFuture<String> header = epicClientService.getAuthorizationHeaderValueAsync();
+
+            tokenRelease.countDown();
+
+            for (Future<String> token : tokens) {
+                assertEquals("T1", token.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(EpicConstants.TOKEN_TYPE + "T1", header.get(5, TimeUnit.SECONDS));
+            assertEquals(1, tokenRequests.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void renewsTheTokenAheadOfItsExpiry() throws Exception {
+        expiresIn.set(EpicConstants.DEFAULT_TOKEN_REFRESH_AHEAD - 60);
+        assertEquals("T1", epicClientService.obtainAccessToken());
+        expiresIn.set(3600);
+
+        epicClientService.refreshAccessTokenAhead();
+
+        assertEquals(2, tokenRequests.get());
+        assertEquals("T2", epicClientService.obtainAccessToken());
+        epicClientService.refreshAccessTokenAhead();
+        assertEquals(2, tokenRequests.get());
+    }
+
+    @Test
+    void keepsTheCurrentTokenWhenTheRenewalFails() throws Exception {
+        expiresIn.set(EpicConstants.DEFAULT_TOKEN_REFRESH_AHEAD - 60);
+        assertEquals("T1", epicClientService.obtainAccessToken());
+        tokenStatus.set(500);
+
+        epicClientService.refreshAccessTokenAhead();
+
+        assertEquals(2, tokenRequests.get());
+        assertEquals("T1", epicClientService.obtainAccessToken());
+        assertEquals(2, tokenRequests.get());
+    }
+
+    /**
+     * Send a GET request through the pooled client and read its response.
+     *
+     * @param path Path of the request.
+     * @throws IOException Exception during the request.
+     */
+    private void get(String path) throws IOException {
+        try (CloseableHttpResponse response = epicClientService.getHttpClientInstance()
+                .execute(new HttpGet("http://localhost:" + server.getAddress().getPort() + path))) {
+            assertEquals(200, response.getStatusLine().getStatusCode());
+            EntityUtils.consume(response.getEntity());
+        }
+    }
+
+    /**
+     * Answer a request with a JSON body.
+     *
+     * @param exchange The request.
+     * @param status   Status code of the response.
+     * @param body     JSON body of the response.
+     * @throws IOException Exception during writing the response.
+     */
+    static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, EpicConstants.APPLICATION_JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,334 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.dto.EpicViewUser;
+import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
+import com.clearskye.epicconnector.exception.EpicResponseException;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicyRegistry;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of the Epic REST calls of {@link EpicConnectionService}.
+ */
+class EpicConnectionServiceTest {
+    /**
+     * Mocked Epic client holding the access token and the asynchronous HTTP client.
+     */
+    private EpicClientService epicClientService;
+    /**
+     * Mocked asynchronous HTTP client.
+     */
+    private CloseableHttpAsyncClient asyncHttpClient;
+    /**
+     * Authorization header value of the calls, completed by the tests.
+     */
+    private CompletableFuture<String> authorization;
+    /**
+     * Registry of the single-flight metrics.
+     */
+    private SimpleMeterRegistry meterRegistry;
+    /**
+     * The service under test.
+     */
+    private EpicConnectionService epicConnectionService;
+
+    @BeforeEach
+    void setUp() {
+        epicClientService = mock(EpicClientService.class);
+        asyncHttpClient = mock(CloseableHttpAsyncClient.class);
+        authorization = new CompletableFuture<>();
+        when(epicClientService.getAuthorizationHeaderValueAsync()).thenReturn(authorization);
+        when(epicClientService.getAsyncHttpClientInstance()).thenReturn(asyncHttpClient);
+        meterRegistry = new SimpleMeterRegistry();
+        EpicEndpointPolicyRegistry epicEndpointPolicyRegistry = new EpicEndpointPolicyRegistry(new MockEnvironment(), meterRegistry);
+        epicEndpointPolicyRegistry.init();
+        epicConnectionService = new EpicConnectionService(epicClientService, epicEndpointPolicyRegistry);
+    }
+
+    @Test
+    void waitsForTheTokenWithoutBlockingTheCaller() {
+        CompletableFuture<ResponseEntity<Map<String, Object>>> call = epicConnectionService.executeRequestAsync("http://epic/api/ViewUser",
+                EpicConnectionService.HttpOperationType.GET, Map.of(), null);
+
+        assertFalse(call.isDone());
+        verify(epicClientService, never()).getAsyncHttpClientInstance();
+
+        authorization.complete(EpicConstants.TOKEN_TYPE + "T1");
+
+        ArgumentCaptor<SimpleHttpRequest> request = ArgumentCaptor.forClass(SimpleHttpRequest.class);
+        verify(asyncHttpClient).execute(request.capture(), any());
+        assertEquals(EpicConstants.TOKEN_TYPE + "T1", request.getValue().getFirstHeader(HttpHeaders.AUTHORIZATION).getValue());
+        assertFalse(call.isDone());
+    }
+
+    @Test
+    void failsWhenNoTokenIsObtained() {
+        CustomInvalidCredentialException failure = new CustomInvalidCredentialException("Unable to obtain access token from Epic");
+        CompletableFuture<ResponseEntity<Map<String, Object>>> call = epicConnectionService.executeRequestAsync("http://epic/api/ViewUser",
+                EpicConnectionService.HttpOperationType.GET, Map.of(), null);
+
+        authorization.completeExceptionally(failure);
+
+        assertSame(failure, assertThrows(ExecutionException.class, call::get).getCause());
+        verify(epicClientService, never()).getAsyncHttpClientInstance();
+    }
+
+    @Test
+    void identicalReadsShareOneCallAndGetTheirOwnUser() throws Exception {
+        HeldHttpClient held = new HeldHttpClient();
+        ExecutorService callers = Executors.newCachedThreadPool();
+        try {
+            Future<EpicViewUser> leader = callers.submit(() -> viewUser("U1"));
+            assertTrue(held.started.await(5, TimeUnit.SECONDS));
+            Future<EpicViewUser> follower = callers.submit(() -> viewUser("U1"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sharedReads() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+
+            held.release.countDown();
+
+            EpicViewUser leaderUser = leader.get(5, TimeUnit.SECONDS);
+            EpicViewUser followerUser = follower.get(5, TimeUnit.SECONDS);
+            assertEquals(leaderUser, followerUser);
+            assertEquals("U1", EpicViewUser.externalId(followerUser.userIds()));
+            assertNotSame(leaderUser.blockStatus(), followerUser.blockStatus());
+            assertNotSame(leaderUser.notes(), followerUser.notes());
+            assertNotSame(leaderUser.userIds(), followerUser.userIds());
+            assertEquals(1, held.calls.get());
+        } finally {
+            held.release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsAfterAWriteDoNotJoinTheReadsBeforeIt() throws Exception {
+        HeldHttpClient held = new HeldHttpClient();
+        ExecutorService callers = Executors.newCachedThreadPool();
+        try {
+            Future<EpicViewUser> before = callers.submit(() -> viewUser("U1"));
+            assertTrue(held.started.await(5, TimeUnit.SECONDS));
+
+            epicConnectionService.executeRequest("http://epic/" + EpicConstants.EPIC_UPDATE_USER_ENDPOINT,
+                    EpicConnectionService.HttpOperationType.PUT, null, Map.of("Name", "Renamed"));
+            EpicViewUser after = viewUser("U1");
+
+            held.release.countDown();
+            assertEquals(after, before.get(5, TimeUnit.SECONDS));
+            assertEquals(3, held.calls.get());
+            assertEquals(0, sharedReads());
+        } finally {
+            held.release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void decodesTheResponseStraightFromTheEntityStream() throws Exception {
+        ClosingStream content = new ClosingStream("{\"UserIDs\":[{\"ID\":\"U1\",\"Type\":\"External\"}],\"Notes\":[\"First\"]}");
+        respondWith(200, new InputStreamEntity(content, ContentType.APPLICATION_JSON));
+
+        ResponseEntity<Map<String, Object>> response = epicConnectionService.executeRequest("http://epic/" + EpicConstants.EPIC_GET_USER_ENDPOINT,
+                EpicConnectionService.HttpOperationType.GET, Map.of(EpicConstants.USER_ID_FIELD, "U1"), null);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(Map.of(EpicConstants.USER_IDS, List.of(Map.of("ID", "U1", "Type", "External")), "Notes", List.of("First")),
+                response.getBody());
+        assertTrue(content.closed);
+    }
+
+    @Test
+    void decodesAResponseWithoutBodyToAnEmptyMap() throws Exception {
+        respondWith(204, null);
+
+        ResponseEntity<Map<String, Object>> response = epicConnectionService.executeRequest("http://epic/" + EpicConstants.EPIC_UPDATE_USER_ENDPOINT,
+                EpicConnectionService.HttpOperationType.PUT, null, Map.of("Name", "Renamed"));
+
+        assertEquals(204, response.getStatusCode().value());
+        assertEquals(Map.of(), response.getBody());
+    }
+
+    @Test
+    void decodesTheErrorBodyOfATypedCall() throws Exception {
+        respondWith(404, new StringEntity("{\"Message\":\"No user\"}", ContentType.APPLICATION_JSON));
+
+        EpicResponseException failure = assertThrows(EpicResponseException.class, () -> viewUser("U1"));
+
+        assertEquals(404, failure.getStatusCode());
+        assertEquals(Map.of("Message", "No user"), failure.getBody());
+    }
+
+    @Test
+    void transientFailuresAreRetriedUntilTheBudgetIsSpent() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(EpicConstants.POLICY_PREFIX + "viewUser" + EpicConstants.POLICY_MAX_RETRIES, "5")
+                .withProperty(EpicConstants.POLICY_PREFIX + "viewUser" + EpicConstants.POLICY_INITIAL_BACKOFF, "0")
+                .withProperty(EpicConstants.RETRY_BUDGET_MAX, "1")
+                .withProperty(EpicConstants.RETRY_BUDGET_RATIO, "0");
+        EpicEndpointPolicyRegistry epicEndpointPolicyRegistry = new EpicEndpointPolicyRegistry(environment, meterRegistry);
+        epicEndpointPolicyRegistry.init();
+        epicConnectionService = new EpicConnectionService(epicClientService, epicEndpointPolicyRegistry);
+        CloseableHttpClient httpClient = respondWith(503, null);
+
+        ResponseEntity<Map<String, Object>> first = epicConnectionService.executeRequest("http://epic/" + EpicConstants.EPIC_GET_USER_ENDPOINT,
+                EpicConnectionService.HttpOperationType.GET, Map.of(EpicConstants.USER_ID_FIELD, "U1"), null);
+        ResponseEntity<Map<String, Object>> second = epicConnectionService.executeRequest("http://epic/" + EpicConstants.EPIC_GET_USER_ENDPOINT,
+                EpicConnectionService.HttpOperationType.GET, Map.of(EpicConstants.USER_ID_FIELD, "U2"), null);
+
+        assertEquals(503, first.getStatusCode().value());
+        assertEquals(503, second.getStatusCode().value());
+        verify(httpClient, times(3)).execute(any(HttpUriRequest.class));
+    }
+
+    /**
+     * Answer every synchronous call with a response.
+     *
+     * @param status Status code of the response.
+     * @param entity Body of the response, may be null.
+     * @return httpClient The mocked HTTP client
+     * @throws IOException Never, declared by the mocked call.
+     */
+    private CloseableHttpClient respondWith(int status, HttpEntity entity) throws IOException {
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(epicClientService.getHttpClientInstance()).thenReturn(httpClient);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(response);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, status, null));
+        when(response.getEntity()).thenReturn(entity);
+        return httpClient;
+    }
+
+    /**
+     * Response body stream recording whether it was closed.
+     */
+    private static final class ClosingStream extends ByteArrayInputStream {
+        /**
+         * Whether the stream was closed.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Stream a JSON body.
+         *
+         * @param json The body.
+         */
+        private ClosingStream(String json) {
+            super(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    /**
+     * Read a user through ViewUser.
+     *
+     * @param userId External id of the user.
+     * @return user The user
+     * @throws Exception Exception during the call.
+     */
+    private EpicViewUser viewUser(String userId) throws Exception {
+        return epicConnectionService.executeRequest("http://epic/" + EpicConstants.EPIC_GET_USER_ENDPOINT,
+                EpicConnectionService.HttpOperationType.GET, Map.of(EpicConstants.USER_ID_FIELD, userId), null, EpicViewUser.class).getBody();
+    }
+
+    /**
+     * Number of reads served by an identical call already in flight.
+     *
+     * @return shared Number of shared reads
+     */
+    private double sharedReads() {
+        return meterRegistry.get(EpicConstants.METRIC_SINGLE_FLIGHT_SHARED).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    /**
+     * Mocked synchronous HTTP client answering every call with a user, holding the first call until released.
+     */
+    private final class HeldHttpClient {
+        /**
+         * Counted down once the first call started.
+         */
+        private final CountDownLatch started = new CountDownLatch(1);
+        /**
+         * Released to end the first call.
+         */
+        private final CountDownLatch release = new CountDownLatch(1);
+        /**
+         * Number of calls sent.
+         */
+        private final AtomicInteger calls = new AtomicInteger();
+
+        /**
+         * Install the client in the mocked Epic client.
+         *
+         * @throws IOException Never, declared by the mocked call.
+         */
+        private HeldHttpClient() throws IOException {
+            CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+            when(epicClientService.getHttpClientInstance()).thenReturn(httpClient);
+            when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+                if (calls.incrementAndGet() == 1) {
+                    started.countDown();
+                    release.await();
+                }
+                CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+                when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+                when(response.getEntity()).thenReturn(new StringEntity("{\"UserIDs\":[{\"ID\":\"U1\",\"Type\":\"External\"}],"
+                        + "\"BlockStatus\":{\"IsBlocked\":false},\"Notes\":[\"First\"],\"Name\":\"One\"}",
+                        ContentType.APPLICATION_JSON));
+                return response;
+            });
+        }
+    }
+}
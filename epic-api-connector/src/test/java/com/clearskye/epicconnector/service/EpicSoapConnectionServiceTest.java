@@ -0,0 +1,142 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.exception.CustomCommonException;
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+import com.clearskye.epicconnector.resilience.EpicEndpointPolicyRegistry;
+import com.clearskye.epicconnector.soap.EpicGetRecordsEnvelope;
+import com.clearskye.epicconnector.soap.EpicPageCursor;
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of {@link EpicSoapConnectionService} against a local HTTP server standing in for the Epic SOAP listener.
+ */
+class EpicSoapConnectionServiceTest {
+    /**
+     * Local server answering the GetRecords requests.
+     */
+    private HttpServer server;
+    /**
+     * Status code and recorded response file answered to every request.
+     */
+    private final AtomicReference<Map.Entry<Integer, String>> answer = new AtomicReference<>(Map.entry(200, "get-records-response.xml"));
+    /**
+     * Client port, SOAPAction, client id and body of every request received.
+     */
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+    /**
+     * The service under test.
+     */
+    private EpicSoapConnectionService epicSoapConnectionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/" + EpicConstants.SOAP_END_POINT, exchange -> {
+            requests.add(List.of(String.valueOf(exchange.getRemoteAddress().getPort()),
+                    exchange.getRequestHeaders().getFirst(EpicConstants.SOAP_ACTION),
+                    exchange.getRequestHeaders().getFirst(EpicConstants.EPIC_CLIENT_ID),
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            byte[] body;
+            try (InputStream content = getClass().getResourceAsStream("/soap/" + answer.get().getValue())) {
+                body = content.readAllBytes();
+            }
+            exchange.getResponseHeaders().set("Content-Type", EpicConstants.SOAP_CONTENT_TYPE);
+            exchange.sendResponseHeaders(answer.get().getKey(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(EpicConstants.SOAPENDPOINT, "http://localhost:" + server.getAddress().getPort() + "/")
+                .withProperty(EpicConstants.CLIENT_ID, "client")
+                .withProperty(EpicConstants.CONFIG_USERNAME, "user")
+                .withProperty(EpicConstants.ENUMERATION_MAX_CONCURRENT, "2")
+                .withProperty(EpicConstants.SOAP_PREFETCH, "0");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EpicEndpointPolicyRegistry epicEndpointPolicyRegistry = new EpicEndpointPolicyRegistry(environment, meterRegistry);
+        epicEndpointPolicyRegistry.init();
+        EpicGetRecordsEnvelope epicGetRecordsEnvelope = new EpicGetRecordsEnvelope(environment);
+        epicGetRecordsEnvelope.render();
+        epicSoapConnectionService = new EpicSoapConnectionService(environment, epicEndpointPolicyRegistry, epicGetRecordsEnvelope,
+                meterRegistry);
+        epicSoapConnectionService.initHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        epicSoapConnectionService.closeHttpClient();
+        server.stop(0);
+    }
+
+    @Test
+    void postsTheEnvelopeAndParsesTheResponseOverOnePooledConnection() throws Exception {
+        Map<String, Object> first = epicSoapConnectionService.callSoapService(Map.of(), EpicConstants.EMP, null);
+        Map<String, Object> second = epicSoapConnectionService.callSoapService(Map.of(EpicConstants.PAGE_SIZE, "2"), EpicConstants.EMP, null);
+
+        assertEquals(2, ((List<?>) first.get(EpicConstants.RECORDLIST)).size());
+        assertEquals(first, second);
+        assertEquals(2, requests.size());
+        assertEquals(requests.get(0).get(0), requests.get(1).get(0));
+        assertEquals(EpicConstants.SOAP_ACTION_VALUE, requests.get(0).get(1));
+        assertEquals("client", requests.get(0).get(2));
+        assertTrue(requests.get(0).get(3).contains(EpicConstants.GET_RECORDS), requests.get(0).get(3));
+    }
+
+    @Test
+    void soapFaultIsThrown() {
+        answer.set(Map.entry(500, "fault-server.xml"));
+
+        CustomCommonException failure = assertThrows(CustomCommonException.class,
+                () -> epicSoapConnectionService.callSoapService(Map.of(), EpicConstants.EMP, null));
+
+        assertEquals("Search criteria are not valid for the INI EMP.", failure.getMessage());
+    }
+
+    @Test
+    void unexpectedStatusIsABadResponse() {
+        answer.set(Map.entry(404, "get-records-empty.xml"));
+
+        CustomCommonException failure = assertThrows(CustomCommonException.class,
+                () -> epicSoapConnectionService.callSoapService(Map.of(), EpicConstants.EMP, null));
+
+        assertTrue(failure.getMessage().startsWith("Bad response: (404"), failure.getMessage());
+    }
+
+    @Test
+    void refusesEnumerationsPastTheLimitUntilOneIsClosed() {
+        EpicPageCursor first = epicSoapConnectionService.openEnumeration(Map.of(), EpicConstants.EMP);
+        EpicPageCursor second = epicSoapConnectionService.openEnumeration(Map.of(), EpicConstants.EMP);
+
+        assertThrows(EpicUnavailableException.class, () -> epicSoapConnectionService.openEnumeration(Map.of(), EpicConstants.EMP));
+
+        first.close();
+        first.close();
+        EpicPageCursor third = epicSoapConnectionService.openEnumeration(Map.of(), EpicConstants.EMP);
+        assertThrows(EpicUnavailableException.class, () -> epicSoapConnectionService.openEnumeration(Map.of(), EpicConstants.EMP));
+
+        second.close();
+        third.close();
+    }
+}
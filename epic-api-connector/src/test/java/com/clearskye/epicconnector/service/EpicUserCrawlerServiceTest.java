@@ -0,0 +1,119 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.snapshot.EpicUserSnapshotStore;
+import com.clearskye.epicconnector.soap.EpicPageCursor;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of {@link EpicUserCrawlerService}.
+ */
+class EpicUserCrawlerServiceTest {
+    /**
+     * Mocked Epic SOAP connection enumerating the users.
+     */
+    private EpicSoapConnectionService epicSoapConnectionService;
+    /**
+     * Mocked enrichment service writing the users to the snapshot.
+     */
+    private EpicUserEnrichmentService epicUserEnrichmentService;
+    /**
+     * Mocked snapshot store.
+     */
+    private EpicUserSnapshotStore epicUserSnapshotStore;
+    /**
+     * Registry of the crawler metrics.
+     */
+    private SimpleMeterRegistry meterRegistry;
+    /**
+     * The service under test.
+     */
+    private EpicUserCrawlerService epicUserCrawlerService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        epicSoapConnectionService = mock(EpicSoapConnectionService.class);
+        epicUserEnrichmentService = mock(EpicUserEnrichmentService.class);
+        epicUserSnapshotStore = mock(EpicUserSnapshotStore.class);
+        meterRegistry = new SimpleMeterRegistry();
+        EpicPageCursor cursor = mock(EpicPageCursor.class);
+        when(cursor.nextPage()).thenReturn(page("U1", "U2"), page("U3"), null);
+        when(epicSoapConnectionService.openEnumeration(anyMap(), anyString())).thenReturn(cursor);
+        when(epicUserEnrichmentService.enrichUsers(any(), any())).thenAnswer(invocation -> {
+            List<String> userIds = invocation.getArgument(0);
+            if (userIds.contains("U1")) {
+                invocation.<LongAdder>getArgument(1).increment();
+            }
+            return List.of();
+        });
+        when(epicUserSnapshotStore.retainSeen(any(), anyLong())).thenReturn(2);
+        epicUserCrawlerService = new EpicUserCrawlerService(new MockEnvironment()
+                .withProperty(EpicConstants.CRAWLER_MAX_RECORDS_PER_SECOND, "0"), epicSoapConnectionService,
+                epicUserEnrichmentService, epicUserSnapshotStore, meterRegistry);
+        epicUserCrawlerService.registerMetrics();
+    }
+
+    @Test
+    void completeEnumerationRemovesUnseenUsers() throws Exception {
+        when(epicSoapConnectionService.isEnumerationComplete()).thenReturn(true);
+
+        assertEquals(3, epicUserCrawlerService.crawlUsers());
+
+        verify(epicUserSnapshotStore).retainSeen(eq(Set.of("U1", "U2", "U3")), anyLong());
+        assertEquals(1, changes("updated"));
+        assertEquals(2, changes("removed"));
+    }
+
+    @Test
+    void partialEnumerationKeepsUnseenUsers() throws Exception {
+        when(epicSoapConnectionService.isEnumerationComplete()).thenReturn(false);
+
+        assertEquals(3, epicUserCrawlerService.crawlUsers());
+
+        verify(epicUserSnapshotStore, never()).retainSeen(any(), anyLong());
+        assertEquals(1, changes("updated"));
+        assertEquals(0, changes("removed"));
+    }
+
+    /**
+     * Count of the snapshot changes of a kind written by the crawler.
+     *
+     * @param change Kind of change.
+     * @return count The counted changes
+     */
+    private double changes(String change) {
+        return meterRegistry.get(EpicConstants.METRIC_CRAWLER_CHANGES).tag("change", change).counter().count();
+    }
+
+    /**
+     * A page of enumerated users.
+     *
+     * @param userIds UserIDs of the page.
+     * @return page The page
+     */
+    private static EpicPageCursor.Page page(String... userIds) {
+        return new EpicPageCursor.Page(List.of(userIds).stream()
+                .<Map<String, Object>>map(userId -> Map.of(EpicConstants.XML_RECORD_ID, userId)).toList(), Map.of());
+    }
+}
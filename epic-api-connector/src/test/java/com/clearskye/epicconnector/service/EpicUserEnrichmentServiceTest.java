@@ -0,0 +1,242 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.dto.EpicViewUser;
+import com.clearskye.epicconnector.exception.EpicResponseException;
+import com.clearskye.epicconnector.exception.EpicUnavailableException;
+import com.clearskye.epicconnector.exception.EpicUserNotFoundException;
+import com.clearskye.epicconnector.snapshot.EpicUserSnapshotStore;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of the cached single user reads and the page enrichment of {@link EpicUserEnrichmentService}.
+ */
+class EpicUserEnrichmentServiceTest {
+    /**
+     * Mocked Epic REST connection.
+     */
+    private EpicConnectionService epicConnectionService;
+    /**
+     * Mocked user utility service building the user response.
+     */
+    private EpicUserUtilityService epicUserUtilityService;
+    /**
+     * The service under test.
+     */
+    private EpicUserEnrichmentService epicUserEnrichmentService;
+    /**
+     * Released to end the ViewUser calls of the users whose id starts with {@code BLOCKED}.
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        epicConnectionService = mock(EpicConnectionService.class);
+        epicUserUtilityService = mock(EpicUserUtilityService.class);
+        when(epicConnectionService.executeRequest(anyString(), any(), anyMap(), any(), eq(EpicViewUser.class))).thenAnswer(invocation -> {
+            if (invocation.<Map<String, Object>>getArgument(2).get(EpicConstants.USER_ID_FIELD).toString().startsWith("BLOCKED")) {
+                release.await();
+            }
+            return ResponseEntity.ok(mock(EpicViewUser.class));
+        });
+        when(epicUserUtilityService.getUserGroups(any(), anyString())).thenReturn(ResponseEntity.ok(Map.of()));
+        MockEnvironment environment = new MockEnvironment().withProperty(EpicConstants.REST_ENDPOINT, "http://epic");
+        epicUserEnrichmentService = new EpicUserEnrichmentService(environment, epicConnectionService, epicUserUtilityService,
+                mock(EpicUserSnapshotStore.class), new SimpleMeterRegistry());
+        epicUserEnrichmentService.initExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        epicUserEnrichmentService.shutdownExecutor();
+    }
+
+    @Test
+    void getUserCachesTheEnrichedUser() throws Exception {
+        Map<String, Object> user = Map.of(EpicConstants.USER_ID_FIELD, "U1");
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(user);
+
+        assertSame(user, epicUserEnrichmentService.getUser("U1"));
+        assertSame(user, epicUserEnrichmentService.getUser("U1"));
+        verify(epicUserUtilityService, times(1)).buildReturnMap(any(), any());
+    }
+
+    @Test
+    void getUserWithoutUserIdsIsNotFoundAndNotCached() throws Exception {
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(null);
+
+        assertThrows(EpicUserNotFoundException.class, () -> epicUserEnrichmentService.getUser("U1"));
+        assertThrows(EpicUserNotFoundException.class, () -> epicUserEnrichmentService.getUser("U1"));
+        verify(epicUserUtilityService, times(2)).buildReturnMap(any(), any());
+    }
+
+    @Test
+    void evictedUserIsFetchedAgain() throws Exception {
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(Map.of(EpicConstants.USER_ID_FIELD, "U1"), Map.of());
+
+        assertEquals(Map.of(EpicConstants.USER_ID_FIELD, "U1"), epicUserEnrichmentService.getUser("U1"));
+        epicUserEnrichmentService.evictUser("U1");
+        assertEquals(Map.of(), epicUserEnrichmentService.getUser("U1"));
+    }
+
+    @Test
+    void loadStartedBeforeAnEvictionIsNotServed() throws Exception {
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(
+                Map.of(EpicConstants.USER_ID_FIELD, "BLOCKED", "Name", "Before"),
+                Map.of(EpicConstants.USER_ID_FIELD, "BLOCKED", "Name", "After"));
+        CompletableFuture<Map<String, Object>> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return epicUserEnrichmentService.getUser("BLOCKED");
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        verify(epicConnectionService, timeout(5000)).executeRequest(anyString(), any(), anyMap(), any(), eq(EpicViewUser.class));
+
+        epicUserEnrichmentService.evictUser("BLOCKED");
+        release.countDown();
+
+        assertEquals("After", slow.get(5, TimeUnit.SECONDS).get("Name"));
+        assertEquals("After", epicUserEnrichmentService.getUser("BLOCKED").get("Name"));
+        verify(epicUserUtilityService, times(2)).buildReturnMap(any(), any());
+    }
+
+    @Test
+    void enrichedPagesLeaveTheCacheAlone() throws Exception {
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(
+                Map.of(EpicConstants.USER_ID_FIELD, "U1", "Name", "Cached"),
+                Map.of(EpicConstants.USER_ID_FIELD, "U1", "Name", "Page"));
+
+        assertEquals("Cached", epicUserEnrichmentService.getUser("U1").get("Name"));
+        assertEquals("Page", epicUserEnrichmentService.enrichUsers(List.of("U1")).get(0).get("Name"));
+        assertEquals("Cached", epicUserEnrichmentService.getUser("U1").get("Name"));
+    }
+
+    @Test
+    void getUserDoesNotQueueBehindPages() throws Exception {
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(Map.of(EpicConstants.USER_ID_FIELD, "U1"));
+        restart(new MockEnvironment().withProperty(EpicConstants.REST_ENDPOINT, "http://epic")
+                .withProperty(EpicConstants.ENRICHMENT_THREADS, "1")
+                .withProperty(EpicConstants.ENRICHMENT_PARALLELISM, "1"));
+        CompletableFuture<List<Map<String, Object>>> page = CompletableFuture.supplyAsync(() -> {
+            try {
+                return epicUserEnrichmentService.enrichUsers(List.of("BLOCKED1", "BLOCKED2"));
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        assertEquals(Map.of(EpicConstants.USER_ID_FIELD, "U1"), epicUserEnrichmentService.getUser("U1"));
+        release.countDown();
+        assertEquals(2, page.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void lookupIsRefusedWhenTheLookupPoolIsFull() throws Exception {
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(Map.of(EpicConstants.USER_ID_FIELD, "U1"));
+        restart(new MockEnvironment().withProperty(EpicConstants.REST_ENDPOINT, "http://epic")
+                .withProperty(EpicConstants.LOOKUP_THREADS, "1")
+                .withProperty(EpicConstants.LOOKUP_QUEUE_SIZE, "1"));
+        CompletableFuture<Map<String, Object>> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return epicUserEnrichmentService.getUser("BLOCKED");
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        verify(epicConnectionService, timeout(5000)).executeRequest(anyString(), any(), anyMap(), any(), eq(EpicViewUser.class));
+
+        assertThrows(EpicUnavailableException.class, () -> epicUserEnrichmentService.getUser("U1"));
+        release.countDown();
+        assertEquals(Map.of(EpicConstants.USER_ID_FIELD, "U1"), blocked.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void enrichesAPageInOrderWithAtMostTheParallelismOfCallsAtOnce() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        when(epicConnectionService.executeRequest(anyString(), any(), anyMap(), any(), eq(EpicViewUser.class))).thenAnswer(invocation -> {
+            String userId = invocation.<Map<String, Object>>getArgument(2).get(EpicConstants.USER_ID_FIELD).toString();
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } finally {
+                running.decrementAndGet();
+            }
+            if (userId.startsWith("REFUSED")) {
+                throw new EpicResponseException(403, Map.of("Message", "Not allowed"));
+            }
+            EpicViewUser user = mock(EpicViewUser.class);
+            when(user.externalUserId()).thenReturn(userId);
+            return ResponseEntity.ok(user);
+        });
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenAnswer(invocation ->
+                Map.of(EpicConstants.USER_ID_FIELD, invocation.<EpicViewUser>getArgument(0).externalUserId()));
+        restart(new MockEnvironment().withProperty(EpicConstants.REST_ENDPOINT, "http://epic")
+                .withProperty(EpicConstants.ENRICHMENT_THREADS, "8")
+                .withProperty(EpicConstants.ENRICHMENT_PARALLELISM, "2"));
+
+        List<Map<String, Object>> users = epicUserEnrichmentService.enrichUsers(
+                List.of("U1", "U2", "REFUSED3", "U4", "U5", "U6", "REFUSED7", "U8"));
+
+        assertEquals(List.of("U1", "U2", "U4", "U5", "U6", "U8"), users.stream().map(user -> user.get(EpicConstants.USER_ID_FIELD)).toList());
+        assertTrue(mostRunning.get() <= 2, String.valueOf(mostRunning.get()));
+    }
+
+    @Test
+    void failureOtherThanARefusalFailsThePage() throws Exception {
+        EpicUnavailableException failure = new EpicUnavailableException("Epic is down");
+        when(epicConnectionService.executeRequest(anyString(), any(), anyMap(), any(), eq(EpicViewUser.class))).thenAnswer(invocation -> {
+            if ("U2".equals(invocation.<Map<String, Object>>getArgument(2).get(EpicConstants.USER_ID_FIELD))) {
+                throw failure;
+            }
+            return ResponseEntity.ok(mock(EpicViewUser.class));
+        });
+        when(epicUserUtilityService.buildReturnMap(any(), any())).thenReturn(Map.of(EpicConstants.USER_ID_FIELD, "U"));
+
+        assertSame(failure, assertThrows(EpicUnavailableException.class,
+                () -> epicUserEnrichmentService.enrichUsers(List.of("U1", "U2", "U3"))));
+    }
+
+    /**
+     * Replace the service under test by one started with another configuration.
+     *
+     * @param environment Configuration of the new service.
+     */
+    private void restart(MockEnvironment environment) {
+        epicUserEnrichmentService.shutdownExecutor();
+        epicUserEnrichmentService = new EpicUserEnrichmentService(environment, epicConnectionService, epicUserUtilityService,
+                mock(EpicUserSnapshotStore.class), new SimpleMeterRegistry());
+        epicUserEnrichmentService.initExecutor();
+    }
+}
@@ -0,0 +1,135 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.clearskye.epicconnector.exception.CustomCommonException;
+import com.clearskye.epicconnector.soap.EpicPageCursor;
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests of the NDJSON stream of {@link EpicUserExportService}.
+ */
+class EpicUserExportServiceTest {
+    /**
+     * Object Mapper reading the exported lines.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Mocked cursor over the enumerated users.
+     */
+    private EpicPageCursor cursor;
+    /**
+     * Mocked Epic SOAP connection enumerating the users.
+     */
+    private EpicSoapConnectionService epicSoapConnectionService;
+    /**
+     * Mocked enrichment service returning the users of a page.
+     */
+    private EpicUserEnrichmentService epicUserEnrichmentService;
+    /**
+     * The service under test.
+     */
+    private EpicUserExportService epicUserExportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cursor = mock(EpicPageCursor.class);
+        epicSoapConnectionService = mock(EpicSoapConnectionService.class);
+        epicUserEnrichmentService = mock(EpicUserEnrichmentService.class);
+        when(epicSoapConnectionService.openEnumeration(anyMap(), anyString())).thenReturn(cursor);
+        when(epicUserEnrichmentService.enrichUsers(List.of("U1", "U2"))).thenReturn(List.of(user("U1"), user("U2")));
+        when(epicUserEnrichmentService.enrichUsers(List.of("U3"))).thenReturn(List.of(user("U3")));
+        epicUserExportService = new EpicUserExportService(epicSoapConnectionService, epicUserEnrichmentService);
+    }
+
+    @Test
+    void completeExportEndsWithTheCount() throws Exception {
+        when(cursor.nextPage()).thenReturn(page("U1", "U2"), page("U3"), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(3, epicUserExportService.exportUsers("2", out));
+
+        assertEquals(List.of(user("U1"), user("U2"), user("U3"),
+                Map.of(EpicConstants.EXPORT_STATUS, EpicConstants.EXPORT_COMPLETE, EpicConstants.EXPORTED_USERS, 3)), lines(out));
+        verify(cursor).close();
+    }
+
+    @Test
+    void failedExportEndsWithTheFailure() throws Exception {
+        CustomCommonException failure = new CustomCommonException("Epic is down");
+        when(cursor.nextPage()).thenReturn(page("U1", "U2")).thenThrow(failure);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertSame(failure, assertThrows(CustomCommonException.class, () -> epicUserExportService.exportUsers(null, out)));
+
+        assertEquals(List.of(user("U1"), user("U2"), Map.of(EpicConstants.EXPORT_STATUS, EpicConstants.EXPORT_FAILED,
+                EpicConstants.EXPORTED_USERS, 2, EpicConstants.RESPONSE_MESSAGE, "Epic is down")), lines(out));
+        verify(cursor).close();
+    }
+
+    @Test
+    void failureToOpenTheEnumerationIsWrittenToo() throws Exception {
+        when(epicSoapConnectionService.openEnumeration(anyMap(), anyString())).thenThrow(new CustomCommonException("No session"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(CustomCommonException.class, () -> epicUserExportService.exportUsers(null, out));
+
+        assertEquals(List.of(Map.of(EpicConstants.EXPORT_STATUS, EpicConstants.EXPORT_FAILED,
+                EpicConstants.EXPORTED_USERS, 0, EpicConstants.RESPONSE_MESSAGE, "No session")), lines(out));
+    }
+
+    /**
+     * Read the exported lines.
+     *
+     * @param out The written export.
+     * @return lines The JSON object of every line
+     * @throws Exception Exception during reading a line.
+     */
+    private static List<Map<String, Object>> lines(ByteArrayOutputStream out) throws Exception {
+        String export = out.toString(StandardCharsets.UTF_8);
+        assertEquals('\n', export.charAt(export.length() - 1));
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : export.split("\n")) {
+            lines.add(objectMapper.readValue(line, Map.class));
+        }
+        return lines;
+    }
+
+    /**
+     * An enriched user.
+     *
+     * @param userId UserID of the user.
+     * @return user The user
+     */
+    private static Map<String, Object> user(String userId) {
+        return Map.of(EpicConstants.USER_ID_FIELD, userId);
+    }
+
+    /**
+     * A page of enumerated users.
+     *
+     * @param userIds UserIDs of the page.
+     * @return page The page
+     */
+    private static EpicPageCursor.Page page(String... userIds) {
+        return new EpicPageCursor.Page(List.of(userIds).stream()
+                .<Map<String, Object>>map(userId -> Map.of(EpicConstants.XML_RECORD_ID, userId)).toList(), null);
+    }
+}
@@ -0,0 +1,72 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.dto.EpicViewUser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests of the typed user mapping of {@link EpicUserUtilityService}, against the output of the former
+ * map-based mapping recorded for the same input.
+ */
+class EpicUserUtilityServiceTest {
+    /**
+     * Object Mapper reading the recorded documents.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * The service under test.
+     */
+    private final EpicUserUtilityService epicUserUtilityService = new EpicUserUtilityService(new MockEnvironment());
+
+    @Test
+    void buildsTheSameUserAsTheMapBasedMapping() throws IOException {
+        EpicViewUser user = objectMapper.readValue(read("view-user.json"), EpicViewUser.class);
+
+        Map<String, Object> returned = epicUserUtilityService.buildReturnMap(user, List.of("GRP1", "GRP2"));
+
+        assertEquals(objectMapper.readTree(read("view-user-response.json")), objectMapper.valueToTree(returned));
+    }
+
+    @Test
+    void buildsNoUserWithoutUserIds() throws IOException {
+        EpicViewUser user = objectMapper.readValue("{\"Name\":\"LOVELACE, ADA\"}", EpicViewUser.class);
+
+        assertNull(epicUserUtilityService.buildReturnMap(user, List.of()));
+    }
+
+    @Test
+    void buildsTheSameRequestAsTheMapBasedMapping() throws IOException {
+        Map<String, Object> attributes = objectMapper.readValue(read("user-attributes.json"), new TypeReference<Map<String, Object>>() {
+        });
+
+        Map<String, Object> request = epicUserUtilityService.buildRequestPayload(attributes);
+
+        JsonNode expected = objectMapper.readTree(read("user-request.json"));
+        assertEquals(expected, objectMapper.readTree(objectMapper.writeValueAsString(request)));
+    }
+
+    /**
+     * Read a recorded document.
+     *
+     * @param name File name under {@code /rest}.
+     * @return content The document
+     * @throws IOException Exception during reading the document.
+     */
+    private byte[] read(String name) throws IOException {
+        try (InputStream content = getClass().getResourceAsStream("/rest/" + name)) {
+            return content.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.clearskye.epicconnector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.catalog.EpicCatalogRegistry;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests of the catalog reads of {@link OtherObjectService}.
+ */
+class OtherObjectServiceTest {
+    /**
+     * Directory of the catalog files of a test.
+     */
+    @TempDir
+    Path directory;
+    /**
+     * Registry the service reads the catalogs from.
+     */
+    private EpicCatalogRegistry epicCatalogRegistry;
+    /**
+     * The service under test.
+     */
+    private OtherObjectService otherObjectService;
+    /**
+     * Path of the groups catalog.
+     */
+    private String filepath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = directory.resolve("groups.csv");
+        StringBuilder content = new StringBuilder("GroupID,GroupName\n");
+        for (int id = 0; id < 120; id++) {
+            content.append("G").append(id).append(",Group ").append(id).append('\n');
+        }
+        Files.writeString(file, content, Charset.defaultCharset());
+        filepath = file.toString();
+        MockEnvironment environment = new MockEnvironment().withProperty(EpicConstants.GROUPS_FILEPATH, filepath);
+        epicCatalogRegistry = new EpicCatalogRegistry(environment, new SimpleMeterRegistry());
+        epicCatalogRegistry.start();
+        otherObjectService = new OtherObjectService(environment, epicCatalogRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        epicCatalogRegistry.stop();
+    }
+
+    @Test
+    void filterFindsOneRecord() throws Exception {
+        assertEquals(List.of(Map.of("GroupID", "G42", "GroupName", "Group 42")),
+                otherObjectService.buildObjectMaps(filepath, "G42", Map.of(EpicConstants.OFFSET, "100")));
+        assertEquals(List.of(), otherObjectService.buildObjectMaps(filepath, "G120", null));
+    }
+
+    @Test
+    void noSearchContextReturnsAllRecords() throws Exception {
+        List<Map<String, String>> records = otherObjectService.buildObjectMaps(filepath, null, null);
+
+        assertEquals(120, records.size());
+        assertEquals("G119", records.get(119).get("GroupID"));
+    }
+
+    @Test
+    void searchContextPagesFromOffset() throws Exception {
+        Map<String, String> searchContext = new HashMap<>();
+        searchContext.put(EpicConstants.PAGE_SIZE, "10");
+        searchContext.put(EpicConstants.OFFSET, "115");
+        List<Map<String, String>> records = otherObjectService.buildObjectMaps(filepath, null, searchContext);
+
+        assertEquals(List.of("G115", "G116", "G117", "G118", "G119"), records.stream().map(record -> record.get("GroupID")).toList());
+    }
+
+    @Test
+    void emptySearchContextUsesDefaultPage() throws Exception {
+        List<Map<String, String>> records = otherObjectService.buildObjectMaps(filepath, null, new HashMap<>());
+
+        assertEquals(EpicConstants.DEFAULT_MAX_RECORDS, records.size());
+        assertEquals("G0", records.get(0).get("GroupID"));
+    }
+}
@@ -0,0 +1,378 @@
+package com.clearskye.epicconnector.snapshot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests of {@link EpicUserSnapshotStore} on a snapshot log in a temporary directory.
+ */
+class EpicUserSnapshotStoreTest {
+    /**
+     * Object Mapper reading the snapshot log lines.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Directory of the snapshot log.
+     */
+    @TempDir
+    Path directory;
+    /**
+     * The open store of a test.
+     */
+    private EpicUserSnapshotStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void skipsUnchangedUsers() throws IOException {
+        store = open();
+
+        assertNotNull(store.put(user("U1", "One")));
+        assertNull(store.put(user("U1", "One")));
+        assertNotNull(store.put(user("U1", "Uno")));
+        assertNull(store.put(Map.of("Name", "No UserID")));
+        assertEquals(2, store.lastSequence());
+        assertEquals("Uno", store.get("U1").map(snapshot -> snapshot.user().get("Name")).orElse(null));
+    }
+
+    @Test
+    void replaysTheLogOnReopen() throws IOException {
+        store = open();
+        store.put(user("U1", "One"));
+        store.put(user("U2", "Two"));
+        store.put(user("U1", "Uno"));
+        store.remove("U2");
+        store.close();
+
+        store = open();
+
+        assertEquals(1, store.size());
+        assertEquals("Uno", store.get("U1").map(snapshot -> snapshot.user().get("Name")).orElse(null));
+        assertEquals(Optional.empty(), store.get("U2"));
+        assertEquals(4, store.lastSequence());
+        assertNull(store.put(user("U1", "Uno")));
+        assertEquals(5, store.put(user("U3", "Three")).sequence());
+    }
+
+    @Test
+    void ignoresATornLastLine() throws IOException {
+        store = open();
+        store.put(user("U1", "One"));
+        store.put(user("U2", "Two"));
+        store.close();
+        Files.writeString(log(), "{\"userId\":\"U3\",\"sequ", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        store = open();
+
+        assertEquals(2, store.size());
+        assertEquals(2, store.lastSequence());
+        assertEquals(Optional.empty(), store.get("U3"));
+        assertEquals(3, store.put(user("U3", "Three")).sequence());
+        store.close();
+
+        store = open();
+
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void compactsTheLogToTheLatestVersions() throws IOException {
+        store = open();
+        for (int version = 0; version < 5; version++) {
+            for (int id = 0; id < 1000; id++) {
+                store.put(user("U" + id, "Name" + version));
+            }
+        }
+        store.remove("U0");
+        store.close();
+
+        assertTrue(Files.readAllLines(log()).size() <= 2 * EpicConstants.SNAPSHOT_MIN_COMPACT_LINES);
+        store = open();
+
+        assertEquals(999, store.size());
+        assertEquals(5001, store.lastSequence());
+        assertEquals("Name4", store.get("U999").map(snapshot -> snapshot.user().get("Name")).orElse(null));
+        assertEquals(1000, Files.readAllLines(log()).size());
+    }
+
+    @Test
+    void removesAndStoresAgain() throws IOException {
+        store = open();
+        store.put(user("U1", "One"));
+        store.remove("U1");
+        store.remove("U1");
+        assertEquals(2, store.lastSequence());
+        assertEquals(Optional.empty(), store.get("U1"));
+
+        assertEquals(3, store.put(user("U1", "One")).sequence());
+        store.close();
+        store = open();
+
+        assertEquals("One", store.get("U1").map(snapshot -> snapshot.user().get("Name")).orElse(null));
+        assertEquals(List.of(3L), store.changedAfter(0, 10).stream().map(EpicUserSnapshot::sequence).toList());
+    }
+
+    @Test
+    void retainsOnlySeenUsers() throws Exception {
+        store = open();
+        store.put(user("U1", "One"));
+        store.put(user("U2", "Two"));
+        Thread.sleep(2);
+        long startedAt = System.currentTimeMillis();
+        store.put(user("U3", "Three"));
+
+        assertEquals(1, store.retainSeen(Set.of("U1"), startedAt));
+        assertEquals(List.of("U1", "U3"), store.page(null, 10).stream().map(EpicUserSnapshot::userId).toList());
+    }
+
+    @Test
+    void keepsConcurrentWritesInSequenceOrder() throws IOException {
+        store = open();
+        CompletableFuture.allOf(IntStream.range(0, 8).mapToObj(thread -> CompletableFuture.runAsync(() -> {
+            for (int id = 0; id < 500; id++) {
+                store.put(user("U" + thread + "-" + id, "Name"));
+            }
+        })).toArray(CompletableFuture[]::new)).join();
+        store.close();
+
+        List<String> lines = Files.readAllLines(log());
+        store = open();
+
+        assertEquals(4000, store.size());
+        assertEquals(4000, store.lastSequence());
+        assertEquals(4000, lines.size());
+    }
+
+    @Test
+    void writesPastAFullQueueWithoutWaitingForTheLogWriter() throws Exception {
+        store = open(new MockEnvironment()
+                .withProperty(EpicConstants.SNAPSHOT_QUEUE_SIZE, "2")
+                .withProperty(EpicConstants.SNAPSHOT_COMPACT_RATIO, "1")
+                .withProperty(EpicConstants.SNAPSHOT_TOMBSTONE_RETENTION, "1"));
+        for (int id = 0; id < 1000; id++) {
+            store.put(user("U" + id, "Name"));
+        }
+        Thread.sleep(2);
+        long startedAt = System.currentTimeMillis();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> assertEquals(1000, store.retainSeen(Set.of(), startedAt))),
+                CompletableFuture.runAsync(() -> {
+                    for (int id = 0; id < 1000; id++) {
+                        store.put(user("V" + id, "Name"));
+                    }
+                })).join());
+        long lastSequence = store.lastSequence();
+        store.close();
+        store = open();
+
+        assertEquals(1000, store.size());
+        assertEquals(List.of("V0"), store.page(null, 1).stream().map(EpicUserSnapshot::userId).toList());
+        assertEquals(lastSequence, store.lastSequence());
+    }
+
+    @Test
+    void dropsReadsStartedBeforeALaterWrite() throws IOException {
+        store = open();
+        store.put(user("U1", "One"));
+        store.put(user("U2", "Two"));
+        long readMark = store.lastSequence();
+        store.remove("U1");
+        store.put(user("U2", "Deux"));
+
+        assertNull(store.put(user("U1", "One"), readMark));
+        assertNull(store.put(user("U2", "Two"), readMark));
+        assertEquals(Optional.empty(), store.get("U1"));
+        assertEquals("Deux", store.get("U2").map(snapshot -> snapshot.user().get("Name")).orElse(null));
+        assertNotNull(store.put(user("U3", "Three"), readMark));
+        assertNotNull(store.put(user("U1", "Uno"), store.lastSequence()));
+    }
+
+    @Test
+    void pagesTheChangesAfterAWatermark() throws IOException {
+        store = open();
+        for (int id = 1; id <= 5; id++) {
+            store.put(user("U" + id, "Name"));
+        }
+        store.put(user("U2", "Renamed"));
+        store.remove("U3");
+
+        List<Long> sequences = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        long watermark = 0;
+        do {
+            List<EpicUserSnapshot> page = store.changedAfter(watermark, 2);
+            assertTrue(page.size() <= 2);
+            page.forEach(changed -> sequences.add(changed.sequence()));
+            page.stream().filter(changed -> changed.user() == null).forEach(changed -> removed.add(changed.userId()));
+            watermark = page.get(page.size() - 1).sequence();
+        } while (store.hasChangedAfter(watermark));
+
+        assertEquals(List.of(1L, 4L, 5L, 6L, 7L), sequences);
+        assertEquals(List.of("U3"), removed);
+        assertEquals(List.of(6L, 7L), store.changedAfter(5, 10).stream().map(EpicUserSnapshot::sequence).toList());
+        assertFalse(store.hasChangedAfter(7));
+        assertEquals(List.of(), store.changedAfter(7, 10));
+    }
+
+    @Test
+    void translatesTimesIntoWatermarks() throws Exception {
+        store = open();
+        for (int version = 0; version < 3; version++) {
+            for (int id = 0; id < 50; id++) {
+                store.put(user("U" + id, "Name" + version));
+                if (id % 7 == 0) {
+                    Thread.sleep(1);
+                }
+            }
+            store.remove("U" + version);
+        }
+        List<EpicUserSnapshot> changes = store.changedAfter(0, Integer.MAX_VALUE);
+        long first = changes.get(0).updatedAt();
+        long last = changes.get(changes.size() - 1).updatedAt();
+
+        assertEquals(0, store.sequenceAt(first - 1));
+        for (long time = first; time <= last + 1; time++) {
+            long expected = 0;
+            for (EpicUserSnapshot snapshot : changes) {
+                if (snapshot.updatedAt() <= time) {
+                    expected = snapshot.sequence();
+                }
+            }
+            assertEquals(expected, store.sequenceAt(time), "time " + time);
+        }
+        assertEquals(store.lastSequence(), store.sequenceAt(Long.MAX_VALUE));
+    }
+
+    @Test
+    void purgesExpiredTombstonesAndKeepsTheMarker() throws Exception {
+        store = open(1);
+        store.put(user("U1", "One"));
+        store.put(user("U2", "Two"));
+        store.put(user("U3", "Three"));
+        store.remove("U2");
+        Thread.sleep(2);
+        store.put(user("U4", "Four"));
+        long removedAt = store.changedAfter(3, 1).get(0).updatedAt();
+        assertFalse(store.requiresFullResync(3));
+        store.close();
+        Thread.sleep(5);
+
+        store = open(1);
+
+        assertEquals(List.of(1L, 3L, 5L), store.changedAfter(0, 10).stream().map(EpicUserSnapshot::sequence).toList());
+        assertTrue(store.requiresFullResync(3));
+        assertFalse(store.requiresFullResync(4));
+        assertEquals(4, store.sequenceAt(removedAt));
+        assertEquals(5, store.sequenceAt(Long.MAX_VALUE));
+        assertNull(objectMapper.readValue(Files.readAllLines(log()).get(0), EpicUserSnapshot.class).userId());
+        store.close();
+
+        store = open(0);
+
+        assertTrue(store.requiresFullResync(3));
+        assertFalse(store.requiresFullResync(4));
+        assertEquals(3, store.size());
+        assertEquals(6, store.put(user("U2", "Two")).sequence());
+    }
+
+    @Test
+    void keepsTombstonesWithinTheRetention() throws IOException {
+        store = open();
+        store.put(user("U1", "One"));
+        store.remove("U1");
+        store.close();
+
+        store = open();
+
+        assertFalse(store.requiresFullResync(0));
+        assertEquals(List.of("U1"), store.changedAfter(0, 10).stream().map(EpicUserSnapshot::userId).toList());
+    }
+
+    /**
+     * Open a store on the snapshot log of the test.
+     *
+     * @return store The open store
+     * @throws IOException Exception during opening the log.
+     */
+    private EpicUserSnapshotStore open() throws IOException {
+        return open(new MockEnvironment());
+    }
+
+    /**
+     * Open a store on the snapshot log of the test, keeping tombstones for a given time.
+     *
+     * @param tombstoneRetention Milliseconds a tombstone is kept for at least, 0 to keep them forever.
+     * @return store The open store
+     * @throws IOException Exception during opening the log.
+     */
+    private EpicUserSnapshotStore open(long tombstoneRetention) throws IOException {
+        return open(new MockEnvironment()
+                .withProperty(EpicConstants.SNAPSHOT_TOMBSTONE_RETENTION, String.valueOf(tombstoneRetention)));
+    }
+
+    /**
+     * Open a store on the snapshot log of the test with further properties.
+     *
+     * @param environment The properties of the store, without the log path.
+     * @return store The open store
+     * @throws IOException Exception during opening the log.
+     */
+    private EpicUserSnapshotStore open(MockEnvironment environment) throws IOException {
+        EpicUserSnapshotStore opened = new EpicUserSnapshotStore(environment
+                .withProperty(EpicConstants.SNAPSHOT_PATH, log().toString()));
+        opened.open();
+        return opened;
+    }
+
+    /**
+     * Path of the snapshot log of the test.
+     *
+     * @return path The snapshot log
+     */
+    private Path log() {
+        return directory.resolve("snapshot.jsonl");
+    }
+
+    /**
+     * An enriched user.
+     *
+     * @param userId UserID of the user.
+     * @param name   Name of the user.
+     * @return user The enriched user
+     */
+    private static Map<String, Object> user(String userId, String name) {
+        return Map.of(EpicConstants.USER_ID_FIELD, userId, "Name", name);
+    }
+}
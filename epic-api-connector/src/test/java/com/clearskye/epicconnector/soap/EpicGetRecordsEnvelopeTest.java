@@ -0,0 +1,149 @@
+package com.clearskye.epicconnector.soap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.w3c.dom.Document;
+
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+import jakarta.xml.soap.MessageFactory;
+import jakarta.xml.soap.SOAPBody;
+import jakarta.xml.soap.SOAPElement;
+import jakarta.xml.soap.SOAPEnvelope;
+import jakarta.xml.soap.SOAPMessage;
+
+/**
+ * Unit tests of {@link EpicGetRecordsEnvelope}, checked against the SAAJ rendering the envelope replaced.
+ */
+class EpicGetRecordsEnvelopeTest {
+
+    @Test
+    void matchesSaajRenderingWithSearchContext() throws Exception {
+        Map<String, String> searchContext = Map.of(EpicConstants.IDENTIFIER, "EMP-SEARCH-42",
+                EpicConstants.RESUME_INFO, "1002|ADOE", EpicConstants.CRITERIA_HASH, "9f2c0e");
+
+        assertSameEnvelope("svc_user", "secret", "EMP", "SMITH", "50", searchContext);
+    }
+
+    @Test
+    void matchesSaajRenderingWithoutSearchContext() throws Exception {
+        assertSameEnvelope("svc_user", "secret", "EMP", "HCTI", "50", null);
+        assertSameEnvelope("svc_user", "secret", "EMP", "HCTI", "50", Map.of());
+    }
+
+    @Test
+    void escapesLikeSaaj() throws Exception {
+        Map<String, String> searchContext = Map.of(EpicConstants.IDENTIFIER, "<id>&\"1\"",
+                EpicConstants.RESUME_INFO, "a&b<c>d", EpicConstants.CRITERIA_HASH, "]]>&lt;");
+
+        assertSameEnvelope("svc&<user>", "p&amp;ss<w>rd&\"", "E&<MP>", "O'BRIEN & <SONS>", "5&0", searchContext);
+    }
+
+    /**
+     * Check that an envelope filled from the pre-rendered one has the same XML as the SAAJ rendering.
+     *
+     * @param username      Configured username.
+     * @param password      Configured password.
+     * @param type          Details to get.
+     * @param searchString  Search string.
+     * @param maxRecords    Maximum number of records of the page.
+     * @param searchContext Search context of the page, may be null.
+     * @throws Exception Exception during rendering or parsing the envelopes.
+     */
+    private static void assertSameEnvelope(String username, String password, String type, String searchString,
+            String maxRecords, Map<String, String> searchContext) throws Exception {
+        EpicGetRecordsEnvelope envelope = new EpicGetRecordsEnvelope(new MockEnvironment()
+                .withProperty(EpicConstants.CONFIG_USERNAME, username)
+                .withProperty(EpicConstants.CONFIG_PASSWORD, password));
+        envelope.render();
+
+        assertEquals(canonical(saajEnvelope(username, password, type, searchString, maxRecords, searchContext)),
+                canonical(envelope.fill(type, searchString, maxRecords, searchContext)));
+    }
+
+    /**
+     * Render a GetRecords envelope with SAAJ, the way the SOAP connection built it before the pre-rendered envelope.
+     *
+     * @param username      Configured username.
+     * @param password      Configured password.
+     * @param type          Details to get.
+     * @param searchString  Search string.
+     * @param maxRecords    Maximum number of records of the page.
+     * @param searchContext Search context of the page, may be null.
+     * @return envelope The serialized envelope
+     * @throws Exception Exception during rendering the envelope.
+     */
+    private static byte[] saajEnvelope(String username, String password, String type, String searchString,
+            String maxRecords, Map<String, String> searchContext) throws Exception {
+        SOAPMessage soapMessage = MessageFactory.newInstance().createMessage();
+        SOAPEnvelope envelope = soapMessage.getSOAPPart().getEnvelope();
+        envelope.addAttribute(new QName(EpicConstants.XMLNS_URN), EpicConstants.SOAP_URN_VALUE);
+        SOAPElement security = envelope.getHeader().addChildElement(EpicConstants.SECURITY, EpicConstants.WSSE, EpicConstants.SECURITY_URN);
+        security.addAttribute(new QName(EpicConstants.XMLNS_WSU), EpicConstants.XMLNS_WSU_URN);
+        SOAPElement usernameToken = security.addChildElement(EpicConstants.USERNAME_TOKEN, EpicConstants.WSSE);
+        usernameToken.addAttribute(new QName(EpicConstants.WSU_ID), EpicConstants.USERNAME_TOKEN_ID);
+        usernameToken.addChildElement(EpicConstants.USERNAME, EpicConstants.WSSE).addTextNode(EpicConstants.EMP_COLON + username);
+        SOAPElement passwordElement = usernameToken.addChildElement(EpicConstants.PASSWORD, EpicConstants.WSSE);
+        passwordElement.setAttribute(EpicConstants.TYPE, EpicConstants.TYPE_PASSWORD_URN);
+        passwordElement.addTextNode(password.replace(EpicConstants.AMP_CHAR_REF, EpicConstants.AMPERSAND));
+        SOAPElement nonce = usernameToken.addChildElement(EpicConstants.NONCE, EpicConstants.WSSE);
+        nonce.setAttribute(EpicConstants.ENCODING_TYPE, EpicConstants.ENCODING_TYPE_URN);
+        nonce.addTextNode(EpicConstants.TEXT_NODE_IQ);
+        SOAPBody soapBody = envelope.getBody();
+        SOAPElement getRecords = soapBody.addChildElement(new QName(EpicConstants.GET_RECORDS_URN, EpicConstants.GET_RECORDS));
+        getRecords.setAttribute(EpicConstants.XSI, EpicConstants.XSI_URN);
+        SOAPElement searchElement = getRecords.addChildElement(EpicConstants.SEARCH_CRITERIA);
+        searchElement.addChildElement(EpicConstants.INI).addTextNode(type);
+        searchElement.addChildElement(EpicConstants.SEARCH_STRING).addTextNode(searchString);
+        searchElement.addChildElement(EpicConstants.RECORDSTATE).addTextNode(EpicConstants.ACTIVE);
+        searchElement.addChildElement(EpicConstants.SKIPENROL).addTextNode(EpicConstants.FALSE);
+        searchElement.addChildElement(EpicConstants.SOUNDS_LIKE_MODE).addTextNode(EpicConstants.USE_IF_NEEDED);
+        searchElement.addChildElement(EpicConstants.MAX_REC_PER_FETCH).addTextNode(maxRecords);
+        if (searchContext != null && !searchContext.isEmpty()) {
+            SOAPElement context = getRecords.addChildElement(EpicConstants.SEARCH_CONTEXT);
+            context.addChildElement(EpicConstants.IDENTIFIER).addTextNode(searchContext.get(EpicConstants.IDENTIFIER));
+            context.addChildElement(EpicConstants.RESUME_INFO).addTextNode(searchContext.get(EpicConstants.RESUME_INFO));
+            context.addChildElement(EpicConstants.CRITERIA_HASH).addTextNode(searchContext.get(EpicConstants.CRITERIA_HASH));
+        }
+        getRecords.addChildElement(EpicConstants.USER_ID_FIELD).addTextNode(username);
+        soapMessage.saveChanges();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        soapMessage.writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Parse an envelope and serialize it again, so equal XML gives equal text whatever its escaping, attribute
+     * order or XML declaration.
+     *
+     * @param envelope The serialized envelope.
+     * @return xml The canonical text of the envelope
+     * @throws Exception Exception during parsing or serializing the envelope.
+     */
+    private static String canonical(byte[] envelope) throws Exception {
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        Document document = documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(envelope));
+        document.normalizeDocument();
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter xml = new StringWriter();
+        transformer.transform(new DOMSource(document), new StreamResult(xml));
+        return xml.toString();
+    }
+}
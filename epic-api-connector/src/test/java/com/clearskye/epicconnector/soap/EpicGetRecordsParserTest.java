@@ -0,0 +1,92 @@
+package com.clearskye.epicconnector.soap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.jupiter.api.Test;
+
+import com.clearskye.epicconnector.exception.CustomCommonException;
+import com.clearskye.epicconnector.exception.CustomInvalidCredentialException;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Unit tests of {@link EpicGetRecordsParser} on recorded GetRecords responses.
+ */
+class EpicGetRecordsParserTest {
+
+    @Test
+    void parsesRecordsWithAdditionalFields() throws Exception {
+        Map<String, Object> response = parse("get-records-response.xml");
+
+        assertEquals(List.of(
+                Map.of("UserName", "SMITH, JOHN", "Blocked", "", "Department", "Cardiology & Vascular",
+                        EpicConstants.XML_RECORD_ID, "JSMITH", "ID", "1001", "Name", "SMITH, JOHN"),
+                Map.of(EpicConstants.XML_RECORD_ID, "ADOE", "ID", "1002", "Name", "DOE, ANNE <ADMIN>")),
+                response.get(EpicConstants.RECORDLIST));
+    }
+
+    @Test
+    void parsesTheSearchContextOfTheNextPage() throws Exception {
+        Map<String, Object> response = parse("get-records-response.xml");
+
+        assertEquals(Map.of(EpicConstants.CRITERIA_HASH, "9f2c0e", EpicConstants.IDENTIFIER, "EMP-SEARCH-42",
+                EpicConstants.RESUME_INFO, "1002|ADOE"), response.get(EpicConstants.SEARCH_CONTEXT));
+    }
+
+    @Test
+    void lastPageHasNoSearchContext() throws Exception {
+        Map<String, Object> response = parse("get-records-last-page.xml");
+
+        assertEquals(List.of(Map.of(EpicConstants.XML_RECORD_ID, "ZWILSON", "ID", "1999", "Name", "WILSON, ZOE")),
+                response.get(EpicConstants.RECORDLIST));
+        assertFalse(response.containsKey(EpicConstants.SEARCH_CONTEXT));
+    }
+
+    @Test
+    void emptyRecordListHasNoRecords() throws Exception {
+        assertEquals(Map.of(), parse("get-records-empty.xml"));
+    }
+
+    @Test
+    void failedAuthenticationFaultIsInvalidCredential() {
+        CustomInvalidCredentialException ex = assertThrows(CustomInvalidCredentialException.class,
+                () -> parse("fault-failed-authentication.xml"));
+
+        assertEquals("The security token could not be authenticated or authorized.", ex.getMessage());
+    }
+
+    @Test
+    void otherFaultIsCommonException() {
+        CustomCommonException ex = assertThrows(CustomCommonException.class, () -> parse("fault-server.xml"));
+
+        assertEquals("Search criteria are not valid for the INI EMP.", ex.getMessage());
+    }
+
+    @Test
+    void rejectsDoctypeAndExternalEntities() {
+        assertThrows(XMLStreamException.class, () -> parse("get-records-doctype.xml"));
+    }
+
+    /**
+     * Parse a recorded response.
+     *
+     * @param name Name of the recorded response under {@code soap/}.
+     * @return responseMap Records and search context of the response
+     * @throws XMLStreamException Exception during reading the response.
+     * @throws IOException        Exception during reading the resource.
+     */
+    private Map<String, Object> parse(String name) throws XMLStreamException, IOException {
+        try (InputStream content = getClass().getResourceAsStream("/soap/" + name)) {
+            return EpicGetRecordsParser.parse(new StreamSource(content));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.clearskye.epicconnector.soap;
+
+import static com.clearskye.epicconnector.soap.EpicRecordCursorTest.context;
+import static com.clearskye.epicconnector.soap.EpicRecordCursorTest.response;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.clearskye.epicconnector.exception.CustomCommonException;
+
+/**
+ * Unit tests of {@link EpicPartitionedCursor} over scripted partition searches.
+ */
+class EpicPartitionedCursorTest {
+    /**
+     * Executor running the partitions.
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void returnsEveryRecordOnceAcrossPartitions() throws Exception {
+        Map<String, List<List<String>>> pages = Map.of(
+                "A", List.of(List.of("ADAMS", "ALLEN"), List.of("ANDERSON", "SHARED")),
+                "B", List.of(List.of("BAKER", "SHARED"), List.of("ALLEN")),
+                "C", List.of(),
+                "S", List.of(List.of("SHARED")));
+        List<String> returned = new ArrayList<>();
+
+        try (EpicPartitionedCursor cursor = new EpicPartitionedCursor(List.of("A", "B", "C", "S"),
+                partition -> cursor(pages.get(partition)), 2, executor)) {
+            EpicPageCursor.Page page;
+            while ((page = cursor.nextPage()) != null) {
+                assertNull(page.searchContext());
+                assertFalse(page.records().isEmpty());
+                returned.addAll(page.recordIds());
+            }
+            assertNull(cursor.nextPage());
+        }
+
+        assertEquals(returned.size(), new HashSet<>(returned).size());
+        assertEquals(Set.of("ADAMS", "ALLEN", "ANDERSON", "SHARED", "BAKER"), new HashSet<>(returned));
+    }
+
+    @Test
+    void failureOfAPartitionEndsTheEnumeration() throws Exception {
+        CustomCommonException failure = new CustomCommonException("Epic is down");
+        List<String> opened = new ArrayList<>();
+
+        try (EpicPartitionedCursor cursor = new EpicPartitionedCursor(List.of("A", "B", "C"), partition -> {
+            synchronized (opened) {
+                opened.add(partition);
+            }
+            if ("B".equals(partition)) {
+                return new EpicRecordCursor(searchContextMap -> {
+                    throw failure;
+                }, Map.of(), 0, executor);
+            }
+            return cursor(List.of(List.of(partition + "1")));
+        }, 1, executor)) {
+            assertEquals(List.of("A1"), cursor.nextPage().recordIds());
+            assertSame(failure, assertThrows(CustomCommonException.class, cursor::nextPage));
+            assertNull(cursor.nextPage());
+        }
+
+        assertEquals(List.of("A", "B"), opened);
+    }
+
+    @Test
+    void closeStopsWorkersBlockedOnAFullQueue() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        EpicPartitionedCursor cursor = new EpicPartitionedCursor(List.of("A", "B"),
+                partition -> new EpicRecordCursor(searchContextMap -> {
+                    int request = requests.incrementAndGet();
+                    return response(context(partition + request), partition + request);
+                }, Map.of(), 0, workers), 2, workers);
+        assertEquals(1, cursor.nextPage().recordIds().size());
+
+        cursor.close();
+        workers.shutdown();
+
+        assertTrue(workers.awaitTermination(5, TimeUnit.SECONDS));
+        int stopped = requests.get();
+        assertNull(cursor.nextPage());
+        assertEquals(stopped, requests.get());
+    }
+
+    /**
+     * A cursor over scripted pages.
+     *
+     * @param pages External ids of the records of every page.
+     * @return cursor The cursor, ending after the last page
+     */
+    private EpicPageCursor cursor(List<List<String>> pages) {
+        AtomicInteger request = new AtomicInteger();
+        return new EpicRecordCursor(searchContextMap -> {
+            int index = request.getAndIncrement();
+            if (index >= pages.size()) {
+                return response(null);
+            }
+            return response(index == pages.size() - 1 ? null : context("C" + index), pages.get(index).toArray(String[]::new));
+        }, Map.of(), 0, executor);
+    }
+}
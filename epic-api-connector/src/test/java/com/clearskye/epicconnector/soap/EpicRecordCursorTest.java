@@ -0,0 +1,156 @@
+package com.clearskye.epicconnector.soap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.clearskye.epicconnector.exception.CustomCommonException;
+import com.clearskye.epicconnector.utils.EpicConstants;
+
+/**
+ * Unit tests of {@link EpicRecordCursor} on a scripted search.
+ */
+class EpicRecordCursorTest {
+    /**
+     * Executor running the prefetch.
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3})
+    void endsWhenTheSearchContextRepeats(int prefetch) throws Exception {
+        List<Map<String, Object>> requests = new ArrayList<>();
+        EpicRecordCursor.PageFetcher fetcher = searchContextMap -> {
+            requests.add(new HashMap<>(searchContextMap));
+            return switch (requests.size()) {
+                case 1 -> response(context("C1"), "U1", "U2");
+                case 2 -> response(context("C2"), "U3");
+                default -> response(context("C2"), "U4");
+            };
+        };
+
+        try (EpicRecordCursor cursor = new EpicRecordCursor(fetcher, Map.of(EpicConstants.PAGE_SIZE, "2"), prefetch, executor)) {
+            assertEquals(List.of("U1", "U2"), cursor.nextPage().recordIds());
+            assertEquals(List.of("U3"), cursor.nextPage().recordIds());
+            EpicPageCursor.Page last = cursor.nextPage();
+            assertEquals(List.of("U4"), last.recordIds());
+            assertNull(last.searchContext());
+            assertNull(cursor.nextPage());
+            assertNull(cursor.nextPage());
+        }
+
+        assertEquals(3, requests.size());
+        assertEquals(Map.of(EpicConstants.PAGE_SIZE, "2"), requests.get(0));
+        assertEquals(context("C1"), requests.get(1).get(EpicConstants.SEARCH_CONTEXT));
+        assertEquals(context("C2"), requests.get(2).get(EpicConstants.SEARCH_CONTEXT));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void endsWithoutSearchContext(int prefetch) throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        EpicRecordCursor.PageFetcher fetcher = searchContextMap ->
+                requests.incrementAndGet() == 1 ? response(context("C1"), "U1") : response(null);
+
+        try (EpicRecordCursor cursor = new EpicRecordCursor(fetcher, Map.of(), prefetch, executor)) {
+            assertEquals(List.of("U1"), cursor.nextPage().recordIds());
+            assertEquals(List.of(), cursor.nextPage().recordIds());
+            assertNull(cursor.nextPage());
+        }
+        assertEquals(2, requests.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3})
+    void failsAfterThePagesFetchedBeforeTheFailure(int prefetch) throws Exception {
+        CustomCommonException failure = new CustomCommonException("Epic is down");
+        AtomicInteger requests = new AtomicInteger();
+        EpicRecordCursor.PageFetcher fetcher = searchContextMap -> {
+            int request = requests.incrementAndGet();
+            if (request == 3) {
+                throw failure;
+            }
+            return response(context("C" + request), "U" + request);
+        };
+
+        try (EpicRecordCursor cursor = new EpicRecordCursor(fetcher, Map.of(), prefetch, executor)) {
+            assertEquals(List.of("U1"), cursor.nextPage().recordIds());
+            assertEquals(List.of("U2"), cursor.nextPage().recordIds());
+            assertSame(failure, assertThrows(CustomCommonException.class, cursor::nextPage));
+            assertNull(cursor.nextPage());
+        }
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void closeStopsTheProducerBlockedOnAFullQueue() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        EpicRecordCursor.PageFetcher fetcher = searchContextMap -> {
+            int request = requests.incrementAndGet();
+            return response(context("C" + request), "U" + request);
+        };
+        EpicRecordCursor cursor = new EpicRecordCursor(fetcher, Map.of(), 1, executor);
+        assertEquals(List.of("U1"), cursor.nextPage().recordIds());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.get() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        cursor.close();
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, requests.get());
+        assertNull(cursor.nextPage());
+    }
+
+    /**
+     * A search context.
+     *
+     * @param identifier Identifier of the search state.
+     * @return searchContext The search context
+     */
+    static Map<String, Object> context(String identifier) {
+        return Map.of(EpicConstants.IDENTIFIER, identifier, EpicConstants.RESUME_INFO, identifier + "|", EpicConstants.CRITERIA_HASH, "H");
+    }
+
+    /**
+     * A parsed GetRecords response.
+     *
+     * @param searchContext Search context of the next page, null on the last page.
+     * @param userIds       External ids of the records.
+     * @return response The parsed response
+     */
+    static Map<String, Object> response(Map<String, Object> searchContext, String... userIds) {
+        Map<String, Object> response = new HashMap<>();
+        if (userIds.length > 0) {
+            response.put(EpicConstants.RECORDLIST, List.of(userIds).stream()
+                    .<Map<String, Object>>map(userId -> Map.of(EpicConstants.XML_RECORD_ID, userId)).toList());
+        }
+        if (searchContext != null) {
+            response.put(EpicConstants.SEARCH_CONTEXT, searchContext);
+        }
+        return response;
+    }
+}